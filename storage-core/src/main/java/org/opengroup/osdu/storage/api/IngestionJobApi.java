@@ -0,0 +1,70 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.api;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.google.common.base.Strings;
+import org.opengroup.osdu.core.common.model.http.DpsHeaders;
+import org.opengroup.osdu.core.common.model.storage.StorageRole;
+import org.opengroup.osdu.storage.response.IngestionJobStatus;
+import org.opengroup.osdu.storage.service.IngestionJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.annotation.RequestScope;
+
+@RestController
+@RequestMapping("ingestion/jobs")
+@RequestScope
+@Validated
+public class IngestionJobApi {
+
+	@Autowired
+	private DpsHeaders headers;
+
+	@Autowired
+	private IngestionJobService ingestionJobService;
+
+	/**
+	 * Starts an asynchronous ingestion of the records in the NDJSON request body, one record per line, or of the
+	 * given file of the staging directory. Jobs run with the service account, so starting one requires the admin role.
+	 * @return the created job, to be polled for its progress
+	 */
+	@PostMapping
+	@PreAuthorize("@authorizationFilter.hasRole('" + StorageRole.ADMIN + "')")
+	public ResponseEntity<IngestionJobStatus> createIngestionJob(@RequestParam(required = false) boolean skipdupes,
+			@RequestParam(name = "file", required = false) String stagedFile, HttpServletRequest request) throws IOException {
+		IngestionJobStatus status = this.ingestionJobService.submit(
+				Strings.isNullOrEmpty(stagedFile) ? request.getInputStream() : null, stagedFile, skipdupes, this.headers.getUserEmail());
+		return new ResponseEntity<IngestionJobStatus>(status, HttpStatus.ACCEPTED);
+	}
+
+	@GetMapping("/{id}")
+	@PreAuthorize("@authorizationFilter.hasRole('" + StorageRole.CREATOR + "', '" + StorageRole.ADMIN + "')")
+	public ResponseEntity<IngestionJobStatus> getIngestionJob(@PathVariable("id") String id) {
+		return new ResponseEntity<IngestionJobStatus>(this.ingestionJobService.getStatus(id), HttpStatus.OK);
+	}
+}
@@ -28,7 +28,10 @@ import org.springframework.web.context.annotation.RequestScope;
 import org.opengroup.osdu.core.common.model.http.DpsHeaders;
 import org.opengroup.osdu.core.common.model.storage.RecordBulkUpdateParam;
 import org.opengroup.osdu.core.common.model.storage.StorageRole;
+import org.opengroup.osdu.storage.request.KindBulkUpdateRequest;
 import org.opengroup.osdu.storage.response.BulkUpdateRecordsResponse;
+import org.opengroup.osdu.storage.response.KindBulkUpdateResponse;
+import org.opengroup.osdu.storage.util.EncodeDecode;
 
 @RestController
 @RequestMapping("records")
@@ -42,6 +45,9 @@ public class PatchApi {
 	@Autowired
 	private BulkUpdateRecordService bulkUpdateRecordService;
 
+	@Autowired
+	private EncodeDecode encodeDecode;
+
 	@PatchMapping()
 	@PreAuthorize("@authorizationFilter.hasRole('" + StorageRole.CREATOR + "', '" + StorageRole.ADMIN + "')")
 	public ResponseEntity<BulkUpdateRecordsResponse> updateRecordsMetadata(@RequestBody @Valid RecordBulkUpdateParam recordBulkUpdateParam) {
@@ -52,4 +58,21 @@ public class PatchApi {
 			return new ResponseEntity<>(response, HttpStatus.OK);
 		}
 	}
+
+	/**
+	 * Applies the patch operations to the records of a kind, optionally narrowed down by tags and legal tags.
+	 * Each call patches a bounded number of records; the returned cursor continues with the next ones.
+	 */
+	@PatchMapping("/kind")
+	@PreAuthorize("@authorizationFilter.hasRole('" + StorageRole.ADMIN + "')")
+	public ResponseEntity<KindBulkUpdateResponse> updateRecordsMetadataByKind(@RequestBody @Valid KindBulkUpdateRequest request) {
+		request.setCursor(this.encodeDecode.deserializeCursor(request.getCursor()));
+		KindBulkUpdateResponse response = this.bulkUpdateRecordService.bulkUpdateRecordsByKind(request, this.headers.getUserEmail());
+		response.setCursor(this.encodeDecode.serializeCursor(response.getCursor()));
+		if (!response.getLockedRecordIds().isEmpty() || !response.getUnAuthorizedRecordIds().isEmpty() || !response.getFailedChunks().isEmpty()) {
+			return new ResponseEntity<>(response, HttpStatus.PARTIAL_CONTENT);
+		} else {
+			return new ResponseEntity<>(response, HttpStatus.OK);
+		}
+	}
 }
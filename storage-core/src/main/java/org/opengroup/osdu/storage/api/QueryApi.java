@@ -14,14 +14,24 @@
 
 package org.opengroup.osdu.storage.api;
 
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.opengroup.osdu.core.common.model.storage.*;
 import org.opengroup.osdu.core.common.model.storage.validation.ValidKind;
+import org.opengroup.osdu.storage.request.MultiRecordVersionsRequest;
+import org.opengroup.osdu.storage.response.MultiRecordVersionsResponse;
 import org.opengroup.osdu.storage.service.BatchService;
 import org.opengroup.osdu.storage.util.EncodeDecode;
+import org.opengroup.osdu.storage.util.MultiRecordResponseWriter;
+import org.opengroup.osdu.storage.util.RecordExportWriter;
+import org.opengroup.osdu.storage.validation.api.BatchRequestValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
@@ -39,29 +49,67 @@ import org.springframework.web.context.annotation.RequestScope;
 @Validated
 public class QueryApi {
 
+	private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson;charset=UTF-8";
+
 	@Autowired
 	private BatchService batchService;
 
 	@Autowired
 	private EncodeDecode encodeDecode;
 
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private BatchRequestValidator batchRequestValidator;
+
 	@PostMapping("/records")
 	@PreAuthorize("@authorizationFilter.hasRole('" + StorageRole.VIEWER + "', '" + StorageRole.CREATOR + "', '" + StorageRole.ADMIN + "')")
-	public ResponseEntity<MultiRecordInfo> getRecords(@Valid @RequestBody MultiRecordIds ids) {
+	public ResponseEntity<MultiRecordInfo> getRecords(@RequestBody MultiRecordIds ids) {
+		this.batchRequestValidator.validate(ids);
 		return new ResponseEntity<MultiRecordInfo>(this.batchService.getMultipleRecords(ids), HttpStatus.OK);
 	}
 
 	/**
-	 * New fetch records Api, allows maximum 20 records per request and customized header to do conversion.
+	 * New fetch records Api, allows a configurable number of records per request and customized header to do conversion.
 	 * @param ids id of records to be fetched
 	 * @return valid records
 	 */
 	@PostMapping("/records:batch")
 	@PreAuthorize("@authorizationFilter.hasRole('" + StorageRole.VIEWER + "', '" + StorageRole.CREATOR + "', '" + StorageRole.ADMIN + "')")
-	public ResponseEntity<MultiRecordResponse> fetchRecords(@Valid @RequestBody MultiRecordRequest ids) {
+	public ResponseEntity<MultiRecordResponse> fetchRecords(@RequestBody MultiRecordRequest ids) {
+		this.batchRequestValidator.validate(ids);
 		return new ResponseEntity<MultiRecordResponse>(this.batchService.fetchMultipleRecords(ids), HttpStatus.OK);
 	}
 
+	/**
+	 * Streaming variant of records:batch. Records are written to the response as soon as they are read and converted,
+	 * so memory usage is bounded by a chunk of records instead of the whole batch.
+	 * @param ids id of records to be fetched
+	 */
+	@PostMapping(value = "/records:batch", params = "stream=true")
+	@PreAuthorize("@authorizationFilter.hasRole('" + StorageRole.VIEWER + "', '" + StorageRole.CREATOR + "', '" + StorageRole.ADMIN + "')")
+	public void fetchRecordsStream(@RequestBody MultiRecordRequest ids, HttpServletResponse response) throws IOException {
+		this.batchRequestValidator.validate(ids);
+		response.setStatus(HttpStatus.OK.value());
+		response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+		try (MultiRecordResponseWriter writer = new MultiRecordResponseWriter(
+				this.objectMapper.getFactory().createGenerator(response.getOutputStream()))) {
+			this.batchService.fetchMultipleRecords(ids, writer);
+		}
+	}
+
+	/**
+	 * Fetches specific versions of many records at once. Records listed without versions are returned with all their versions.
+	 * @param request ids of records and their versions to be fetched
+	 * @return the requested record versions and the ones that could not be found
+	 */
+	@PostMapping("/records:versions")
+	@PreAuthorize("@authorizationFilter.hasRole('" + StorageRole.VIEWER + "', '" + StorageRole.CREATOR + "', '" + StorageRole.ADMIN + "')")
+	public ResponseEntity<MultiRecordVersionsResponse> getRecordVersions(@Valid @RequestBody MultiRecordVersionsRequest request) {
+		return new ResponseEntity<MultiRecordVersionsResponse>(this.batchService.getMultipleRecordVersions(request), HttpStatus.OK);
+	}
+
 	// This endpoint is deprecated as of M6, replaced by schema service. In M7 this endpoint will be deleted
 	@Deprecated
 	@GetMapping("/kinds")
@@ -83,4 +131,25 @@ public class QueryApi {
 		result.setCursor(encodeDecode.serializeCursor(result.getCursor()));
 		return new ResponseEntity<DatastoreQueryResult>(result, HttpStatus.OK);
 	}
+
+	/**
+	 * Exports the latest version of the records of a kind as newline delimited JSON. The last line is the trailer
+	 * {"@export":{"cursor":...,"recordCount":...,"retryRecords":[...]}}, holding the cursor to continue the export
+	 * from, or null once the kind is exhausted. An export whose last line is not the trailer failed and must be retried.
+	 */
+	@GetMapping("/records:export")
+	@PreAuthorize("@authorizationFilter.hasRole('" + StorageRole.ADMIN + "')")
+	public void exportRecords(
+			@RequestParam(required = false) String cursor,
+			@RequestParam(required = false) Integer limit,
+			@RequestParam @ValidKind String kind,
+			HttpServletResponse response) throws IOException {
+		String decodedCursor = this.encodeDecode.deserializeCursor(cursor);
+		response.setStatus(HttpStatus.OK.value());
+		response.setContentType(NDJSON_CONTENT_TYPE);
+		try (RecordExportWriter writer = new RecordExportWriter(response.getOutputStream(), this.objectMapper,
+				this.encodeDecode::serializeCursor)) {
+			this.batchService.exportRecords(decodedCursor, kind, limit, writer);
+		}
+	}
 }
\ No newline at end of file
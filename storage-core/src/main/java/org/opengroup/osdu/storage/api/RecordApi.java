@@ -14,8 +14,10 @@
 
 package org.opengroup.osdu.storage.api;
 
+import java.io.IOException;
 import java.util.List;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Pattern;
@@ -32,6 +34,7 @@ import org.opengroup.osdu.storage.mapper.CreateUpdateRecordsResponseMapper;
 import org.opengroup.osdu.storage.response.CreateUpdateRecordsResponse;
 import org.opengroup.osdu.storage.service.QueryService;
 import org.opengroup.osdu.storage.service.RecordService;
+import org.opengroup.osdu.storage.service.StreamingIngestionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -70,6 +73,9 @@ public class RecordApi {
 	@Autowired
 	private CreateUpdateRecordsResponseMapper createUpdateRecordsResponseMapper;
 
+	@Autowired
+	private StreamingIngestionService streamingIngestionService;
+
 	@PutMapping
 	@PreAuthorize("@authorizationFilter.hasRole('" + StorageRole.CREATOR + "', '" + StorageRole.ADMIN + "')")
 	@ResponseStatus(HttpStatus.CREATED)
@@ -80,6 +86,19 @@ public class RecordApi {
 		return createUpdateRecordsResponseMapper.map(transfer, records);
 	}
 
+	/**
+	 * Same as {@link #createOrUpdateRecords} but reads the records from the body as they are ingested, in chunks,
+	 * instead of binding the whole list first. All records are validated before the first chunk is stored; when the
+	 * ingestion of a later chunk fails, the error reports how many records were already processed.
+	 */
+	@PutMapping(params = "stream=true")
+	@PreAuthorize("@authorizationFilter.hasRole('" + StorageRole.CREATOR + "', '" + StorageRole.ADMIN + "')")
+	@ResponseStatus(HttpStatus.CREATED)
+	public CreateUpdateRecordsResponse createOrUpdateRecordsStream(@RequestParam(required = false) boolean skipdupes,
+			HttpServletRequest request) throws IOException {
+		return streamingIngestionService.createUpdateRecords(request.getInputStream(), skipdupes, headers.getUserEmail());
+	}
+
 	@GetMapping("/versions/{id}")
 	@PreAuthorize("@authorizationFilter.hasRole('" + StorageRole.VIEWER + "', '" + StorageRole.CREATOR + "', '" + StorageRole.ADMIN + "')")
 	public ResponseEntity<RecordVersions> getRecordVersions(
@@ -0,0 +1,212 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.cache;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+
+import com.google.gson.Gson;
+import org.opengroup.osdu.core.common.cache.VmCache;
+import org.opengroup.osdu.core.common.model.http.DpsHeaders;
+import org.opengroup.osdu.core.common.model.legal.LegalCompliance;
+import org.opengroup.osdu.core.common.model.storage.RecordMetadata;
+import org.opengroup.osdu.storage.provider.interfaces.IRecordsMetadataRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+/**
+ * Near-cache in front of the provider's metadata repository. Entries are stored serialized so callers always get
+ * their own copy, and writes or deletes going through this instance evict the affected ids immediately.
+ * Other instances only observe changes once the entry expires, so the TTL should stay short, and read-modify-write
+ * paths must read through {@link #uncached(IRecordsMetadataRepository)} instead.
+ */
+@Primary
+@Component
+@ConditionalOnProperty(value = "records.metadata.cache.enabled", havingValue = "true", matchIfMissing = false)
+public class CachingRecordsMetadataRepository implements IRecordsMetadataRepository<Serializable>, SmartInitializingSingleton {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    @Value("${records.metadata.cache.ttl.seconds:30}")
+    private int ttlSeconds;
+
+    @Value("${records.metadata.cache.max.size:10000}")
+    private int maxSize;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private DpsHeaders headers;
+
+    private final Gson gson = new Gson();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // bumped before every eviction, a read that raced with a write does not leave its stale value in the cache
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private VmCache<String, String> cache;
+    private IRecordsMetadataRepository<Serializable> delegate;
+
+    /**
+     * Returns the repository the given one caches for, or the repository itself when it is not a cache.
+     */
+    @SuppressWarnings("unchecked")
+    public static IRecordsMetadataRepository uncached(IRecordsMetadataRepository repository) {
+        if (repository instanceof CachingRecordsMetadataRepository) {
+            return ((CachingRecordsMetadataRepository) repository).delegate;
+        }
+        return repository;
+    }
+
+    @PostConstruct
+    void init() {
+        this.cache = new VmCache<>(this.ttlSeconds, this.maxSize);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void afterSingletonsInstantiated() {
+        for (IRecordsMetadataRepository repository : this.applicationContext.getBeansOfType(IRecordsMetadataRepository.class).values()) {
+            if (repository != this) {
+                this.delegate = repository;
+                return;
+            }
+        }
+        throw new IllegalStateException("No records metadata repository found to cache");
+    }
+
+    @Override
+    public List<RecordMetadata> createOrUpdate(List<RecordMetadata> recordsMetadata) {
+        try {
+            return this.delegate.createOrUpdate(recordsMetadata);
+        } finally {
+            recordsMetadata.forEach(recordMetadata -> this.evict(this.getKey(recordMetadata.getId())));
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        try {
+            this.delegate.delete(id);
+        } finally {
+            this.evict(this.getKey(id));
+        }
+    }
+
+    @Override
+    public RecordMetadata get(String id) {
+        String key = this.getKey(id);
+        String cached = this.cache.get(key);
+        if (cached != null) {
+            this.hits.increment();
+            return this.gson.fromJson(cached, RecordMetadata.class);
+        }
+
+        this.misses.increment();
+        long generation = this.getGeneration(key);
+        RecordMetadata recordMetadata = this.delegate.get(id);
+        if (recordMetadata != null) {
+            this.put(key, recordMetadata, generation);
+        }
+        return recordMetadata;
+    }
+
+    @Override
+    public Map<String, RecordMetadata> get(List<String> ids) {
+        Map<String, RecordMetadata> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            String cached = this.cache.get(this.getKey(id));
+            if (cached != null) {
+                result.put(id, this.gson.fromJson(cached, RecordMetadata.class));
+            } else {
+                missing.add(id);
+            }
+        }
+        this.hits.add(ids.size() - missing.size());
+        this.misses.add(missing.size());
+
+        if (!missing.isEmpty()) {
+            Map<String, Long> generations = new HashMap<>();
+            missing.forEach(id -> generations.put(id, this.getGeneration(this.getKey(id))));
+            Map<String, RecordMetadata> fetched = this.delegate.get(missing);
+            fetched.forEach((id, recordMetadata) -> {
+                if (recordMetadata != null && generations.containsKey(id)) {
+                    this.put(this.getKey(id), recordMetadata, generations.get(id));
+                }
+            });
+            result.putAll(fetched);
+        }
+        return result;
+    }
+
+    @Override
+    public AbstractMap.SimpleEntry<Serializable, List<RecordMetadata>> queryByLegalTagName(String legalTagName, int limit, Serializable cursor) {
+        return this.delegate.queryByLegalTagName(legalTagName, limit, cursor);
+    }
+
+    @Override
+    public AbstractMap.SimpleEntry<Serializable, List<RecordMetadata>> queryByLegal(String legalTagName, LegalCompliance status, int limit) {
+        return this.delegate.queryByLegal(legalTagName, status, limit);
+    }
+
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    private void put(String key, RecordMetadata recordMetadata, long generation) {
+        this.cache.put(key, this.gson.toJson(recordMetadata));
+        // an eviction since the delegate was read may have run before the put, undo the put in that case
+        if (this.getGeneration(key) != generation) {
+            this.cache.delete(key);
+        }
+    }
+
+    private void evict(String key) {
+        this.generations.incrementAndGet(this.getStripe(key));
+        this.cache.delete(key);
+    }
+
+    private long getGeneration(String key) {
+        return this.generations.get(this.getStripe(key));
+    }
+
+    private int getStripe(String key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % GENERATION_STRIPES;
+    }
+
+    private String getKey(String id) {
+        return this.headers.getPartitionId() + ":" + id;
+    }
+}
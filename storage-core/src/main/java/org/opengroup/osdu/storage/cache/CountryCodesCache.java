@@ -0,0 +1,140 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.opengroup.osdu.storage.cache;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.opengroup.osdu.core.common.legal.ILegalFactory;
+import org.opengroup.osdu.core.common.logging.JaxRsDpsLog;
+import org.opengroup.osdu.core.common.model.http.AppException;
+import org.opengroup.osdu.core.common.model.http.DpsHeaders;
+import org.opengroup.osdu.core.common.model.legal.LegalException;
+import org.opengroup.osdu.core.common.model.tenant.TenantInfo;
+import org.opengroup.osdu.core.common.provider.interfaces.ITenantFactory;
+import org.opengroup.osdu.core.common.util.IServiceAccountJwtClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Valid other relevant data countries per partition. Tables are loaded for every known tenant at startup and
+ * reloaded in the background with the service account, so requests read them without blocking. A partition
+ * that is not loaded yet is loaded on first use with the caller's headers.
+ */
+@Component
+public class CountryCodesCache {
+
+    @Value("${legal.country.codes.refresh.seconds:3600}")
+    private long refreshSeconds;
+
+    @Autowired
+    private ILegalFactory factory;
+
+    @Autowired(required = false)
+    private ITenantFactory tenantFactory;
+
+    @Autowired
+    private IServiceAccountJwtClient jwtClient;
+
+    @Autowired
+    private JaxRsDpsLog logger;
+
+    private final ConcurrentMap<String, Map<String, String>> countryCodes = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void init() {
+        if (this.refreshSeconds > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("storage-country-codes-%d").setDaemon(true).build());
+            this.scheduler.scheduleWithFixedDelay(this::refresh, 0, this.refreshSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+        }
+    }
+
+    public Map<String, String> get(DpsHeaders headers) {
+        Map<String, String> codes = this.countryCodes.get(headers.getPartitionId());
+        if (codes == null) {
+            codes = this.load(headers);
+            if (codes.isEmpty()) {
+                return codes;
+            }
+            this.countryCodes.put(headers.getPartitionId(), codes);
+        }
+        return codes;
+    }
+
+    void refresh() {
+        Set<String> partitionIds = new HashSet<>(this.countryCodes.keySet());
+        if (this.tenantFactory != null) {
+            try {
+                for (TenantInfo tenantInfo : this.tenantFactory.listTenantInfo()) {
+                    partitionIds.add(tenantInfo.getDataPartitionId());
+                }
+            } catch (RuntimeException e) {
+                this.logger.warning("Could not list tenants to load country codes", e);
+            }
+        }
+
+        for (String partitionId : partitionIds) {
+            try {
+                Map<String, String> codes = this.load(this.getServiceHeaders(partitionId));
+                if (!codes.isEmpty()) {
+                    this.countryCodes.put(partitionId, codes);
+                }
+            } catch (RuntimeException e) {
+                this.logger.warning(String.format("Could not refresh country codes of partition %s", partitionId), e);
+            }
+        }
+    }
+
+    private Map<String, String> load(DpsHeaders headers) {
+        try {
+            Map<String, String> codes = this.factory.create(headers).getLegalTagProperties().getOtherRelevantDataCountries();
+            return codes == null ? Collections.emptyMap() : Collections.unmodifiableMap(new HashMap<>(codes));
+        } catch (LegalException e) {
+            throw new AppException(e.getHttpResponse().getResponseCode(), "Error getting legal tag properties",
+                    "An unexpected error occurred when getting legal tag properties", e);
+        }
+    }
+
+    private DpsHeaders getServiceHeaders(String partitionId) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put(DpsHeaders.DATA_PARTITION_ID, partitionId);
+        headers.put(DpsHeaders.AUTHORIZATION, this.jwtClient.getIdToken(partitionId));
+        return DpsHeaders.createFromMap(headers);
+    }
+}
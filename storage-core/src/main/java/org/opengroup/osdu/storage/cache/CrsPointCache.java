@@ -0,0 +1,113 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import org.opengroup.osdu.core.common.model.crs.Point;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converted CRS points keyed by a digest of the source persistable reference and the source coordinates, so
+ * repeated conversions of the same records skip the remote converter. Disabled unless a TTL is configured.
+ */
+@Component
+public class CrsPointCache {
+
+    @Value("${crs.conversion.point.cache.ttl.seconds:0}")
+    private int ttlSeconds;
+
+    @Value("${crs.conversion.point.cache.max.size:100000}")
+    private int maxSize;
+
+    private Cache<String, double[]> cache;
+
+    @PostConstruct
+    void init() {
+        if (this.ttlSeconds > 0) {
+            this.cache = CacheBuilder.newBuilder()
+                    .expireAfterWrite(this.ttlSeconds, TimeUnit.SECONDS)
+                    .maximumSize(this.maxSize)
+                    .recordStats()
+                    .build();
+        }
+    }
+
+    public boolean isEnabled() {
+        return this.cache != null;
+    }
+
+    /**
+     * References can be whole CRS definitions, so they are hashed once and the digest is used in every point key.
+     */
+    public static String getReferenceDigest(String reference) {
+        return Hashing.sha256().hashString(reference, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * Returns copies of the converted points in the given order, or null if any of them is not cached.
+     */
+    public List<Point> getAll(String referenceDigest, List<Point> sourcePoints) {
+        if (this.cache == null) {
+            return null;
+        }
+        List<Point> convertedPoints = new ArrayList<>(sourcePoints.size());
+        for (Point sourcePoint : sourcePoints) {
+            double[] converted = this.cache.getIfPresent(getKey(referenceDigest, sourcePoint));
+            if (converted == null) {
+                return null;
+            }
+            Point point = new Point();
+            point.setX(converted[0]);
+            point.setY(converted[1]);
+            point.setZ(converted[2]);
+            convertedPoints.add(point);
+        }
+        return convertedPoints;
+    }
+
+    public void put(String referenceDigest, Point sourcePoint, Point convertedPoint) {
+        if (this.cache == null || convertedPoint == null) {
+            return;
+        }
+        this.cache.put(getKey(referenceDigest, sourcePoint),
+                new double[]{convertedPoint.getX(), convertedPoint.getY(), convertedPoint.getZ()});
+    }
+
+    public long getHitCount() {
+        return this.cache == null ? 0 : this.cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return this.cache == null ? 0 : this.cache.stats().missCount();
+    }
+
+    public double getHitRate() {
+        return this.cache == null ? 0 : this.cache.stats().hitRate();
+    }
+
+    private static String getKey(String referenceDigest, Point point) {
+        return referenceDigest + "|" + point.getX() + "|" + point.getY() + "|" + point.getZ();
+    }
+}
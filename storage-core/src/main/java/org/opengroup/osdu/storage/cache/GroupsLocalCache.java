@@ -0,0 +1,87 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.opengroup.osdu.storage.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.http.HttpStatus;
+import org.opengroup.osdu.core.common.model.entitlements.Groups;
+import org.opengroup.osdu.core.common.model.http.AppException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process cache of user groups in front of the shared entitlements cache. Concurrent misses for the same key
+ * wait for a single load. A TTL of 0 disables it.
+ */
+@Component
+public class GroupsLocalCache {
+
+    @Value("${entitlements.groups.local.cache.ttl.seconds:5}")
+    private int ttlSeconds;
+
+    @Value("${entitlements.groups.local.cache.max.size:10000}")
+    private int maxSize;
+
+    private Cache<String, Groups> cache;
+
+    @PostConstruct
+    void init() {
+        if (this.ttlSeconds > 0) {
+            this.cache = CacheBuilder.newBuilder()
+                    .expireAfterWrite(this.ttlSeconds, TimeUnit.SECONDS)
+                    .maximumSize(this.maxSize)
+                    .recordStats()
+                    .build();
+        }
+    }
+
+    public Groups get(String key, Callable<Groups> loader) {
+        try {
+            if (this.cache == null) {
+                return loader.call();
+            }
+            return this.cache.get(key, loader);
+        } catch (CacheLoader.InvalidCacheLoadException e) {
+            return null;
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, "Unknown error", "Error loading user groups", e.getCause());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, "Unknown error", "Error loading user groups", e);
+        }
+    }
+
+    public long getHitCount() {
+        return this.cache == null ? 0 : this.cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return this.cache == null ? 0 : this.cache.stats().missCount();
+    }
+}
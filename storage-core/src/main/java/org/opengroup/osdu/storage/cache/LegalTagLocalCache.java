@@ -0,0 +1,94 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.opengroup.osdu.storage.cache;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process cache of legal tag validation results, in front of the shared cache. Tags reported invalid by the
+ * Legal service are remembered for a shorter time, 5 seconds by default against 10 for valid ones, so a tag created
+ * in the meantime is accepted soon while repeated bad submissions are still rejected without a call.
+ * A TTL of 0 disables the corresponding cache.
+ */
+@Component
+public class LegalTagLocalCache {
+
+    @Value("${legal.tag.local.cache.ttl.seconds:10}")
+    private int validTtlSeconds;
+
+    @Value("${legal.tag.local.cache.invalid.ttl.seconds:5}")
+    private int invalidTtlSeconds;
+
+    @Value("${legal.tag.local.cache.max.size:10000}")
+    private int maxSize;
+
+    private Cache<String, Boolean> validTags;
+    private Cache<String, Boolean> invalidTags;
+
+    @PostConstruct
+    void init() {
+        this.validTags = this.build(this.validTtlSeconds);
+        this.invalidTags = this.build(this.invalidTtlSeconds);
+    }
+
+    /**
+     * Returns true or false when the tag is known to be valid or invalid in the partition, null otherwise.
+     */
+    public Boolean isValid(String partitionId, String legalTagName) {
+        String key = this.getKey(partitionId, legalTagName);
+        if (this.validTags != null && this.validTags.getIfPresent(key) != null) {
+            return Boolean.TRUE;
+        }
+        if (this.invalidTags != null && this.invalidTags.getIfPresent(key) != null) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    public void putValid(String partitionId, Collection<String> legalTagNames) {
+        if (this.validTags != null) {
+            legalTagNames.forEach(legalTagName -> this.validTags.put(this.getKey(partitionId, legalTagName), Boolean.TRUE));
+        }
+    }
+
+    public void putInvalid(String partitionId, String legalTagName) {
+        if (this.invalidTags != null) {
+            this.invalidTags.put(this.getKey(partitionId, legalTagName), Boolean.TRUE);
+        }
+    }
+
+    private Cache<String, Boolean> build(int ttlSeconds) {
+        if (ttlSeconds <= 0) {
+            return null;
+        }
+        return CacheBuilder.newBuilder()
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .maximumSize(this.maxSize)
+                .build();
+    }
+
+    private String getKey(String partitionId, String legalTagName) {
+        return partitionId + ":" + legalTagName;
+    }
+}
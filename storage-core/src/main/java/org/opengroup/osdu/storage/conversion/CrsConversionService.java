@@ -15,10 +15,20 @@
 package org.opengroup.osdu.storage.conversion;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import org.opengroup.osdu.core.common.crs.CrsConversionServiceErrorMessages;
 import org.opengroup.osdu.core.common.model.crs.*;
 import org.opengroup.osdu.core.common.model.http.AppException;
@@ -27,10 +37,15 @@ import org.opengroup.osdu.core.common.crs.ICrsConverterFactory;
 import org.opengroup.osdu.core.common.crs.ICrsConverterService;
 import org.opengroup.osdu.core.common.logging.JaxRsDpsLog;
 import org.opengroup.osdu.core.common.util.IServiceAccountJwtClient;
+import org.opengroup.osdu.storage.cache.CrsPointCache;
+import org.opengroup.osdu.storage.util.BoundedExecutors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
@@ -52,6 +67,17 @@ public class CrsConversionService {
     private static final String TO_CRS = "{\"wkt\":\"GEOGCS[\\\"GCS_WGS_1984\\\",DATUM[\\\"D_WGS_1984\\\",SPHEROID[\\\"WGS_1984\\\",6378137.0,298.257223563]],PRIMEM[\\\"Greenwich\\\",0.0],UNIT[\\\"Degree\\\",0.0174532925199433],AUTHORITY[\\\"EPSG\\\",4326]]\",\"ver\":\"PE_10_3_1\",\"name\":\"GCS_WGS_1984\",\"authCode\":{\"auth\":\"EPSG\",\"code\":\"4326\"},\"type\":\"LBC\"}";
     private static final String UNKNOWN_ERROR = "unknown error";
     private static final String CONVERSION_FAILURE = "CRS Conversion Error: Point Converted failed(CRS Converter is returning null), no conversion applied. Affected property names: %s, %s";
+    private static final int MAX_PAIRING_PLANS = 1000;
+    private static final String CONVERSION_TIMEOUT = "CRS Conversion Error: CRS Converter did not respond in time, no conversion applied. Affected property names: %s, %s";
+
+    @Value("${crs.conversion.max.points.per.request:1000}")
+    private int maxPointsPerRequest;
+
+    @Value("${crs.conversion.thread.count:8}")
+    private int conversionThreadCount;
+
+    @Value("${crs.conversion.request.timeout.ms:30000}")
+    private long requestTimeoutMillis;
 
     @Autowired
     private CrsPropertySet crsPropertySet;
@@ -68,9 +94,28 @@ public class CrsConversionService {
     @Autowired
     private IServiceAccountJwtClient jwtClient;
 
+    @Autowired(required = false)
+    private CrsPointCache pointCache;
+
+    private final Cache<List<String>, PairingPlan> pairingPlans = CacheBuilder.newBuilder().maximumSize(MAX_PAIRING_PLANS).build();
+
+    private ExecutorService conversionExecutor;
+
+    @PostConstruct
+    void init() {
+        if (this.conversionThreadCount > 0) {
+            this.conversionExecutor = BoundedExecutors.newFixedPool("storage-crs-conversion", this.conversionThreadCount);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        BoundedExecutors.shutdown(this.conversionExecutor, 10);
+    }
+
     public RecordsAndStatuses doCrsConversion(List<JsonObject> originalRecords, List<ConversionStatus.ConversionStatusBuilder> conversionStatuses) {
         RecordsAndStatuses crsConversionResult = new RecordsAndStatuses();
-        Map<String, List<PointConversionInfo>> pointConversionInfoList = this.gatherCrsConversionData(originalRecords, conversionStatuses);
+        Map<String, List<ConversionUnit>> pointConversionInfoList = this.gatherCrsConversionData(originalRecords, conversionStatuses);
 
         if (pointConversionInfoList.isEmpty()) {
             crsConversionResult.setRecords(originalRecords);
@@ -98,13 +143,14 @@ public class CrsConversionService {
         return result;
     }
 
-    private Map<String, List<PointConversionInfo>> gatherCrsConversionData(List<JsonObject> originalRecords, List<ConversionStatus.ConversionStatusBuilder> conversionStatuses) {
-        Map<String, List<PointConversionInfo>> batchPointConversionMap = new HashMap<>();
+    private Map<String, List<ConversionUnit>> gatherCrsConversionData(List<JsonObject> originalRecords, List<ConversionStatus.ConversionStatusBuilder> conversionStatuses) {
+        Map<String, List<ConversionUnit>> batchPointConversionMap = new HashMap<>();
+        Map<String, ConversionStatus.ConversionStatusBuilder> statusBuilders = this.indexConversionStatusBuilders(conversionStatuses);
 
         for (int i = 0; i < originalRecords.size(); i++) {
             JsonObject recordJsonObject = originalRecords.get(i);
             String recordId = this.getRecordId(recordJsonObject);
-            ConversionStatus.ConversionStatusBuilder statusBuilder = this.getConversionStatusBuilderFromList(recordId, conversionStatuses);
+            ConversionStatus.ConversionStatusBuilder statusBuilder = statusBuilders.get(recordId.toLowerCase());
             JsonObject dataBlcok = recordJsonObject.getAsJsonObject(DATA);
             if (dataBlcok == null) {
                 statusBuilder.addError(CrsConversionServiceErrorMessages.MISSING_DATA_BLOCK);
@@ -136,24 +182,65 @@ public class CrsConversionService {
         return conversionStatusBuilder.getValidMetaItems();
     }
 
-    private List<PointConversionInfo> constructPointConversionInfoList(List<JsonObject> originalRecords, String recordId, JsonObject metaItem, int recordIndex, Map<String, List<PointConversionInfo>> mapOfPoints, JsonObject dataBlock, int metaItemIndex, List<JsonObject> metaBlocks, ConversionStatus.ConversionStatusBuilder conversionStatusBuilder) {
+    private List<PointConversionInfo> constructPointConversionInfoList(List<JsonObject> originalRecords, String recordId, JsonObject metaItem, int recordIndex, Map<String, List<ConversionUnit>> mapOfPoints, JsonObject dataBlock, int metaItemIndex, List<JsonObject> metaBlocks, ConversionStatus.ConversionStatusBuilder conversionStatusBuilder) {
         List<PointConversionInfo> pointConversionInfoList = new ArrayList<>();
         String persistableReference = jsonElementToString(metaItem.get(PERSISTABLE_REFERENCE));
         JsonArray propertyNamesArray = metaItem.get(PROPERTY_NAMES).getAsJsonArray();
         List<String> propertyNames = this.convertPropertyNamesToStringList(propertyNamesArray);
-        List<String> propertyNamesRemain = new ArrayList<>();
-        for (String name: propertyNames) {
-            propertyNamesRemain.add(name.toLowerCase());
-        }
         int propertySize = propertyNames.size();
 
         // nested property with point list
         if (propertySize == 1) {
             PointConversionInfo pointConversionInfo = this.initializePoint(recordIndex, recordId, metaItemIndex, metaBlocks, conversionStatusBuilder);
-            pointConversionInfoList.add(this.crsConversionWithNestedPropertyNames(originalRecords, persistableReference, dataBlock, propertyNamesArray, pointConversionInfo, metaBlocks));
+            pointConversionInfoList.add(this.gatherNestedPoints(originalRecords.get(recordIndex), persistableReference, dataBlock, propertyNamesArray, pointConversionInfo, mapOfPoints));
             return pointConversionInfoList;
         }
 
+        PairingPlan plan = this.getPairingPlan(propertyNames);
+        for (String[] pair : plan.pairs) {
+            String propertyX = pair[0];
+            String propertyY = pair[1];
+            PointConversionInfo pointConversionInfo = this.initializePoint(recordIndex, recordId, metaItemIndex, metaBlocks, conversionStatusBuilder);
+
+            pointConversionInfo.setXFieldName(propertyX);
+            pointConversionInfo.setYFieldName(propertyY);
+            pointConversionInfo.setXValue(this.extractPropertyFromDataBlock(dataBlock, propertyX, conversionStatusBuilder));
+            pointConversionInfo.setYValue(this.extractPropertyFromDataBlock(dataBlock, propertyY, conversionStatusBuilder));
+            pointConversionInfo.setZFieldName("Z");
+            pointConversionInfo.setZValue(0.0);
+            pointConversionInfoList.add(pointConversionInfo);
+
+            if (conversionStatusBuilder.getStatus().equalsIgnoreCase(ConvertStatus.SUCCESS.toString())) {
+                List<Point> points = Collections.singletonList(this.constructPointFromPointConversionInfo(pointConversionInfo));
+                this.addConversionUnitIntoConversionMap(persistableReference, new ConversionUnit(pointConversionInfo, points), mapOfPoints);
+            }
+        }
+        for (String name : plan.unpairedNames) {
+            conversionStatusBuilder.addMessage(String.format(CrsConversionServiceErrorMessages.PAIR_FAILURE, name));
+        }
+        return pointConversionInfoList;
+    }
+
+    /**
+     * Pairing only depends on the property names of the meta item, which records of the same kind share, so it is
+     * compiled once per distinct list of names and reused for every record.
+     */
+    private PairingPlan getPairingPlan(List<String> propertyNames) {
+        PairingPlan plan = this.pairingPlans.getIfPresent(propertyNames);
+        if (plan == null) {
+            plan = this.compilePairingPlan(propertyNames);
+            this.pairingPlans.put(new ArrayList<>(propertyNames), plan);
+        }
+        return plan;
+    }
+
+    private PairingPlan compilePairingPlan(List<String> propertyNames) {
+        PairingPlan plan = new PairingPlan();
+        List<String> propertyNamesRemain = new ArrayList<>();
+        for (String name: propertyNames) {
+            propertyNamesRemain.add(name.toLowerCase());
+        }
+
         Map<String, String> propertyPairingMap = this.crsPropertySet.getPropertyPairing();
         for (int i = 0; i < propertyNames.size(); i++) {
             String propertyX = propertyNames.get(i);
@@ -163,49 +250,29 @@ public class CrsConversionService {
 
             String lowerCaseInnerX = lowerCasePropertyXs[propertyXsLength - 1];
 
-            if (propertyPairingMap.get(lowerCaseInnerX) == null) {
-                // either an y property or an unsupported property
+            // either an y property or an unsupported property
+            String innerY = propertyPairingMap.get(lowerCaseInnerX);
+            if (innerY == null) {
                 continue;
-            } else {
-                // find a pair of x,y
-                String innerY = propertyPairingMap.get(lowerCaseInnerX);
-                // if x is nested, then paired y should share the same outer structure
-                StringBuilder propertyYBuilder = new StringBuilder();
-                for (int j = 0; j < propertyXsLength - 1; j++) {
-                    propertyYBuilder.append(lowerCasePropertyXs[j]);
-                    propertyYBuilder.append(".");
-                }
-                propertyYBuilder.append(innerY);
-                String propertyY = propertyYBuilder.toString();
-                if (propertyNamesRemain.contains(propertyY)) {
-                    propertyY = this.getCaseSensitivePropertyY(propertyNames, propertyY);
-                    PointConversionInfo pointConversionInfo = this.initializePoint(recordIndex, recordId, metaItemIndex, metaBlocks, conversionStatusBuilder);
-
-                    pointConversionInfo.setXFieldName(propertyX);
-                    pointConversionInfo.setYFieldName(propertyY);
-                    pointConversionInfo.setXValue(this.extractPropertyFromDataBlock(dataBlock, propertyX, conversionStatusBuilder));
-                    pointConversionInfo.setYValue(this.extractPropertyFromDataBlock(dataBlock, propertyY, conversionStatusBuilder));
-                    pointConversionInfo.setZFieldName("Z");
-                    pointConversionInfo.setZValue(0.0);
-                    pointConversionInfoList.add(pointConversionInfo);
-
-                    if (conversionStatusBuilder.getStatus().equalsIgnoreCase(ConvertStatus.SUCCESS.toString())) {
-                        this.addPointConversionInfoIntoConversionMap(persistableReference, pointConversionInfo, mapOfPoints);
-                    }
-
-                    propertyNamesRemain.remove(propertyX.toLowerCase());
-                    propertyNamesRemain.remove(propertyY.toLowerCase());
-                } else {
-                    continue;
-                }
             }
-        }
-        if (!propertyNamesRemain.isEmpty()) {
-            for (String name : propertyNamesRemain) {
-                conversionStatusBuilder.addMessage(String.format(CrsConversionServiceErrorMessages.PAIR_FAILURE, name));
+            // if x is nested, then paired y should share the same outer structure
+            StringBuilder propertyYBuilder = new StringBuilder();
+            for (int j = 0; j < propertyXsLength - 1; j++) {
+                propertyYBuilder.append(lowerCasePropertyXs[j]);
+                propertyYBuilder.append(".");
+            }
+            propertyYBuilder.append(innerY);
+            String propertyY = propertyYBuilder.toString();
+            if (propertyNamesRemain.contains(propertyY)) {
+                propertyY = this.getCaseSensitivePropertyY(propertyNames, propertyY);
+                plan.pairs.add(new String[]{propertyX, propertyY});
+
+                propertyNamesRemain.remove(propertyX.toLowerCase());
+                propertyNamesRemain.remove(propertyY.toLowerCase());
             }
         }
-        return pointConversionInfoList;
+        plan.unpairedNames.addAll(propertyNamesRemain);
+        return plan;
     }
 
     private PointConversionInfo initializePoint(int recordIndex, String recordId, int metaItemIndex, List<JsonObject> metaBlocks, ConversionStatus.ConversionStatusBuilder conversionStatusBuilder) {
@@ -269,7 +336,11 @@ public class CrsConversionService {
         return null;
     }
 
-    private PointConversionInfo crsConversionWithNestedPropertyNames(List<JsonObject> originalRecords, String persistableReference, JsonObject dataBlock, JsonArray metaPropertyNames, PointConversionInfo pointConversionInfo, List<JsonObject> metaBlocks) {
+    /**
+     * Collects the points of a nested property so they are converted together with every other point sharing the
+     * same persistable reference in the batch. The nested property is rewritten once the conversion returns.
+     */
+    private PointConversionInfo gatherNestedPoints(JsonObject originalRecord, String persistableReference, JsonObject dataBlock, JsonArray metaPropertyNames, PointConversionInfo pointConversionInfo, Map<String, List<ConversionUnit>> mapOfPoints) {
         Set<String> nestedPropertyNames = this.crsPropertySet.getNestedPropertyNames();
         ConversionStatus.ConversionStatusBuilder statusBuilder = pointConversionInfo.getStatusBuilder();
         String nestedFieldName= metaPropertyNames.get(0).getAsString();
@@ -305,48 +376,11 @@ public class CrsConversionService {
                 originalPoints.add(point);
             }
 
-            ICrsConverterService crsConverterService = this.crsConverterFactory.create(this.customizeHeaderBeforeCallingCrsConversion(this.dpsHeaders));
-            ConvertPointsRequest request = new ConvertPointsRequest(persistableReference, TO_CRS, originalPoints);
-
-            ConvertPointsResponse response = crsConverterService.convertPoints(request);
-            List<Point> convertedPoints = response.getPoints();
-
-            JsonArray convertedJsonPoints = new JsonArray();
-            for (int i = 0; i < convertedPoints.size(); i++ ) {
-                Point convertedPoint = convertedPoints.get(i);
-                JsonArray pointValues = new JsonArray();
-                pointValues.add(convertedPoint.getX());
-                pointValues.add(convertedPoint.getY());
-                pointValues.add(convertedPoint.getZ());
-                convertedJsonPoints.add(pointValues);
-            }
-            nestedProperty.remove(POINTS);
-            nestedProperty.add(POINTS, convertedJsonPoints);
-            dataBlock.add(nestedFieldName, nestedProperty);
-
-            int metaItemIndex = pointConversionInfo.getMetaItemIndex();
-            JsonObject metaItem = metaBlocks.get(metaItemIndex);
-            metaItem.remove(PERSISTABLE_REFERENCE);
-            metaItem.addProperty(PERSISTABLE_REFERENCE, TO_CRS);
-            metaBlocks.set(metaItemIndex, metaItem);
-            JsonArray metas = new JsonArray();
-            for (JsonObject m : metaBlocks) {
-                metas.add(m);
-            }
-
-            int recordIndex = pointConversionInfo.getRecordIndex();
-            JsonObject originalRecord = originalRecords.get(recordIndex);
-            originalRecord.add(DATA, dataBlock);
-            originalRecord.add(META, metas);
-            originalRecords.set(recordIndex, originalRecord);
-            return pointConversionInfo;
-        } catch (CrsConverterException cvEx) {
-            if (cvEx.getHttpResponse().IsBadRequestCode()) {
-                statusBuilder.addError(String.format(CrsConversionServiceErrorMessages.BAD_REQUEST_FROM_CRS, cvEx.getHttpResponse().getBody(), nestedFieldName));
-            } else {
-                this.logger.error(String.format(CrsConversionServiceErrorMessages.CRS_OTHER_ERROR, cvEx.getHttpResponse().toString()));
-                throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, UNKNOWN_ERROR, "crs conversion service error.");
-            }
+            ConversionUnit unit = new ConversionUnit(pointConversionInfo, originalPoints);
+            unit.record = originalRecord;
+            unit.nestedProperty = nestedProperty;
+            unit.nestedFieldName = nestedFieldName;
+            this.addConversionUnitIntoConversionMap(persistableReference, unit, mapOfPoints);
         } catch (ClassCastException ccEx) {
             statusBuilder.addError(String.format(CrsConversionServiceErrorMessages.ILLEGAL_DATA_IN_NESTED_PROPERTY, nestedFieldName, ccEx.getMessage()));
         } catch (IllegalStateException isEx) {
@@ -357,53 +391,180 @@ public class CrsConversionService {
         return pointConversionInfo;
     }
 
-    private void addPointConversionInfoIntoConversionMap(String reference, PointConversionInfo pointInfo, Map<String, List<PointConversionInfo>> pointsToBeConverted) {
+    private void addConversionUnitIntoConversionMap(String reference, ConversionUnit unit, Map<String, List<ConversionUnit>> pointsToBeConverted) {
         if (pointsToBeConverted == null) {
             throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, UNKNOWN_ERROR, "points to be converted map is null");
         }
 
-        List<PointConversionInfo> listOfPointsWithSameReference = pointsToBeConverted.get(reference);
-        if (listOfPointsWithSameReference == null) {
-            listOfPointsWithSameReference = new ArrayList<>();
-        }
-
-        listOfPointsWithSameReference.add(pointInfo);
-        pointsToBeConverted.put(reference, listOfPointsWithSameReference);
+        pointsToBeConverted.computeIfAbsent(reference, key -> new ArrayList<>()).add(unit);
     }
 
-
-    List<PointConversionInfo> callClientLibraryDoConversion(Map<String, List<PointConversionInfo>> originalPointsMap, List<ConversionStatus.ConversionStatusBuilder> conversionStatuses) {
+    /**
+     * Converts every gathered point with as few converter calls as possible: all points sharing a persistable
+     * reference are coalesced, split into requests of at most {@code maxPointsPerRequest} points (a nested property
+     * is never split across requests) and sent concurrently. Requests that do not complete in time or fail are
+     * reported on the statuses of the affected records. Returns the converted x/y pairs to be written back.
+     */
+    List<PointConversionInfo> callClientLibraryDoConversion(Map<String, List<ConversionUnit>> originalPointsMap, List<ConversionStatus.ConversionStatusBuilder> conversionStatuses) {
         ICrsConverterService crsConverterService = this.crsConverterFactory.create(this.customizeHeaderBeforeCallingCrsConversion(this.dpsHeaders));
         List<PointConversionInfo> convertedPointInfo = new ArrayList<>();
 
-        for (Map.Entry<String, List<PointConversionInfo>> entry : originalPointsMap.entrySet()) {
-            List<Point> pointsToBeConverted = new ArrayList<>();
-            List<PointConversionInfo> pointsList = entry.getValue();
-
-            for (PointConversionInfo point : pointsList) {
-                Point toBeConverted = this.constructPointFromPointConversionInfo(point);
-                pointsToBeConverted.add(toBeConverted);
+        List<ConversionRequest> requests = new ArrayList<>();
+        for (Map.Entry<String, List<ConversionUnit>> entry : originalPointsMap.entrySet()) {
+            List<ConversionUnit> uncachedUnits = this.putBackCachedPoints(entry.getKey(), entry.getValue(), convertedPointInfo);
+            if (!uncachedUnits.isEmpty()) {
+                requests.addAll(this.splitIntoRequests(entry.getKey(), uncachedUnits));
             }
+        }
 
-            ConvertPointsRequest request = new ConvertPointsRequest(entry.getKey(), TO_CRS, pointsToBeConverted);
-            try {
-                ConvertPointsResponse response = crsConverterService.convertPoints(request);
-                List<Point> convertedPoints = response.getPoints();
+        List<Future<ConvertPointsResponse>> responses = new ArrayList<>(requests.size());
+        if (this.conversionExecutor != null && requests.size() > 1) {
+            for (ConversionRequest request : requests) {
+                ConvertPointsRequest convertPointsRequest = request.toConvertPointsRequest();
+                responses.add(this.conversionExecutor.submit(BoundedExecutors.withRequestContext(() -> crsConverterService.convertPoints(convertPointsRequest))));
+            }
+        }
 
-                convertedPointInfo.addAll(this.putBackConvertedValueIntoPointsInfo(pointsList, convertedPoints, conversionStatuses));
-            } catch (CrsConverterException e) {
-                if (e.getHttpResponse().IsBadRequestCode()) {
-                    convertedPointInfo.addAll(this.putDataErrorFromCrsIntoPointsInfo(pointsList, e.getMessage()));
-                    continue;
-                } else {
-                    this.logger.error(String.format(CrsConversionServiceErrorMessages.CRS_OTHER_ERROR, e.getHttpResponse().toString()));
-                    throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, UNKNOWN_ERROR, "crs conversion service error.");
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.requestTimeoutMillis);
+        try {
+            for (int i = 0; i < requests.size(); i++) {
+                ConversionRequest request = requests.get(i);
+                try {
+                    ConvertPointsResponse response = responses.isEmpty()
+                            ? crsConverterService.convertPoints(request.toConvertPointsRequest())
+                            : responses.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    this.putBackConvertedPoints(request, response.getPoints(), convertedPointInfo);
+                } catch (CrsConverterException e) {
+                    this.handleConverterError(request, e, convertedPointInfo);
+                } catch (TimeoutException e) {
+                    responses.get(i).cancel(true);
+                    this.logger.warning(String.format("Timed out converting %d points with the CRS converter", request.pointCount));
+                    for (ConversionUnit unit : request.units) {
+                        unit.addError(CONVERSION_TIMEOUT);
+                    }
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof CrsConverterException) {
+                        this.handleConverterError(request, (CrsConverterException) e.getCause(), convertedPointInfo);
+                    } else if (e.getCause() instanceof AppException) {
+                        throw (AppException) e.getCause();
+                    } else {
+                        for (ConversionUnit unit : request.units) {
+                            unit.pointInfo.getStatusBuilder().addError(e.getCause().getMessage());
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, UNKNOWN_ERROR, "crs conversion was interrupted.");
                 }
             }
+        } catch (AppException e) {
+            responses.forEach(response -> response.cancel(true));
+            throw e;
         }
         return convertedPointInfo;
     }
 
+    private List<ConversionUnit> putBackCachedPoints(String reference, List<ConversionUnit> units, List<PointConversionInfo> convertedPointInfo) {
+        if (this.pointCache == null || !this.pointCache.isEnabled()) {
+            return units;
+        }
+        String referenceDigest = CrsPointCache.getReferenceDigest(reference);
+        List<ConversionUnit> uncachedUnits = new ArrayList<>();
+        for (ConversionUnit unit : units) {
+            List<Point> cachedPoints = this.pointCache.getAll(referenceDigest, unit.points);
+            if (cachedPoints == null) {
+                uncachedUnits.add(unit);
+            } else {
+                this.putBackConvertedUnit(unit, cachedPoints, convertedPointInfo);
+            }
+        }
+        return uncachedUnits;
+    }
+
+    private List<ConversionRequest> splitIntoRequests(String reference, List<ConversionUnit> units) {
+        List<ConversionRequest> requests = new ArrayList<>();
+        ConversionRequest current = new ConversionRequest(reference);
+        for (ConversionUnit unit : units) {
+            if (this.maxPointsPerRequest > 0 && !current.units.isEmpty()
+                    && current.pointCount + unit.points.size() > this.maxPointsPerRequest) {
+                requests.add(current);
+                current = new ConversionRequest(reference);
+            }
+            current.add(unit);
+        }
+        requests.add(current);
+        return requests;
+    }
+
+    private void handleConverterError(ConversionRequest request, CrsConverterException e, List<PointConversionInfo> convertedPointInfo) {
+        if (!e.getHttpResponse().IsBadRequestCode()) {
+            this.logger.error(String.format(CrsConversionServiceErrorMessages.CRS_OTHER_ERROR, e.getHttpResponse().toString()));
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, UNKNOWN_ERROR, "crs conversion service error.");
+        }
+        for (ConversionUnit unit : request.units) {
+            if (unit.isNested()) {
+                unit.pointInfo.getStatusBuilder().addError(String.format(CrsConversionServiceErrorMessages.BAD_REQUEST_FROM_CRS, e.getHttpResponse().getBody(), unit.nestedFieldName));
+            } else {
+                convertedPointInfo.add(this.putDataErrorFromCrsIntoPointInfo(unit.pointInfo, e.getMessage()));
+            }
+        }
+    }
+
+    private void putBackConvertedPoints(ConversionRequest request, List<Point> convertedPoints, List<PointConversionInfo> convertedPointInfo) {
+        boolean cacheEnabled = this.pointCache != null && this.pointCache.isEnabled();
+        String referenceDigest = cacheEnabled ? CrsPointCache.getReferenceDigest(request.reference) : null;
+        int offset = 0;
+        for (ConversionUnit unit : request.units) {
+            int size = unit.points.size();
+            List<Point> unitPoints = new ArrayList<>(size);
+            for (int i = offset; i < offset + size; i++) {
+                Point convertedPoint = convertedPoints != null && i < convertedPoints.size() ? convertedPoints.get(i) : null;
+                if (cacheEnabled) {
+                    this.pointCache.put(referenceDigest, unit.points.get(i - offset), convertedPoint);
+                }
+                unitPoints.add(convertedPoint);
+            }
+            offset += size;
+            this.putBackConvertedUnit(unit, unitPoints, convertedPointInfo);
+        }
+    }
+
+    private void putBackConvertedUnit(ConversionUnit unit, List<Point> convertedPoints, List<PointConversionInfo> convertedPointInfo) {
+        if (unit.isNested()) {
+            this.putBackConvertedValueIntoNestedProperty(unit, convertedPoints);
+        } else {
+            convertedPointInfo.add(this.putBackConvertedValueIntoPointInfo(unit.pointInfo, convertedPoints.get(0)));
+        }
+    }
+
+    private void putBackConvertedValueIntoNestedProperty(ConversionUnit unit, List<Point> convertedPoints) {
+        JsonArray convertedJsonPoints = new JsonArray();
+        for (Point convertedPoint : convertedPoints) {
+            if (convertedPoint == null) {
+                unit.addError(CONVERSION_FAILURE);
+                return;
+            }
+            JsonArray pointValues = new JsonArray();
+            pointValues.add(convertedPoint.getX());
+            pointValues.add(convertedPoint.getY());
+            pointValues.add(convertedPoint.getZ());
+            convertedJsonPoints.add(pointValues);
+        }
+        unit.nestedProperty.remove(POINTS);
+        unit.nestedProperty.add(POINTS, convertedJsonPoints);
+
+        PointConversionInfo pointConversionInfo = unit.pointInfo;
+        List<JsonObject> metaBlocks = pointConversionInfo.getMetaItems();
+        JsonObject metaItem = metaBlocks.get(pointConversionInfo.getMetaItemIndex());
+        metaItem.remove(PERSISTABLE_REFERENCE);
+        metaItem.addProperty(PERSISTABLE_REFERENCE, TO_CRS);
+        JsonArray metas = new JsonArray();
+        for (JsonObject m : metaBlocks) {
+            metas.add(m);
+        }
+        unit.record.add(META, metas);
+    }
+
     private Point constructPointFromPointConversionInfo(PointConversionInfo pointConversionInfo) {
         Point point = new Point();
         point.setX(pointConversionInfo.getXValue());
@@ -412,39 +573,32 @@ public class CrsConversionService {
         return point;
     }
 
-    private List<PointConversionInfo> putBackConvertedValueIntoPointsInfo(List<PointConversionInfo> convertedPointInfo, List<Point> convertedPoints, List<ConversionStatus.ConversionStatusBuilder> conversionStatuses) {
-        for (int i = 0; i < convertedPointInfo.size(); i++) {
-            Point point = convertedPoints.get(i);
-            PointConversionInfo toBeUpdatedInfo = convertedPointInfo.get(i);
-            ConversionStatus.ConversionStatusBuilder statusBuilder = toBeUpdatedInfo.getStatusBuilder();
+    private PointConversionInfo putBackConvertedValueIntoPointInfo(PointConversionInfo toBeUpdatedInfo, Point point) {
+        ConversionStatus.ConversionStatusBuilder statusBuilder = toBeUpdatedInfo.getStatusBuilder();
 
-            if (point == null) {
-                statusBuilder.addError(String.format(CONVERSION_FAILURE, toBeUpdatedInfo.getXFieldName(), toBeUpdatedInfo.getYFieldName()));
-                continue;
-            }
-            toBeUpdatedInfo.setXValue(point.getX());
-            toBeUpdatedInfo.setYValue(point.getY());
-            toBeUpdatedInfo.setZValue(point.getZ());
-
-            int metaItemIndex = toBeUpdatedInfo.getMetaItemIndex();
-            List<JsonObject> metaBlocks = toBeUpdatedInfo.getMetaItems();
-            JsonObject metaItem = metaBlocks.get(metaItemIndex);
-            metaItem.remove(PERSISTABLE_REFERENCE);
-            metaItem.addProperty(PERSISTABLE_REFERENCE, TO_CRS);
-            metaBlocks.set(metaItemIndex, metaItem);
-            toBeUpdatedInfo.setMetaItems(metaBlocks);
+        if (point == null) {
+            statusBuilder.addError(String.format(CONVERSION_FAILURE, toBeUpdatedInfo.getXFieldName(), toBeUpdatedInfo.getYFieldName()));
+            return toBeUpdatedInfo;
         }
-        return convertedPointInfo;
+        toBeUpdatedInfo.setXValue(point.getX());
+        toBeUpdatedInfo.setYValue(point.getY());
+        toBeUpdatedInfo.setZValue(point.getZ());
+
+        int metaItemIndex = toBeUpdatedInfo.getMetaItemIndex();
+        List<JsonObject> metaBlocks = toBeUpdatedInfo.getMetaItems();
+        JsonObject metaItem = metaBlocks.get(metaItemIndex);
+        metaItem.remove(PERSISTABLE_REFERENCE);
+        metaItem.addProperty(PERSISTABLE_REFERENCE, TO_CRS);
+        metaBlocks.set(metaItemIndex, metaItem);
+        toBeUpdatedInfo.setMetaItems(metaBlocks);
+        return toBeUpdatedInfo;
     }
 
-    private List<PointConversionInfo> putDataErrorFromCrsIntoPointsInfo(List<PointConversionInfo> convertedPointInfo, String errMsg) {
-        for (int i = 0; i < convertedPointInfo.size(); i++) {
-            PointConversionInfo toBeUpdatedInfo = convertedPointInfo.get(i);
-            ConversionStatus.ConversionStatusBuilder statusBuilder = toBeUpdatedInfo.getStatusBuilder();
+    private PointConversionInfo putDataErrorFromCrsIntoPointInfo(PointConversionInfo toBeUpdatedInfo, String errMsg) {
+        ConversionStatus.ConversionStatusBuilder statusBuilder = toBeUpdatedInfo.getStatusBuilder();
 
-            statusBuilder.addCRSBadRequestError(errMsg, toBeUpdatedInfo.getXFieldName(), toBeUpdatedInfo.getYFieldName());
-        }
-        return convertedPointInfo;
+        statusBuilder.addCRSBadRequestError(errMsg, toBeUpdatedInfo.getXFieldName(), toBeUpdatedInfo.getYFieldName());
+        return toBeUpdatedInfo;
     }
 
     private void updateValuesInRecord(JsonObject recordJsonObject, PointConversionInfo convertedInfo, List<ConversionStatus.ConversionStatusBuilder> conversionStatuses) {
@@ -477,14 +631,12 @@ public class CrsConversionService {
         inner.addProperty(nestedNames[nestedNames.length - 1], value);
     }
 
-    private ConversionStatus.ConversionStatusBuilder getConversionStatusBuilderFromList(String recordId, List<ConversionStatus.ConversionStatusBuilder> conversionStatuses) {
-        for (int i = 0; i < conversionStatuses.size(); i++) {
-            ConversionStatus.ConversionStatusBuilder builder = conversionStatuses.get(i);
-            if (builder.getId().equalsIgnoreCase(recordId)) {
-                return builder;
-            }
+    private Map<String, ConversionStatus.ConversionStatusBuilder> indexConversionStatusBuilders(List<ConversionStatus.ConversionStatusBuilder> conversionStatuses) {
+        Map<String, ConversionStatus.ConversionStatusBuilder> statusBuilders = new HashMap<>();
+        for (ConversionStatus.ConversionStatusBuilder builder : conversionStatuses) {
+            statusBuilders.putIfAbsent(builder.getId().toLowerCase(), builder);
         }
-        return null;
+        return statusBuilders;
     }
 
     private String getRecordId(JsonObject record) {
@@ -505,4 +657,60 @@ public class CrsConversionService {
         headers.put(DpsHeaders.DATA_PARTITION_ID, dpsHeaders.getPartitionId());
         return headers;
     }
+
+    private static class PairingPlan {
+        private final List<String[]> pairs = new ArrayList<>();
+        private final List<String> unpairedNames = new ArrayList<>();
+    }
+
+    /**
+     * Points of a single x/y pair, or of a whole nested property, that must be converted in the same request.
+     */
+    static class ConversionUnit {
+        private final PointConversionInfo pointInfo;
+        private final List<Point> points;
+        private JsonObject record;
+        private JsonObject nestedProperty;
+        private String nestedFieldName;
+
+        ConversionUnit(PointConversionInfo pointInfo, List<Point> points) {
+            this.pointInfo = pointInfo;
+            this.points = points;
+        }
+
+        private boolean isNested() {
+            return this.nestedProperty != null;
+        }
+
+        private void addError(String format) {
+            if (this.isNested()) {
+                this.pointInfo.getStatusBuilder().addError(String.format(format, this.nestedFieldName, POINTS));
+            } else {
+                this.pointInfo.getStatusBuilder().addError(String.format(format, this.pointInfo.getXFieldName(), this.pointInfo.getYFieldName()));
+            }
+        }
+    }
+
+    private static class ConversionRequest {
+        private final String reference;
+        private final List<ConversionUnit> units = new ArrayList<>();
+        private int pointCount;
+
+        private ConversionRequest(String reference) {
+            this.reference = reference;
+        }
+
+        private void add(ConversionUnit unit) {
+            this.units.add(unit);
+            this.pointCount += unit.points.size();
+        }
+
+        private ConvertPointsRequest toConvertPointsRequest() {
+            List<Point> points = new ArrayList<>(this.pointCount);
+            for (ConversionUnit unit : this.units) {
+                points.addAll(unit.points);
+            }
+            return new ConvertPointsRequest(this.reference, TO_CRS, points);
+        }
+    }
 }
@@ -15,9 +15,17 @@
 package org.opengroup.osdu.storage.conversion;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import org.apache.http.HttpStatus;
 import org.opengroup.osdu.core.common.crs.dates.DatesConversionImpl;
 import org.opengroup.osdu.core.common.logging.JaxRsDpsLog;
@@ -25,7 +33,9 @@ import org.opengroup.osdu.core.common.model.storage.ConversionStatus;
 import org.opengroup.osdu.core.common.model.crs.ConversionRecord;
 import org.opengroup.osdu.core.common.model.crs.ConvertStatus;
 import org.opengroup.osdu.core.common.model.crs.RecordsAndStatuses;
+import org.opengroup.osdu.storage.util.BoundedExecutors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.opengroup.osdu.core.common.crs.UnitConversionImpl;
 
@@ -44,11 +54,31 @@ public class DpsConversionService {
     @Autowired
     private JaxRsDpsLog logger;
 
+    @Value("${conversion.parallelism:4}")
+    private int parallelism;
+
+    @Value("${conversion.parallel.threshold:25}")
+    private int parallelThreshold;
+
     private UnitConversionImpl unitConversionService = new UnitConversionImpl();
     private DatesConversionImpl datesConversionService = new DatesConversionImpl();
 
+    private ForkJoinPool conversionPool;
+
     private static final String CONVERSION_NO_META_BLOCK = "No Meta Block in This Record.";
 
+    @PostConstruct
+    void init() {
+        if (this.parallelism > 0) {
+            this.conversionPool = new ForkJoinPool(this.parallelism);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        BoundedExecutors.shutdown(this.conversionPool, 10);
+    }
+
     public RecordsAndStatuses doConversion(List<JsonObject> originalRecords) {
         List<ConversionStatus.ConversionStatusBuilder> conversionStatuses = new ArrayList<>();
         List<ConversionRecord> recordsWithoutMetaBlock = new ArrayList<>();
@@ -61,12 +91,12 @@ public class DpsConversionService {
             List<JsonObject> crsConvertedRecords = crsConversionResult.getRecords();
             List<ConversionStatus> crsConversionStatuses = crsConversionResult.getConversionStatuses();
 
+            Map<String, ConversionStatus> conversionStatusesById = this.indexConversionStatuses(crsConversionStatuses);
             List<ConversionRecord> conversionRecords = new ArrayList<>();
             for (int i = 0; i < crsConvertedRecords.size(); i++) {
                 ConversionRecord conversionRecord = new ConversionRecord();
                 conversionRecord.setRecordJsonObject(crsConvertedRecords.get(i));
-                ConversionStatus conversionStatus = this.getRecordConversionStatus(crsConversionStatuses,
-                        this.getRecordId(crsConvertedRecords.get(i)));
+                ConversionStatus conversionStatus = conversionStatusesById.get(this.getRecordId(crsConvertedRecords.get(i)));
                 if (conversionStatus != null) {
                     conversionRecord.setConversionMessages(conversionStatus.getErrors());
                     conversionRecord.setConvertStatus(ConvertStatus.valueOf(conversionStatus.getStatus()));
@@ -74,8 +104,7 @@ public class DpsConversionService {
                 conversionRecords.add(conversionRecord);
             }
 
-            this.unitConversionService.convertUnitsToSI(conversionRecords);
-            this.datesConversionService.convertDatesToISO(conversionRecords);
+            this.convertUnitsAndDates(conversionRecords);
             allRecords.addAll(conversionRecords);
         }
         this.checkMismatchAndLogMissing(originalRecords, allRecords);
@@ -83,6 +112,19 @@ public class DpsConversionService {
         return this.MakeResponseStatus(allRecords);
     }
 
+    /**
+     * Unit and date conversion is CPU bound and independent per record, so batches above the threshold are split
+     * across the fork-join pool. Each task uses its own converter instances.
+     */
+    private void convertUnitsAndDates(List<ConversionRecord> conversionRecords) {
+        if (this.conversionPool == null || this.parallelThreshold <= 0 || conversionRecords.size() <= this.parallelThreshold) {
+            this.unitConversionService.convertUnitsToSI(conversionRecords);
+            this.datesConversionService.convertDatesToISO(conversionRecords);
+            return;
+        }
+        this.conversionPool.invoke(new UnitAndDateConversionTask(conversionRecords, this.parallelThreshold));
+    }
+
     private List<JsonObject> classifyRecords(List<JsonObject> originalRecords, List<ConversionStatus.ConversionStatusBuilder> conversionStatuses, List<ConversionRecord> recordsWithoutMetaBlock) {
         List<JsonObject> recordsWithMetaBlock = new ArrayList<>();
         for (int i = 0; i < originalRecords.size(); i++) {
@@ -121,14 +163,12 @@ public class DpsConversionService {
         return recordId.getAsString();
     }
 
-    ConversionStatus getRecordConversionStatus(List<ConversionStatus> conversionStatuses, String recordId) {
-        for (int i = 0; i < conversionStatuses.size(); i++) {
-            ConversionStatus conversionStatus = conversionStatuses.get(i);
-            if (conversionStatus.getId().equals(recordId)) {
-                return conversionStatus;
-            }
+    Map<String, ConversionStatus> indexConversionStatuses(List<ConversionStatus> conversionStatuses) {
+        Map<String, ConversionStatus> conversionStatusesById = new HashMap<>();
+        for (ConversionStatus conversionStatus : conversionStatuses) {
+            conversionStatusesById.putIfAbsent(conversionStatus.getId(), conversionStatus);
         }
-        return null;
+        return conversionStatusesById;
     }
 
     private RecordsAndStatuses MakeResponseStatus(List<ConversionRecord> conversionRecords) {
@@ -154,8 +194,8 @@ public class DpsConversionService {
             return;
         }
 
-        List<String> convertedIds = convertedRecords.stream()
-                .map(ConversionRecord::getRecordId).collect(Collectors.toList());
+        Set<String> convertedIds = convertedRecords.stream()
+                .map(ConversionRecord::getRecordId).collect(Collectors.toSet());
 
         for (JsonObject originalRecord : originalRecords) {
             String originalId = this.getRecordId(originalRecord);
@@ -164,4 +204,28 @@ public class DpsConversionService {
             }
         }
     }
+
+    private static class UnitAndDateConversionTask extends RecursiveAction {
+        private final List<ConversionRecord> conversionRecords;
+        private final int threshold;
+
+        private UnitAndDateConversionTask(List<ConversionRecord> conversionRecords, int threshold) {
+            this.conversionRecords = conversionRecords;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            int size = this.conversionRecords.size();
+            if (size <= this.threshold) {
+                List<ConversionRecord> records = new ArrayList<>(this.conversionRecords);
+                new UnitConversionImpl().convertUnitsToSI(records);
+                new DatesConversionImpl().convertDatesToISO(records);
+                return;
+            }
+            int middle = size / 2;
+            invokeAll(new UnitAndDateConversionTask(this.conversionRecords.subList(0, middle), this.threshold),
+                    new UnitAndDateConversionTask(this.conversionRecords.subList(middle, size), this.threshold));
+        }
+    }
 }
@@ -0,0 +1,346 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.opengroup.osdu.storage.messagebus;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.opengroup.osdu.core.common.logging.JaxRsDpsLog;
+import org.opengroup.osdu.core.common.model.http.DpsHeaders;
+import org.opengroup.osdu.core.common.model.storage.PubSubInfo;
+import org.opengroup.osdu.core.common.util.IServiceAccountJwtClient;
+import org.opengroup.osdu.storage.provider.interfaces.IMessageBus;
+import org.opengroup.osdu.storage.util.BoundedExecutors;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+/**
+ * Buffers notifications per partition and publishes them through the provider's message bus in the background,
+ * once a partition has {@code batchSize} messages pending or the linger time elapses. Only the partition of the
+ * caller is kept with a queued message, so the messages of all writes to a partition are coalesced; they are
+ * published with a service account token resolved at publish time. When the buffer is full, callers wait for
+ * queued messages to be handed to the message bus, so notifications of a partition keep their order.
+ * If an outbox path is configured, batches that keep failing and messages still pending at shutdown are
+ * written there and replayed on the next start; otherwise they are only logged.
+ */
+@Primary
+@Component
+@ConditionalOnProperty(value = "messagebus.async.enabled", havingValue = "true", matchIfMissing = false)
+public class CoalescingMessageBus implements IMessageBus, SmartInitializingSingleton {
+
+    private static final long MAX_BACKOFF_MILLIS = 30000;
+
+    @Value("${messagebus.async.batch.size:100}")
+    private int batchSize;
+
+    @Value("${messagebus.async.linger.ms:200}")
+    private long lingerMillis;
+
+    @Value("${messagebus.async.queue.capacity:50000}")
+    private int queueCapacity;
+
+    @Value("${messagebus.async.thread.count:4}")
+    private int threadCount;
+
+    @Value("${messagebus.async.max.attempts:5}")
+    private int maxAttempts;
+
+    @Value("${messagebus.async.retry.backoff.ms:200}")
+    private long retryBackoffMillis;
+
+    @Value("${messagebus.async.outbox.path:}")
+    private String outboxPath;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private IServiceAccountJwtClient jwtClient;
+
+    @Autowired
+    private JaxRsDpsLog logger;
+
+    private final ConcurrentMap<String, PartitionQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final Object capacityLock = new Object();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder publishCalls = new LongAdder();
+    private final LongAdder publishNanos = new LongAdder();
+
+    private IMessageBus delegate;
+    private MessageOutbox outbox;
+    private ScheduledExecutorService scheduler;
+    private ExecutorService publisher;
+    private volatile boolean closed;
+
+    @PostConstruct
+    void init() {
+        if (!Strings.isNullOrEmpty(this.outboxPath)) {
+            this.outbox = new MessageOutbox(Paths.get(this.outboxPath));
+        }
+        this.publisher = BoundedExecutors.newFixedPool("storage-message-publish", Math.max(1, this.threadCount));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("storage-message-linger-%d").setDaemon(true).build());
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (IMessageBus messageBus : this.applicationContext.getBeansOfType(IMessageBus.class).values()) {
+            if (messageBus != this) {
+                this.delegate = messageBus;
+                break;
+            }
+        }
+        if (this.delegate == null) {
+            throw new IllegalStateException("No message bus found to publish to");
+        }
+
+        this.replayOutbox();
+        this.flushAll(true);
+        this.scheduler.scheduleWithFixedDelay(() -> this.flushAll(true), this.lingerMillis, this.lingerMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        this.closed = true;
+        this.scheduler.shutdownNow();
+        BoundedExecutors.shutdown(this.publisher, 30);
+
+        for (PartitionQueue queue : this.queues.values()) {
+            List<PubSubInfo> pending = new ArrayList<>();
+            queue.messages.drainTo(pending);
+            this.released(pending.size());
+            for (List<PubSubInfo> batch : Lists.partition(pending, Math.max(1, this.batchSize))) {
+                if (this.outbox != null) {
+                    this.saveToOutbox(queue.partitionId, batch, null);
+                } else {
+                    this.publishBatch(queue.partitionId, batch);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void publishMessage(DpsHeaders headers, PubSubInfo... messages) {
+        if (messages == null || messages.length == 0) {
+            return;
+        }
+        if (this.closed) {
+            this.delegate.publishMessage(headers, messages);
+            return;
+        }
+        this.enqueue(Strings.nullToEmpty(headers.getPartitionId()), Arrays.asList(messages));
+    }
+
+    public int getQueueDepth() {
+        return this.queueDepth.get();
+    }
+
+    public long getPublishedCount() {
+        return this.published.sum();
+    }
+
+    public long getFailedCount() {
+        return this.failed.sum();
+    }
+
+    public double getAveragePublishLatencyMillis() {
+        long calls = this.publishCalls.sum();
+        return calls == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(this.publishNanos.sum()) / 1000.0 / calls;
+    }
+
+    private void enqueue(String partitionId, List<PubSubInfo> messages) {
+        this.awaitCapacity(messages.size());
+        if (this.closed) {
+            this.delegate.publishMessage(this.getServiceHeaders(partitionId), messages.toArray(new PubSubInfo[0]));
+            return;
+        }
+
+        PartitionQueue queue = this.queues.computeIfAbsent(partitionId, PartitionQueue::new);
+        queue.messages.addAll(messages);
+        this.queueDepth.addAndGet(messages.size());
+
+        if (queue.messages.size() >= this.batchSize) {
+            this.scheduleFlush(queue, false);
+        }
+    }
+
+    /**
+     * Blocks while the buffer has no room for {@code count} more messages. Publishing them directly instead would
+     * overtake the queued notifications of the same records. A request larger than the whole buffer only waits
+     * for the buffer to be empty.
+     */
+    private void awaitCapacity(int count) {
+        if (this.queueDepth.get() + count <= this.queueCapacity) {
+            return;
+        }
+        synchronized (this.capacityLock) {
+            while (!this.closed && this.queueDepth.get() > 0 && this.queueDepth.get() + count > this.queueCapacity) {
+                this.flushAll(true);
+                try {
+                    this.capacityLock.wait(Math.max(1, this.lingerMillis));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void released(int count) {
+        this.queueDepth.addAndGet(-count);
+        synchronized (this.capacityLock) {
+            this.capacityLock.notifyAll();
+        }
+    }
+
+    private void flushAll(boolean force) {
+        this.queues.values().forEach(queue -> {
+            if (!queue.messages.isEmpty()) {
+                this.scheduleFlush(queue, force);
+            }
+        });
+    }
+
+    private void scheduleFlush(PartitionQueue queue, boolean force) {
+        if (!queue.flushing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            this.publisher.execute(() -> this.flush(queue, force));
+        } catch (RejectedExecutionException e) {
+            queue.flushing.set(false);
+        }
+    }
+
+    private void flush(PartitionQueue queue, boolean force) {
+        try {
+            while (queue.messages.size() >= this.batchSize || (force && !queue.messages.isEmpty())) {
+                List<PubSubInfo> batch = new ArrayList<>(this.batchSize);
+                queue.messages.drainTo(batch, Math.max(1, this.batchSize));
+                this.publishBatch(queue.partitionId, batch);
+                this.released(batch.size());
+            }
+        } finally {
+            queue.flushing.set(false);
+        }
+    }
+
+    private void publishBatch(String partitionId, List<PubSubInfo> batch) {
+        PubSubInfo[] messages = batch.toArray(new PubSubInfo[0]);
+
+        for (int attempt = 1; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                this.delegate.publishMessage(this.getServiceHeaders(partitionId), messages);
+                this.publishNanos.add(System.nanoTime() - start);
+                this.publishCalls.increment();
+                this.published.add(messages.length);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= this.maxAttempts) {
+                    this.saveToOutbox(partitionId, batch, e);
+                    return;
+                }
+                try {
+                    Thread.sleep(Math.min(MAX_BACKOFF_MILLIS, this.retryBackoffMillis << (attempt - 1)));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    this.saveToOutbox(partitionId, batch, e);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void saveToOutbox(String partitionId, List<PubSubInfo> batch, Exception cause) {
+        if (cause != null) {
+            this.failed.add(batch.size());
+        }
+        if (this.outbox != null) {
+            try {
+                this.outbox.append(Collections.singletonList(new MessageOutbox.Entry(
+                        Collections.singletonMap(DpsHeaders.DATA_PARTITION_ID, partitionId), new ArrayList<>(batch))));
+                return;
+            } catch (IOException e) {
+                this.logger.error("Could not write notifications to the outbox", e);
+            }
+        }
+        this.logger.error(String.format("Dropping %d record change notifications of partition %s", batch.size(), partitionId), cause);
+    }
+
+    private void replayOutbox() {
+        if (this.outbox == null) {
+            return;
+        }
+        try {
+            for (MessageOutbox.Entry entry : this.outbox.drain()) {
+                String partitionId = entry.getHeaders() == null ? null : entry.getHeaders().get(DpsHeaders.DATA_PARTITION_ID);
+                PartitionQueue queue = this.queues.computeIfAbsent(Strings.nullToEmpty(partitionId), PartitionQueue::new);
+                queue.messages.addAll(entry.getMessages());
+                this.queueDepth.addAndGet(entry.getMessages().size());
+            }
+        } catch (IOException e) {
+            this.logger.error("Could not replay notifications from the outbox", e);
+        }
+    }
+
+    private DpsHeaders getServiceHeaders(String partitionId) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put(DpsHeaders.DATA_PARTITION_ID, partitionId);
+        headers.put(DpsHeaders.AUTHORIZATION, this.jwtClient.getIdToken(partitionId));
+        return DpsHeaders.createFromMap(headers);
+    }
+
+    private static class PartitionQueue {
+        private final String partitionId;
+        private final LinkedBlockingQueue<PubSubInfo> messages = new LinkedBlockingQueue<>();
+        private final AtomicBoolean flushing = new AtomicBoolean();
+
+        private PartitionQueue(String partitionId) {
+            this.partitionId = partitionId;
+        }
+    }
+}
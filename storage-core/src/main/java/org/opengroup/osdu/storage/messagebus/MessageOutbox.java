@@ -0,0 +1,93 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.opengroup.osdu.storage.messagebus;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.opengroup.osdu.core.common.model.storage.PubSubInfo;
+
+/**
+ * Local file holding notifications that could not be published, one JSON batch per line.
+ * Only the partition header is stored, never caller credentials.
+ * Entries are replayed and the file is removed when the service starts again.
+ */
+class MessageOutbox {
+
+    private final Path path;
+    private final Gson gson = new Gson();
+
+    MessageOutbox(Path path) {
+        this.path = path;
+    }
+
+    synchronized void append(List<Entry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Path parent = this.path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(this.path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Entry entry : entries) {
+                writer.write(this.gson.toJson(entry));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Returns the stored entries and removes the file. The file is first moved aside so entries appended
+     * while replaying are not lost.
+     */
+    synchronized List<Entry> drain() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(this.path)) {
+            return entries;
+        }
+        Path replaying = this.path.resolveSibling(this.path.getFileName() + ".replay");
+        Files.move(this.path, replaying, StandardCopyOption.REPLACE_EXISTING);
+        for (String line : Files.readAllLines(replaying, StandardCharsets.UTF_8)) {
+            if (!line.trim().isEmpty()) {
+                entries.add(this.gson.fromJson(line, Entry.class));
+            }
+        }
+        Files.delete(replaying);
+        return entries;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Entry {
+        private Map<String, String> headers;
+        private List<PubSubInfo> messages;
+    }
+}
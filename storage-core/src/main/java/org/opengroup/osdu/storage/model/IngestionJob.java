@@ -0,0 +1,157 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.opengroup.osdu.storage.response.IngestionJobStatus;
+
+/**
+ * Progress of an asynchronous ingestion job. Counters are updated concurrently by the chunks of the job; at most
+ * {@code maxErrors} record errors are kept for the report.
+ */
+public class IngestionJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id;
+    private final String partitionId;
+    private final int maxErrors;
+    private final long createTime = System.currentTimeMillis();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicLong droppedErrors = new AtomicLong();
+    private final List<IngestionJobStatus.RecordError> errors = new ArrayList<>();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile long startTime;
+    private volatile long endTime;
+    private volatile String failureReason;
+    private volatile String abortReason;
+
+    public IngestionJob(String id, String partitionId, int maxErrors) {
+        this.id = id;
+        this.partitionId = partitionId;
+        this.maxErrors = maxErrors;
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public String getPartitionId() {
+        return this.partitionId;
+    }
+
+    public Status getStatus() {
+        return this.status;
+    }
+
+    public long getEndTime() {
+        return this.endTime;
+    }
+
+    public boolean isFinished() {
+        return this.status == Status.COMPLETED || this.status == Status.FAILED;
+    }
+
+    public void start() {
+        this.startTime = System.currentTimeMillis();
+        this.status = Status.RUNNING;
+    }
+
+    public void complete() {
+        this.endTime = System.currentTimeMillis();
+        this.status = Status.COMPLETED;
+    }
+
+    public void fail(String reason) {
+        this.failureReason = reason;
+        this.endTime = System.currentTimeMillis();
+        this.status = Status.FAILED;
+    }
+
+    /**
+     * Stops the job from ingesting further chunks, it fails with the given reason once the running chunks are done.
+     */
+    public void abort(String reason) {
+        if (this.abortReason == null) {
+            this.abortReason = reason;
+        }
+    }
+
+    public boolean isAborted() {
+        return this.abortReason != null;
+    }
+
+    public String getAbortReason() {
+        return this.abortReason;
+    }
+
+    public void recordSubmitted() {
+        this.submitted.increment();
+    }
+
+    public void recordsCreated(int count) {
+        this.created.add(count);
+    }
+
+    public void recordsSkipped(int count) {
+        this.skipped.add(count);
+    }
+
+    public void recordFailed(long line, String recordId, int code, String reason) {
+        this.failed.increment();
+        synchronized (this.errors) {
+            if (this.errors.size() < this.maxErrors) {
+                this.errors.add(new IngestionJobStatus.RecordError(line, recordId, code, reason));
+                return;
+            }
+        }
+        this.droppedErrors.incrementAndGet();
+    }
+
+    public IngestionJobStatus toStatus() {
+        long processed = this.created.sum() + this.skipped.sum() + this.failed.sum();
+        long elapsed = (this.endTime > 0 ? this.endTime : System.currentTimeMillis()) - this.startTime;
+        List<IngestionJobStatus.RecordError> reportedErrors;
+        synchronized (this.errors) {
+            reportedErrors = new ArrayList<>(this.errors);
+        }
+        return IngestionJobStatus.builder()
+                .jobId(this.id)
+                .status(this.status.name())
+                .submittedRecordCount(this.submitted.sum())
+                .createdRecordCount(this.created.sum())
+                .skippedRecordCount(this.skipped.sum())
+                .failedRecordCount(this.failed.sum())
+                .recordsPerSecond(this.startTime > 0 && elapsed > 0 ? processed * 1000.0 / elapsed : 0.0)
+                .createTime(this.createTime)
+                .startTime(this.startTime > 0 ? this.startTime : null)
+                .endTime(this.endTime > 0 ? this.endTime : null)
+                .failureReason(this.failureReason)
+                .errors(reportedErrors)
+                .droppedErrorCount(this.droppedErrors.get())
+                .build();
+    }
+}
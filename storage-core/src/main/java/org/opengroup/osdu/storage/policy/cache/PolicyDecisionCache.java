@@ -0,0 +1,95 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.opengroup.osdu.storage.policy.cache;
+
+import com.google.common.hash.Hashing;
+import org.opengroup.osdu.core.common.cache.VmCache;
+import org.opengroup.osdu.core.common.model.entitlements.Acl;
+import org.opengroup.osdu.core.common.model.indexer.OperationType;
+import org.opengroup.osdu.core.common.model.legal.Legal;
+import org.opengroup.osdu.core.common.model.storage.RecordMetadata;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Named;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TreeSet;
+
+/**
+ * Storage policy decisions keyed by everything the decision depends on except the record id: partition, policy,
+ * user groups, kind, ACL, legal and operation. Cleared when the policy status of a partition changes.
+ */
+@Component
+public class PolicyDecisionCache extends VmCache<String, Boolean> {
+
+    private final boolean enabled;
+
+    public PolicyDecisionCache(final @Named("POLICY_DECISION_CACHE_TIMEOUT") int timeoutSeconds,
+                               final @Named("POLICY_DECISION_CACHE_SIZE") int maxSize) {
+        super(Math.max(timeoutSeconds, 1), maxSize);
+        this.enabled = timeoutSeconds > 0;
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Digest of the user groups, computed once per batch and reused in the key of every record.
+     */
+    public static String getGroupsDigest(Collection<String> groups) {
+        return sha256(String.join("\n", new TreeSet<>(groups)));
+    }
+
+    public static String getKey(String partitionId, String policyId, String groupsDigest, RecordMetadata recordMetadata,
+                                OperationType operation) {
+        StringBuilder key = new StringBuilder()
+                .append(partitionId).append('\n')
+                .append(policyId).append('\n')
+                .append(groupsDigest).append('\n')
+                .append(recordMetadata.getKind()).append('\n')
+                .append(operation).append('\n');
+
+        Acl acl = recordMetadata.getAcl();
+        if (acl != null) {
+            appendSorted(key, acl.getViewers());
+            appendSorted(key, acl.getOwners());
+        }
+        Legal legal = recordMetadata.getLegal();
+        if (legal != null) {
+            appendSorted(key, legal.getLegaltags());
+            appendSorted(key, legal.getOtherRelevantDataCountries());
+            key.append(legal.getStatus());
+        }
+        return sha256(key.toString());
+    }
+
+    private static void appendSorted(StringBuilder key, String[] values) {
+        appendSorted(key, values == null ? null : Arrays.asList(values));
+    }
+
+    private static void appendSorted(StringBuilder key, Collection<String> values) {
+        if (values != null) {
+            key.append(String.join(",", new TreeSet<>(values)));
+        }
+        key.append('\n');
+    }
+
+    private static String sha256(String value) {
+        return Hashing.sha256().hashString(value, StandardCharsets.UTF_8).toString();
+    }
+}
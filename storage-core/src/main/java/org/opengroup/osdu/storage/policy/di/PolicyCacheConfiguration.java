@@ -30,9 +30,27 @@ public class PolicyCacheConfiguration {
     @Value("${policy.cache.timeout:5}")
     private int cacheTimeOut;
 
+    @Value("${policy.decision.cache.timeout.seconds:30}")
+    private int decisionCacheTimeOut;
+
+    @Value("${policy.decision.cache.size:10000}")
+    private int decisionCacheSize;
+
     @Bean
     @Named("POLICY_CACHE_TIMEOUT")
     public int getPolicyCacheTimeout() {
         return cacheTimeOut;
     }
+
+    @Bean
+    @Named("POLICY_DECISION_CACHE_TIMEOUT")
+    public int getPolicyDecisionCacheTimeout() {
+        return decisionCacheTimeOut;
+    }
+
+    @Bean
+    @Named("POLICY_DECISION_CACHE_SIZE")
+    public int getPolicyDecisionCacheSize() {
+        return decisionCacheSize;
+    }
 }
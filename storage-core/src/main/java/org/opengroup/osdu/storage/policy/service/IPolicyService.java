@@ -19,9 +19,18 @@ import org.opengroup.osdu.core.common.model.policy.PolicyRequest;
 import org.opengroup.osdu.core.common.model.policy.PolicyResponse;
 import org.opengroup.osdu.core.common.model.storage.RecordMetadata;
 
+import java.util.AbstractMap;
+import java.util.List;
+
 public interface IPolicyService {
 
     PolicyResponse evaluatePolicy(PolicyRequest policy);
 
     boolean evaluateStorageDataAuthorizationPolicy(RecordMetadata recordMetadata, OperationType operationType);
+
+    /**
+     * Evaluates the storage data authorization policy for each record and operation pair and returns the ids of
+     * the records the operation is not allowed on, in input order.
+     */
+    List<String> evaluateStorageDataAuthorizationPolicy(List<AbstractMap.SimpleEntry<RecordMetadata, OperationType>> recordOperations);
 }
@@ -21,10 +21,14 @@ import org.opengroup.osdu.core.common.logging.JaxRsDpsLog;
 import org.opengroup.osdu.core.common.model.policy.PolicyStatus;
 import org.opengroup.osdu.core.common.partition.PartitionInfo;
 import org.opengroup.osdu.storage.policy.cache.PolicyCache;
+import org.opengroup.osdu.storage.policy.cache.PolicyDecisionCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 @Component
 public class PartitionPolicyStatusService {
 
@@ -37,9 +41,14 @@ public class PartitionPolicyStatusService {
     @Autowired
     private PolicyCache cache;
 
+    @Autowired(required = false)
+    private PolicyDecisionCache decisionCache;
+
     @Autowired
     private JaxRsDpsLog logger;
 
+    private final ConcurrentMap<String, Boolean> observedStatus = new ConcurrentHashMap<>();
+
     public boolean policyEnabled(String dataPartitionId) {
         if (partitionService == null) return false;
 
@@ -57,10 +66,18 @@ public class PartitionPolicyStatusService {
         }
 
         this.cache.put(cacheKey, policyStatus);
+        this.clearDecisionsOnChange(dataPartitionId, policyStatus.isEnabled());
 
         return policyStatus.isEnabled();
     }
 
+    private void clearDecisionsOnChange(String dataPartitionId, boolean enabled) {
+        Boolean previous = this.observedStatus.put(dataPartitionId, enabled);
+        if (this.decisionCache != null && previous != null && previous != enabled) {
+            this.decisionCache.clearAll();
+        }
+    }
+
     private boolean getPolicyStatus(PartitionInfo partitionInfo) {
         final Gson gson = new Gson();
         JsonElement element = gson.toJsonTree(partitionInfo.getProperties());
@@ -15,7 +15,8 @@
 package org.opengroup.osdu.storage.policy.service;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonParser;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
 import org.apache.http.HttpStatus;
 import org.opengroup.osdu.core.common.model.entitlements.GroupInfo;
 import org.opengroup.osdu.core.common.model.http.AppException;
@@ -27,14 +28,28 @@ import org.opengroup.osdu.core.common.model.storage.Record;
 import org.opengroup.osdu.core.common.model.storage.RecordMetadata;
 import org.opengroup.osdu.core.common.policy.IPolicyFactory;
 import org.opengroup.osdu.core.common.policy.IPolicyProvider;
+import org.opengroup.osdu.storage.policy.cache.PolicyDecisionCache;
 import org.opengroup.osdu.storage.policy.di.PolicyServiceConfiguration;
 import org.opengroup.osdu.storage.policy.model.StoragePolicy;
 import org.opengroup.osdu.storage.service.IEntitlementsExtensionService;
+import org.opengroup.osdu.storage.util.BoundedExecutors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 @Service
@@ -53,6 +68,28 @@ public class PolicyServiceImpl implements IPolicyService {
     @Autowired
     private IEntitlementsExtensionService entitlementsService;
 
+    @Autowired(required = false)
+    private PolicyDecisionCache decisionCache;
+
+    @Value("${policy.evaluation.thread.count:8}")
+    private int evaluationThreadCount;
+
+    private final Gson gson = new Gson();
+
+    private ExecutorService evaluationExecutor;
+
+    @PostConstruct
+    void init() {
+        if (this.evaluationThreadCount > 0) {
+            this.evaluationExecutor = BoundedExecutors.newFixedPool("storage-policy-evaluation", this.evaluationThreadCount);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        BoundedExecutors.shutdown(this.evaluationExecutor, 10);
+    }
+
     @Override
     public PolicyResponse evaluatePolicy(PolicyRequest policy) {
 
@@ -65,25 +102,123 @@ public class PolicyServiceImpl implements IPolicyService {
     }
 
     public boolean evaluateStorageDataAuthorizationPolicy(RecordMetadata recordMetadata, OperationType operationType) {
-        PolicyResponse policyResponse = this.evaluatePolicy(this.getStoragePolicy(recordMetadata, operationType));
-        return policyResponse.getResult().isAllow();
+        return this.evaluateStorageDataAuthorizationPolicy(
+                Collections.singletonList(new AbstractMap.SimpleEntry<>(recordMetadata, operationType))).isEmpty();
+    }
+
+    /**
+     * Records with the same decision inputs are evaluated once, and decisions are reused from the decision cache
+     * when available. The policy service takes a single input per request, so the remaining evaluations run
+     * concurrently. Groups are fetched once for the whole batch.
+     */
+    @Override
+    public List<String> evaluateStorageDataAuthorizationPolicy(List<AbstractMap.SimpleEntry<RecordMetadata, OperationType>> recordOperations) {
+        List<String> deniedRecordIds = new ArrayList<>();
+        if (recordOperations.isEmpty()) {
+            return deniedRecordIds;
+        }
+
+        List<String> groupEmails = this.getGroups();
+        JsonArray groups = this.gson.toJsonTree(groupEmails).getAsJsonArray();
+        boolean useCache = this.decisionCache != null && this.decisionCache.isEnabled();
+        String groupsDigest = useCache ? PolicyDecisionCache.getGroupsDigest(groupEmails) : null;
+
+        List<String> keys = new ArrayList<>(recordOperations.size());
+        Map<String, Boolean> decisions = new HashMap<>();
+        Map<String, PolicyRequest> pending = new LinkedHashMap<>();
+        for (int i = 0; i < recordOperations.size(); i++) {
+            RecordMetadata recordMetadata = recordOperations.get(i).getKey();
+            OperationType operation = recordOperations.get(i).getValue();
+            String key = useCache
+                    ? PolicyDecisionCache.getKey(this.headers.getPartitionId(), this.policyServiceConfiguration.getPolicyId(),
+                            groupsDigest, recordMetadata, operation)
+                    : String.valueOf(i);
+            keys.add(key);
+            if (decisions.containsKey(key) || pending.containsKey(key)) {
+                continue;
+            }
+
+            Boolean cachedDecision = useCache ? this.decisionCache.get(key) : null;
+            if (cachedDecision != null) {
+                decisions.put(key, cachedDecision);
+            } else {
+                pending.put(key, this.getStoragePolicy(recordMetadata, operation, groups));
+            }
+        }
+
+        Map<String, Boolean> evaluated = this.evaluate(pending);
+        if (useCache) {
+            evaluated.forEach(this.decisionCache::put);
+        }
+        decisions.putAll(evaluated);
+
+        for (int i = 0; i < recordOperations.size(); i++) {
+            if (!decisions.get(keys.get(i))) {
+                deniedRecordIds.add(recordOperations.get(i).getKey().getId());
+            }
+        }
+        return deniedRecordIds;
+    }
+
+    private Map<String, Boolean> evaluate(Map<String, PolicyRequest> policies) {
+        Map<String, Boolean> decisions = new HashMap<>();
+        if (this.evaluationExecutor == null || policies.size() <= 1) {
+            policies.forEach((key, policy) -> decisions.put(key, this.evaluatePolicy(policy).getResult().isAllow()));
+            return decisions;
+        }
+
+        List<String> keys = new ArrayList<>(policies.keySet());
+        List<Future<PolicyResponse>> responses = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            PolicyRequest policy = policies.get(key);
+            responses.add(this.evaluationExecutor.submit(BoundedExecutors.withRequestContext(() -> this.evaluatePolicy(policy))));
+        }
+        for (int i = 0; i < responses.size(); i++) {
+            decisions.put(keys.get(i), this.await(responses, i).getResult().isAllow());
+        }
+        return decisions;
+    }
+
+    private PolicyResponse await(List<Future<PolicyResponse>> responses, int index) {
+        try {
+            return responses.get(index).get();
+        } catch (ExecutionException e) {
+            this.cancelRemaining(responses, index);
+            if (e.getCause() instanceof AppException) {
+                throw (AppException) e.getCause();
+            }
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, "Policy service unavailable", "Error making request to Policy service", e);
+        } catch (InterruptedException e) {
+            this.cancelRemaining(responses, index);
+            Thread.currentThread().interrupt();
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, "Policy service unavailable", "Error making request to Policy service", e);
+        }
+    }
+
+    private void cancelRemaining(List<Future<PolicyResponse>> responses, int index) {
+        for (int i = index + 1; i < responses.size(); i++) {
+            responses.get(i).cancel(true);
+        }
     }
 
-    private PolicyRequest getStoragePolicy(RecordMetadata recordMetadata, OperationType operation) {
+    /**
+     * Builds the same input tree as serializing a {@link StoragePolicy}, without the string round trip.
+     */
+    private PolicyRequest getStoragePolicy(RecordMetadata recordMetadata, OperationType operation, JsonArray groups) {
         Record record = new Record();
         record.setId(recordMetadata.getId());
         record.setKind(recordMetadata.getKind());
         record.setAcl(recordMetadata.getAcl());
         record.setLegal(recordMetadata.getLegal());
 
-        StoragePolicy storagePolicy = new StoragePolicy();
-        storagePolicy.setOperation(operation);
-        storagePolicy.setGroups(this.getGroups());
-        storagePolicy.setRecord(record);
+        JsonObject input = new JsonObject();
+        input.add("operation", this.gson.toJsonTree(operation));
+        input.add("groups", groups);
+        input.add("record", this.gson.toJsonTree(record));
 
         PolicyRequest policy = new PolicyRequest();
         policy.setPolicyId(this.policyServiceConfiguration.getPolicyId());
-        policy.setInput(new JsonParser().parse(new Gson().toJson(storagePolicy)).getAsJsonObject());
+        policy.setInput(input);
 
         return policy;
     }
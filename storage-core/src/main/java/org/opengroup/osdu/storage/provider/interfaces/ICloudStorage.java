@@ -14,13 +14,17 @@
 
 package org.opengroup.osdu.storage.provider.interfaces;
 
+import java.util.AbstractMap;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang3.NotImplementedException;
+import org.apache.http.HttpStatus;
 
 import org.opengroup.osdu.core.common.model.entitlements.Acl;
+import org.opengroup.osdu.core.common.model.http.AppException;
 import org.opengroup.osdu.core.common.model.storage.RecordData;
 import org.opengroup.osdu.core.common.model.storage.RecordMetadata;
 import org.opengroup.osdu.core.common.model.storage.RecordProcessing;
@@ -54,5 +58,32 @@ public interface ICloudStorage {
 
     Map<String, String> read(Map<String, String> objects);
 
+    /**
+     * Reads several versions of several records in one call. The result is keyed by {@link #versionKey(String, Long)}
+     * and versions that do not exist are mapped to null. Providers able to batch blob reads should override this,
+     * the default implementation reads one version at a time.
+     */
+    default Map<String, String> readVersions(List<AbstractMap.SimpleEntry<RecordMetadata, Long>> recordVersions) {
+        Map<String, String> result = new HashMap<>();
+        for (AbstractMap.SimpleEntry<RecordMetadata, Long> recordVersion : recordVersions) {
+            RecordMetadata record = recordVersion.getKey();
+            String blob;
+            try {
+                blob = this.read(record, recordVersion.getValue(), true);
+            } catch (AppException e) {
+                if (e.getError().getCode() != HttpStatus.SC_NOT_FOUND) {
+                    throw e;
+                }
+                blob = null;
+            }
+            result.put(versionKey(record.getId(), recordVersion.getValue()), blob);
+        }
+        return result;
+    }
+
+    static String versionKey(String recordId, Long version) {
+        return recordId + ":" + version;
+    }
+
     boolean isDuplicateRecord(TransferInfo transfer, Map<String, String> hashMap, Map.Entry<RecordMetadata, RecordData> kv);
 }
\ No newline at end of file
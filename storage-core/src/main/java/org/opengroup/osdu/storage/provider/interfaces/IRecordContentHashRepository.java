@@ -0,0 +1,32 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.opengroup.osdu.storage.provider.interfaces;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.opengroup.osdu.storage.model.RecordContentHash;
+
+/**
+ * Optional index of the content hash of the latest version of each record, written when records are
+ * persisted. When a provider supplies it, duplicate detection does not need to read existing blobs back.
+ */
+public interface IRecordContentHashRepository {
+
+    Map<String, RecordContentHash> get(Collection<String> ids);
+
+    void put(Map<String, RecordContentHash> hashes);
+}
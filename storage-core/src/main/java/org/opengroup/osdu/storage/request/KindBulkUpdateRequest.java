@@ -0,0 +1,46 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.request;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+
+import lombok.Data;
+import org.opengroup.osdu.core.common.model.storage.PatchOperation;
+import org.opengroup.osdu.core.common.model.storage.validation.ValidKind;
+
+@Data
+public class KindBulkUpdateRequest {
+
+    @ValidKind
+    private String kind;
+
+    // only records carrying all of these tags are patched
+    private Map<String, String> tags;
+
+    // only records carrying at least one of these legal tags are patched
+    private Set<String> legalTags;
+
+    @Valid
+    @NotEmpty
+    private List<PatchOperation> ops;
+
+    // cursor returned by the previous call when the kind has more records to patch
+    private String cursor;
+}
@@ -0,0 +1,69 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.response;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+public class IngestionJobStatus {
+
+    private String jobId;
+
+    private String status;
+
+    private Long submittedRecordCount;
+
+    private Long createdRecordCount;
+
+    private Long skippedRecordCount;
+
+    private Long failedRecordCount;
+
+    private Double recordsPerSecond;
+
+    private Long createTime;
+
+    private Long startTime;
+
+    private Long endTime;
+
+    private String failureReason;
+
+    private List<RecordError> errors;
+
+    // errors beyond the reported ones are only counted
+    private Long droppedErrorCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RecordError {
+
+        // line of the record in the submitted input, starting at 1
+        private Long line;
+
+        private String recordId;
+
+        private Integer code;
+
+        private String reason;
+    }
+}
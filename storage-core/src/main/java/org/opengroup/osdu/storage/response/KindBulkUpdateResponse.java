@@ -0,0 +1,52 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+public class KindBulkUpdateResponse {
+
+    // null once every record of the kind has been scanned
+    private String cursor;
+
+    private Integer scannedRecordCount;
+
+    private Integer recordCount;
+
+    private List<String> unAuthorizedRecordIds;
+
+    private List<String> lockedRecordIds;
+
+    private List<FailedChunk> failedChunks;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FailedChunk {
+
+        private List<String> recordIds;
+
+        private Integer code;
+
+        private String reason;
+    }
+}
@@ -0,0 +1,33 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.opengroup.osdu.core.common.model.storage.MultiRecordResponse;
+
+/**
+ * records:batch response that also lists the records whose blob could not be read in time, so clients can
+ * fetch them again instead of treating them as not found.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class MultiRecordBatchResponse extends MultiRecordResponse {
+
+    private List<String> retryRecords = new ArrayList<>();
+}
@@ -14,11 +14,17 @@
 
 package org.opengroup.osdu.storage.service;
 
+import java.io.IOException;
+
 import org.opengroup.osdu.core.common.model.storage.MultiRecordIds;
 import org.opengroup.osdu.core.common.model.storage.MultiRecordInfo;
 import org.opengroup.osdu.core.common.model.storage.MultiRecordRequest;
 import org.opengroup.osdu.core.common.model.storage.MultiRecordResponse;
 import org.opengroup.osdu.core.common.model.storage.DatastoreQueryResult;
+import org.opengroup.osdu.storage.request.MultiRecordVersionsRequest;
+import org.opengroup.osdu.storage.response.MultiRecordVersionsResponse;
+import org.opengroup.osdu.storage.util.MultiRecordResponseWriter;
+import org.opengroup.osdu.storage.util.RecordExportWriter;
 
 public interface BatchService {
 
@@ -26,7 +32,13 @@ public interface BatchService {
 
 	MultiRecordResponse fetchMultipleRecords(MultiRecordRequest recordIds);
 
+	void fetchMultipleRecords(MultiRecordRequest recordIds, MultiRecordResponseWriter writer) throws IOException;
+
+	MultiRecordVersionsResponse getMultipleRecordVersions(MultiRecordVersionsRequest request);
+
 	DatastoreQueryResult getAllKinds(String cursor, Integer limit);
 
 	DatastoreQueryResult getAllRecords(String cursorId, String kind, Integer limit);
+
+	void exportRecords(String cursor, String kind, Integer limit, RecordExportWriter writer) throws IOException;
 }
\ No newline at end of file
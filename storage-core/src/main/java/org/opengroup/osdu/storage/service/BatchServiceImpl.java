@@ -14,10 +14,18 @@
 
 package org.opengroup.osdu.storage.service;
 
+import java.io.IOException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.function.Consumer;
 
@@ -40,8 +48,17 @@ import org.opengroup.osdu.core.common.storage.PersistenceHelper;
 import com.google.common.base.Strings;
 import org.opengroup.osdu.storage.conversion.DpsConversionService;
 import org.opengroup.osdu.storage.provider.interfaces.ICloudStorage;
+import org.opengroup.osdu.storage.provider.interfaces.IQueryRepository;
 import org.opengroup.osdu.storage.provider.interfaces.IRecordsMetadataRepository;
+import org.opengroup.osdu.storage.request.MultiRecordVersionsRequest;
+import org.opengroup.osdu.storage.request.RecordVersionsQuery;
+import org.opengroup.osdu.storage.response.MultiRecordBatchResponse;
+import org.opengroup.osdu.storage.response.MultiRecordVersionsResponse;
+import org.opengroup.osdu.storage.util.MultiRecordResponseWriter;
+import org.opengroup.osdu.storage.util.RecordAssembler;
+import org.opengroup.osdu.storage.util.RecordExportWriter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 
 public abstract class BatchServiceImpl implements BatchService {
@@ -53,9 +70,6 @@ public abstract class BatchServiceImpl implements BatchService {
     @Autowired
     private IRecordsMetadataRepository recordRepository;
 
-    @Autowired
-    private ICloudStorage cloudStorage;
-
     @Autowired
     private StorageAuditLogger auditLogger;
 
@@ -74,6 +88,24 @@ public abstract class BatchServiceImpl implements BatchService {
     @Autowired
     private IEntitlementsAndCacheService entitlementsAndCacheService;
 
+    @Autowired
+    private BlobBatchReader blobBatchReader;
+
+    @Autowired
+    private IQueryRepository queryRepository;
+
+    @Autowired
+    private Gson gson;
+
+    @Value("${batch.stream.chunk.size:25}")
+    private int streamChunkSize;
+
+    @Value("${query.versions.max:1000}")
+    private int maxRecordVersions;
+
+    @Value("${query.export.max.records:10000}")
+    private int exportMaxRecords;
+
     @Override
     public MultiRecordInfo getMultipleRecords(MultiRecordIds ids) {
 
@@ -105,38 +137,27 @@ public abstract class BatchServiceImpl implements BatchService {
             return response;
         }
 
-        Map<String, String> recordsPreAclMap = this.cloudStorage.read(validRecords);
+        Map<String, String> recordsPreAclMap = this.blobBatchReader.read(validRecords, retryRecords);
+        retryRecords.forEach(validRecords::remove);
 
         this.logUnauthorizedGCSRecords(validRecords, recordsPreAclMap);
         Map<String, String> recordsMap = this.postCheckRecordsAcl(recordsPreAclMap, recordsMetadata);
-        this.auditLogger.readMultipleRecordsSuccess(validRecordObjects);
+        this.auditLogger.readMultipleRecordsSuccess(new ArrayList<>(validRecords.values()));
 
         validRecordObjects.clear();
 
         List<String> validAttributes = PersistenceHelper.getValidRecordAttributes(ids.getAttributes());
 
-        JsonParser jsonParser = new JsonParser();
-
         recordsMap.keySet().forEach(recordId -> {
             String recordData = recordsMap.get(recordId);
 
             if (Strings.isNullOrEmpty(recordData)) {
                 retryRecords.add(recordId);
             } else {
-                JsonElement jsonRecord = jsonParser.parse(recordData);
-
-                // Filter out data sub properties
-                if (!validAttributes.isEmpty()) {
-                    jsonRecord = PersistenceHelper.filterRecordDataFields(jsonRecord, validAttributes);
-                }
-
                 RecordMetadata recordMetadata = recordsMetadata.get(recordId);
-                JsonObject recordObject = PersistenceHelper.combineRecordMetaDataAndRecordDataIntoJsonObject(jsonRecord, recordMetadata, recordMetadata.getLatestVersion());
-
-                Gson gson = new Gson();
-                Record record = gson.fromJson(recordObject, Record.class);
+                String recordJson = RecordAssembler.assemble(recordData, recordMetadata, recordMetadata.getLatestVersion(), validAttributes);
 
-                recordObjects.add(record);
+                recordObjects.add(this.gson.fromJson(recordJson, Record.class));
             }
         });
 
@@ -150,29 +171,259 @@ public abstract class BatchServiceImpl implements BatchService {
 
     @Override
     public MultiRecordResponse fetchMultipleRecords(MultiRecordRequest ids) {
+        boolean isConversionNeeded = this.isConversionNeeded();
+
+        MultiRecordBatchResponse response = new MultiRecordBatchResponse();
+        Map<String, String> validRecords = new HashMap<>();
+        List<String> recordsNotFound = new ArrayList<>();
+        List<String> retryRecords = response.getRetryRecords();
+        List<ConversionStatus> conversionStatuses = new ArrayList<>();
+
+        List<String> recordIds = ids.getRecords();
+        Map<String, RecordMetadata> recordsMetadata = this.recordRepository.get(recordIds);
+        this.collectActiveRecords(recordIds, recordsMetadata, validRecords, recordsNotFound);
+
+        if (validRecords.isEmpty()) {
+            response.setRecords(new ArrayList<>());
+            response.setNotFound(recordsNotFound);
+            response.setConversionStatuses(conversionStatuses);
+            return response;
+        }
+
+        Map<String, String> recordsFromCloudStorage = this.readAuthorizedRecords(validRecords, recordsMetadata, retryRecords);
+        List<String> validRecordObjects = new ArrayList<>(validRecords.values());
+
+        this.auditLogger.readMultipleRecordsSuccess(validRecordObjects);
+
+        if (isConversionNeeded && !validRecords.isEmpty()) {
+            List<JsonObject> jsonObjectRecords = this.toJsonObjects(recordsFromCloudStorage, recordsMetadata, recordsNotFound);
+            RecordsAndStatuses recordsAndStatuses = this.conversionService.doConversion(jsonObjectRecords);
+            this.checkMismatchAndAddToNotFound(recordIds, recordsNotFound, retryRecords, this.getRecordIds(recordsAndStatuses.getRecords()));
+            response.setConversionStatuses(recordsAndStatuses.getConversionStatuses());
+            response.setRecords(this.convertFromJsonObjectListToStringList(recordsAndStatuses.getRecords()));
+            response.setNotFound(recordsNotFound);
+            return response;
+        }
+
+        Map<String, String> records = this.assembleRecords(recordsFromCloudStorage, recordsMetadata, recordsNotFound);
+        this.checkMismatchAndAddToNotFound(recordIds, recordsNotFound, retryRecords, records.keySet());
+        response.setConversionStatuses(conversionStatuses);
+        response.setRecords(new ArrayList<>(records.values()));
+        response.setNotFound(recordsNotFound);
+        this.auditLog(validRecordObjects, this.auditLogger::readMultipleRecordsWithOptionalConversionSuccess,
+                recordsNotFound, this.auditLogger::readMultipleRecordsWithOptionalConversionFail);
+        return response;
+    }
+
+    @Override
+    public void fetchMultipleRecords(MultiRecordRequest ids, MultiRecordResponseWriter writer) throws IOException {
+        boolean isConversionNeeded = this.isConversionNeeded();
+
+        Map<String, String> validRecords = new LinkedHashMap<>();
+        List<String> recordsNotFound = new ArrayList<>();
+        List<String> retryRecords = new ArrayList<>();
+        List<ConversionStatus> conversionStatuses = new ArrayList<>();
+
+        List<String> recordIds = ids.getRecords();
+        Map<String, RecordMetadata> recordsMetadata = this.recordRepository.get(recordIds);
+        this.collectActiveRecords(recordIds, recordsMetadata, validRecords, recordsNotFound);
+
+        List<String> validRecordObjects = new ArrayList<>();
+
+        writer.writeStart();
+        for (Map<String, String> chunk : this.partition(validRecords, this.streamChunkSize)) {
+            // the mismatch check compares against the chunk, so it must only see the chunk's own bookkeeping
+            List<String> chunkIds = new ArrayList<>(chunk.keySet());
+            List<String> chunkNotFound = new ArrayList<>();
+            List<String> chunkRetryRecords = new ArrayList<>();
+            Map<String, String> recordsFromCloudStorage = this.readAuthorizedRecords(chunk, recordsMetadata, chunkRetryRecords);
+            validRecordObjects.addAll(chunk.values());
+
+            if (isConversionNeeded) {
+                List<JsonObject> fetchedRecords = this.toJsonObjects(recordsFromCloudStorage, recordsMetadata, chunkNotFound);
+                if (!fetchedRecords.isEmpty()) {
+                    RecordsAndStatuses recordsAndStatuses = this.conversionService.doConversion(fetchedRecords);
+                    fetchedRecords = recordsAndStatuses.getRecords();
+                    conversionStatuses.addAll(recordsAndStatuses.getConversionStatuses());
+                }
+                this.checkMismatchAndAddToNotFound(chunkIds, chunkNotFound, chunkRetryRecords, this.getRecordIds(fetchedRecords));
+                for (JsonObject record : fetchedRecords) {
+                    writer.writeRecord(record.toString());
+                }
+            } else {
+                Map<String, String> records = this.assembleRecords(recordsFromCloudStorage, recordsMetadata, chunkNotFound);
+                this.checkMismatchAndAddToNotFound(chunkIds, chunkNotFound, chunkRetryRecords, records.keySet());
+                for (String record : records.values()) {
+                    writer.writeRecord(record);
+                }
+            }
+            writer.flush();
+            recordsNotFound.addAll(chunkNotFound);
+            retryRecords.addAll(chunkRetryRecords);
+        }
+        writer.writeEnd(recordsNotFound, retryRecords, conversionStatuses);
+
+        this.auditLogger.readMultipleRecordsSuccess(validRecordObjects);
+        this.auditLog(validRecordObjects, this.auditLogger::readMultipleRecordsWithOptionalConversionSuccess,
+                recordsNotFound, this.auditLogger::readMultipleRecordsWithOptionalConversionFail);
+    }
+
+    @Override
+    public MultiRecordVersionsResponse getMultipleRecordVersions(MultiRecordVersionsRequest request) {
+        List<String> recordIds = request.getRecords().stream().map(RecordVersionsQuery::getId).distinct().collect(Collectors.toList());
+        Map<String, RecordMetadata> recordsMetadata = this.recordRepository.get(recordIds);
+
+        MultiRecordVersionsResponse response = new MultiRecordVersionsResponse();
+        List<RecordMetadata> activeRecords = new ArrayList<>();
+        for (String recordId : recordIds) {
+            RecordMetadata recordMetadata = recordsMetadata.get(recordId);
+            if (recordMetadata == null || !recordMetadata.getStatus().equals(RecordState.active)) {
+                response.getNotFound().add(recordId);
+            } else {
+                activeRecords.add(recordMetadata);
+            }
+        }
+
+        Set<String> authorizedIds = this.entitlementsAndCacheService.hasValidAccess(activeRecords, this.headers).stream()
+                .map(RecordMetadata::getId).collect(Collectors.toSet());
+
+        // an id may be listed several times and a version repeated, each version is read and returned once
+        Map<String, AbstractMap.SimpleEntry<RecordMetadata, Long>> requestedVersions = new LinkedHashMap<>();
+        Set<String> notFound = new LinkedHashSet<>();
+        for (RecordVersionsQuery query : request.getRecords()) {
+            RecordMetadata recordMetadata = recordsMetadata.get(query.getId());
+            if (recordMetadata == null || !recordMetadata.getStatus().equals(RecordState.active)) {
+                continue;
+            }
+            if (!authorizedIds.contains(query.getId())) {
+                if (notFound.add(query.getId())) {
+                    this.logger.warning("User not in record ACL: " + query.getId());
+                }
+                continue;
+            }
+
+            Set<Long> existingVersions = this.getVersions(recordMetadata);
+            List<Long> versions = query.getVersions() == null || query.getVersions().isEmpty()
+                    ? new ArrayList<>(existingVersions) : query.getVersions();
+            for (Long version : versions) {
+                String key = ICloudStorage.versionKey(query.getId(), version);
+                if (existingVersions.contains(version)) {
+                    requestedVersions.putIfAbsent(key, new AbstractMap.SimpleEntry<>(recordMetadata, version));
+                } else {
+                    notFound.add(key);
+                }
+            }
+        }
+        response.getNotFound().addAll(notFound);
+        List<AbstractMap.SimpleEntry<RecordMetadata, Long>> recordVersions = new ArrayList<>(requestedVersions.values());
+
+        if (recordVersions.size() > this.maxRecordVersions) {
+            throw new AppException(HttpStatus.SC_BAD_REQUEST, "Too many record versions",
+                    String.format("Up to %d record versions can be fetched at once, %d were requested", this.maxRecordVersions, recordVersions.size()));
+        }
+
+        List<String> timedOutVersions = new ArrayList<>();
+        Map<String, String> blobs = this.blobBatchReader.readVersions(recordVersions, timedOutVersions);
+        response.getRetryRecords().addAll(timedOutVersions);
+
+        Set<String> skippedVersions = new HashSet<>(timedOutVersions);
+        List<String> validAttributes = PersistenceHelper.getValidRecordAttributes(request.getAttributes());
+        List<String> readRecordIds = new ArrayList<>();
+        for (AbstractMap.SimpleEntry<RecordMetadata, Long> recordVersion : recordVersions) {
+            RecordMetadata recordMetadata = recordVersion.getKey();
+            String key = ICloudStorage.versionKey(recordMetadata.getId(), recordVersion.getValue());
+            if (skippedVersions.contains(key)) {
+                continue;
+            }
+            String blob = blobs.get(key);
+            if (Strings.isNullOrEmpty(blob)) {
+                response.getNotFound().add(key);
+            } else {
+                response.getRecords().add(RecordAssembler.assemble(blob, recordMetadata, recordVersion.getValue(), validAttributes));
+                readRecordIds.add(key);
+            }
+        }
+
+        this.auditLog(readRecordIds, this.auditLogger::readSpecificVersionOfRecordSuccess,
+                response.getNotFound(), this.auditLogger::readSpecificVersionOfRecordFail);
+        return response;
+    }
+
+    @Override
+    public void exportRecords(String cursor, String kind, Integer limit, RecordExportWriter writer) throws IOException {
+        int maxRecords = Math.max(1, limit == null || limit <= 0 ? this.exportMaxRecords : Math.min(limit, this.exportMaxRecords));
+        List<String> retryRecords = new ArrayList<>();
+        int scanned = 0;
+        int recordCount = 0;
+        do {
+            int pageSize = Math.min(IQueryRepository.PAGE_SIZE, maxRecords - scanned);
+            DatastoreQueryResult page = this.queryRepository.getAllRecordIdsFromKind(kind, pageSize, cursor);
+            List<String> ids = page.getResults() == null ? Collections.emptyList() : page.getResults();
+            if (!ids.isEmpty()) {
+                recordCount += this.exportPage(ids, writer, retryRecords);
+            }
+            scanned += ids.size();
+            cursor = ids.isEmpty() ? null : page.getCursor();
+        } while (!Strings.isNullOrEmpty(cursor) && scanned < maxRecords);
+
+        writer.writeEnd(cursor, recordCount, retryRecords);
+    }
+
+    private int exportPage(List<String> ids, RecordExportWriter writer, List<String> retryRecords) throws IOException {
+        Map<String, RecordMetadata> recordsMetadata = this.recordRepository.get(ids);
+        Map<String, String> activeRecords = new LinkedHashMap<>();
+        this.collectActiveRecords(ids, recordsMetadata, activeRecords, new ArrayList<>());
+
+        // records the caller is not allowed to read are left out, timed out and empty blobs are reported for retry
+        Map<String, String> records = this.readAuthorizedRecords(activeRecords, recordsMetadata, retryRecords);
+        List<String> exportedRecords = new ArrayList<>();
+        for (String recordId : activeRecords.keySet()) {
+            if (!records.containsKey(recordId)) {
+                continue;
+            }
+            String recordData = records.get(recordId);
+            if (Strings.isNullOrEmpty(recordData)) {
+                retryRecords.add(recordId);
+                continue;
+            }
+            RecordMetadata recordMetadata = recordsMetadata.get(recordId);
+            writer.writeRecord(RecordAssembler.assemble(recordData, recordMetadata, recordMetadata.getLatestVersion(), null));
+            exportedRecords.add(recordId);
+        }
+        writer.flush();
+
+        this.auditLog(exportedRecords, this.auditLogger::readAllRecordsOfGivenKindSuccess, null, null);
+        return exportedRecords.size();
+    }
+
+    private Set<Long> getVersions(RecordMetadata recordMetadata) {
+        Set<Long> versions = new LinkedHashSet<>();
+        for (String versionPath : recordMetadata.getGcsVersionPaths()) {
+            String[] tokens = versionPath.split("/");
+            versions.add(Long.parseLong(tokens[tokens.length - 1]));
+        }
+        return versions;
+    }
+
+    private boolean isConversionNeeded() {
         String frameOfRef = this.headers.getHeaders().get(FRAME_OF_REF_HEADER);
         // TODO:
         // it appears FRAME_OF_REF_HEADER is required to even set isConversionNeeded to false
         // but this header is not recognized in client lib DpsHeaders and can't be set.
         // verify what should be the right behavior
-        boolean isConversionNeeded = true;
         if (frameOfRef == null || (frameOfRef.equalsIgnoreCase(NO_FRAME_OF_REFERENCE)) ||
                 //TODO: remove when converter service is available in all clouds
                 (Strings.isNullOrEmpty(crsConverterClientFactory.crsApi))) {
-            isConversionNeeded = false;
+            return false;
         } else if (!frameOfRef.equalsIgnoreCase(SI_FRAME_OF_REFERENCE)) {
             throw new AppException(HttpStatus.SC_BAD_REQUEST, "Frame of reference is not appropriately provided",
                     "please use customized header frame-of-reference and either 'none' or 'units=SI;crs=wgs84;elevation=msl;azimuth=true north;dates=utc' would be valid");
         }
+        return true;
+    }
 
-        MultiRecordResponse response = new MultiRecordResponse();
-        Map<String, String> validRecords = new HashMap<>();
-        List<String> recordsNotFound = new ArrayList<>();
-        List<ConversionStatus> conversionStatuses = new ArrayList<>();
-
-        List<String> recordIds = ids.getRecords();
-        Map<String, RecordMetadata> recordsMetadata = this.recordRepository.get(recordIds);
-
+    private void collectActiveRecords(List<String> recordIds, Map<String, RecordMetadata> recordsMetadata,
+                                      Map<String, String> validRecords, List<String> recordsNotFound) {
         for (String recordId : recordIds) {
             RecordMetadata recordMetadata = recordsMetadata.get(recordId);
             if (recordMetadata == null || !recordMetadata.getStatus().equals(RecordState.active)) {
@@ -181,21 +432,20 @@ public abstract class BatchServiceImpl implements BatchService {
             }
             validRecords.put(recordId, recordMetadata.getVersionPath(recordMetadata.getLatestVersion()));
         }
+    }
 
-        List<String> validRecordObjects = new ArrayList<>(validRecords.values());
-        if (validRecordObjects.isEmpty()) {
-            response.setRecords(validRecordObjects);
-            response.setNotFound(recordsNotFound);
-            response.setConversionStatuses(conversionStatuses);
-            return response;
-        }
-
-        Map<String, String> recordsPreAclMap = this.cloudStorage.read(validRecords);
+    private Map<String, String> readAuthorizedRecords(Map<String, String> validRecords, Map<String, RecordMetadata> recordsMetadata,
+                                                      List<String> retryRecords) {
+        List<String> timedOutRecords = new ArrayList<>();
+        Map<String, String> recordsPreAclMap = this.blobBatchReader.read(validRecords, timedOutRecords);
+        timedOutRecords.forEach(validRecords::remove);
+        retryRecords.addAll(timedOutRecords);
         this.logUnauthorizedGCSRecords(validRecords, recordsPreAclMap);
-        Map<String, String> recordsFromCloudStorage = this.postCheckRecordsAcl(recordsPreAclMap, recordsMetadata);
-
-        this.auditLogger.readMultipleRecordsSuccess(validRecordObjects);
+        return this.postCheckRecordsAcl(recordsPreAclMap, recordsMetadata);
+    }
 
+    private List<JsonObject> toJsonObjects(Map<String, String> recordsFromCloudStorage, Map<String, RecordMetadata> recordsMetadata,
+                                           List<String> recordsNotFound) {
         List<JsonObject> jsonObjectRecords = new ArrayList<>();
         JsonParser jsonParser = new JsonParser();
         recordsFromCloudStorage.keySet().forEach(recordId -> {
@@ -210,23 +460,37 @@ public abstract class BatchServiceImpl implements BatchService {
                 jsonObjectRecords.add(recordJsonObject);
             }
         });
+        return jsonObjectRecords;
+    }
 
-        if (isConversionNeeded && !validRecords.isEmpty()) {
-            RecordsAndStatuses recordsAndStatuses = this.conversionService.doConversion(jsonObjectRecords);
-            this.checkMismatchAndAddToNotFound(recordIds, recordsNotFound, recordsAndStatuses.getRecords());
-            response.setConversionStatuses(recordsAndStatuses.getConversionStatuses());
-            response.setRecords(this.convertFromJsonObjectListToStringList(recordsAndStatuses.getRecords()));
-            response.setNotFound(recordsNotFound);
-            return response;
-        }
+    private Map<String, String> assembleRecords(Map<String, String> recordsFromCloudStorage, Map<String, RecordMetadata> recordsMetadata,
+                                                List<String> recordsNotFound) {
+        Map<String, String> records = new LinkedHashMap<>();
+        recordsFromCloudStorage.forEach((recordId, recordData) -> {
+            if (Strings.isNullOrEmpty(recordData)) {
+                recordsNotFound.add(recordId);
+            } else {
+                RecordMetadata recordMetadata = recordsMetadata.get(recordId);
+                records.put(recordId, RecordAssembler.assemble(recordData, recordMetadata, recordMetadata.getLatestVersion(), null));
+            }
+        });
+        return records;
+    }
 
-        this.checkMismatchAndAddToNotFound(recordIds, recordsNotFound, jsonObjectRecords);
-        response.setConversionStatuses(conversionStatuses);
-        response.setRecords(this.convertFromJsonObjectListToStringList(jsonObjectRecords));
-        response.setNotFound(recordsNotFound);
-        this.auditLog(validRecordObjects, this.auditLogger::readMultipleRecordsWithOptionalConversionSuccess,
-                recordsNotFound, this.auditLogger::readMultipleRecordsWithOptionalConversionFail);
-        return response;
+    private List<Map<String, String>> partition(Map<String, String> records, int size) {
+        List<Map<String, String>> chunks = new ArrayList<>();
+        Map<String, String> current = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : records.entrySet()) {
+            current.put(entry.getKey(), entry.getValue());
+            if (current.size() >= size) {
+                chunks.add(current);
+                current = new LinkedHashMap<>();
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
     }
 
     private List<String> convertFromJsonObjectListToStringList(List<JsonObject> jsonObjectRecords) {
@@ -265,20 +529,21 @@ public abstract class BatchServiceImpl implements BatchService {
         }
     }
 
-    private void checkMismatchAndAddToNotFound(List<String> requestIds, List<String> notFoundIds, List<JsonObject> fetchedRecords) {
-        if ((notFoundIds.size() + fetchedRecords.size()) == requestIds.size()) {
-            return;
-        }
-
-        List<String> fetchedIds = fetchedRecords.stream().map(e -> this.getRecordId(e)).collect(Collectors.toList());
-
+    private void checkMismatchAndAddToNotFound(List<String> requestIds, List<String> notFoundIds, List<String> retryIds,
+                                               Collection<String> fetchedIds) {
+        Set<String> knownIds = new HashSet<>(notFoundIds);
+        knownIds.addAll(retryIds);
+        knownIds.addAll(fetchedIds);
         for (String requestId : requestIds) {
-            if (!notFoundIds.contains(requestId) && !fetchedIds.contains(requestId)) {
+            if (knownIds.add(requestId)) {
                 this.logger.warning("Missing record when fetch records, adding to not found: " + requestId);
                 notFoundIds.add(requestId);
             }
         }
-        return;
+    }
+
+    private Set<String> getRecordIds(List<JsonObject> records) {
+        return records.stream().map(this::getRecordId).collect(Collectors.toSet());
     }
 
     private String getRecordId(JsonObject record) {
@@ -0,0 +1,150 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.service;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.google.common.collect.Lists;
+import org.apache.http.HttpStatus;
+import org.opengroup.osdu.core.common.logging.JaxRsDpsLog;
+import org.opengroup.osdu.core.common.model.http.AppException;
+import org.opengroup.osdu.core.common.model.storage.RecordMetadata;
+import org.opengroup.osdu.storage.provider.interfaces.ICloudStorage;
+import org.opengroup.osdu.storage.util.BoundedExecutors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Splits a batch blob read into chunks and reads them concurrently on a dedicated bounded pool.
+ * Chunks that do not complete in time are cancelled and reported back to the caller instead of failing the batch.
+ */
+@Component
+public class BlobBatchReader {
+
+    @Value("${batch.read.chunk.size:25}")
+    private int chunkSize;
+
+    @Value("${batch.read.thread.count:16}")
+    private int threadCount;
+
+    @Value("${batch.read.chunk.timeout.ms:30000}")
+    private long chunkTimeoutMillis;
+
+    @Autowired
+    private ICloudStorage cloudStorage;
+
+    @Autowired
+    private JaxRsDpsLog logger;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        if (this.threadCount > 0) {
+            this.executor = BoundedExecutors.newFixedPool("storage-blob-read", this.threadCount);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        BoundedExecutors.shutdown(this.executor, 10);
+    }
+
+    /**
+     * Reads the given record id to blob path map. Ids of chunks that timed out are added to
+     * {@code timedOutRecords} and are absent from the returned map.
+     */
+    public Map<String, String> read(Map<String, String> objects, List<String> timedOutRecords) {
+        if (this.isInline(objects.size())) {
+            return this.cloudStorage.read(objects);
+        }
+        List<Map.Entry<String, String>> entries = new ArrayList<>(objects.entrySet());
+        return this.readInChunks(entries, Map.Entry::getKey, chunk -> {
+            Map<String, String> chunkObjects = new LinkedHashMap<>();
+            chunk.forEach(entry -> chunkObjects.put(entry.getKey(), entry.getValue()));
+            return this.cloudStorage.read(chunkObjects);
+        }, timedOutRecords);
+    }
+
+    /**
+     * Reads the given record versions, keyed as returned by {@link ICloudStorage#versionKey(String, Long)}.
+     * Keys of chunks that timed out are added to {@code timedOutRecords} and are absent from the returned map.
+     */
+    public Map<String, String> readVersions(List<SimpleEntry<RecordMetadata, Long>> recordVersions, List<String> timedOutRecords) {
+        if (this.isInline(recordVersions.size())) {
+            return this.cloudStorage.readVersions(recordVersions);
+        }
+        return this.readInChunks(recordVersions, entry -> ICloudStorage.versionKey(entry.getKey().getId(), entry.getValue()),
+                this.cloudStorage::readVersions, timedOutRecords);
+    }
+
+    private boolean isInline(int size) {
+        return this.executor == null || this.chunkSize <= 0 || size <= this.chunkSize;
+    }
+
+    private <T> Map<String, String> readInChunks(List<T> items, Function<T, String> keyOf,
+                                                 Function<List<T>, Map<String, String>> reader, List<String> timedOutRecords) {
+        List<List<T>> chunks = Lists.partition(items, this.chunkSize);
+        List<Future<Map<String, String>>> futures = new ArrayList<>(chunks.size());
+        for (List<T> chunk : chunks) {
+            futures.add(this.executor.submit(BoundedExecutors.withRequestContext(() -> reader.apply(chunk))));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.chunkTimeoutMillis);
+        Map<String, String> result = new HashMap<>(items.size());
+        for (int i = 0; i < futures.size(); i++) {
+            Future<Map<String, String>> future = futures.get(i);
+            try {
+                result.putAll(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                chunks.get(i).forEach(item -> timedOutRecords.add(keyOf.apply(item)));
+                this.logger.warning(String.format("Timed out reading %d records from cloud storage", chunks.get(i).size()));
+            } catch (ExecutionException e) {
+                this.cancelAll(futures);
+                if (e.getCause() instanceof AppException) {
+                    throw (AppException) e.getCause();
+                }
+                throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, "Error reading records",
+                        "An unexpected error occurred while reading records from cloud storage", e.getCause());
+            } catch (InterruptedException e) {
+                this.cancelAll(futures);
+                Thread.currentThread().interrupt();
+                throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, "Error reading records",
+                        "Interrupted while reading records from cloud storage", e);
+            }
+        }
+        return result;
+    }
+
+    private void cancelAll(List<Future<Map<String, String>>> futures) {
+        futures.forEach(future -> future.cancel(true));
+    }
+}
@@ -15,10 +15,14 @@
 package org.opengroup.osdu.storage.service;
 
 import org.opengroup.osdu.core.common.model.storage.RecordBulkUpdateParam;
+import org.opengroup.osdu.storage.request.KindBulkUpdateRequest;
 import org.opengroup.osdu.storage.response.BulkUpdateRecordsResponse;
+import org.opengroup.osdu.storage.response.KindBulkUpdateResponse;
 
 public interface BulkUpdateRecordService {
 
   BulkUpdateRecordsResponse bulkUpdateRecords(RecordBulkUpdateParam recordBulkUpdateParam, String user);
 
+  KindBulkUpdateResponse bulkUpdateRecordsByKind(KindBulkUpdateRequest request, String user);
+
 }
\ No newline at end of file
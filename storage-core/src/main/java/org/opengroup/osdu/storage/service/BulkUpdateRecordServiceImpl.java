@@ -14,27 +14,52 @@
 
 package org.opengroup.osdu.storage.service;
 
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import org.apache.http.HttpStatus;
 import org.opengroup.osdu.core.common.entitlements.IEntitlementsAndCacheService;
+import org.opengroup.osdu.core.common.logging.JaxRsDpsLog;
+import org.opengroup.osdu.core.common.model.http.AppException;
 import org.opengroup.osdu.core.common.model.http.DpsHeaders;
 import org.opengroup.osdu.core.common.model.indexer.OperationType;
+import org.opengroup.osdu.core.common.model.storage.DatastoreQueryResult;
 import org.opengroup.osdu.core.common.model.storage.PatchOperation;
 import org.opengroup.osdu.core.common.model.storage.RecordBulkUpdateParam;
 import org.opengroup.osdu.core.common.model.storage.RecordMetadata;
 import org.opengroup.osdu.core.common.model.storage.RecordQuery;
 import org.opengroup.osdu.core.common.storage.IPersistenceService;
+import org.opengroup.osdu.storage.cache.CachingRecordsMetadataRepository;
 import org.opengroup.osdu.storage.logging.StorageAuditLogger;
 import org.opengroup.osdu.storage.policy.service.IPolicyService;
+import org.opengroup.osdu.storage.provider.interfaces.IQueryRepository;
 import org.opengroup.osdu.storage.provider.interfaces.IRecordsMetadataRepository;
+import org.opengroup.osdu.storage.request.KindBulkUpdateRequest;
 import org.opengroup.osdu.storage.response.BulkUpdateRecordsResponse;
+import org.opengroup.osdu.storage.response.KindBulkUpdateResponse;
+import org.opengroup.osdu.storage.util.BoundedExecutors;
+import org.opengroup.osdu.storage.util.RecordMetadataPatch;
 import org.opengroup.osdu.storage.util.api.RecordUtil;
 import org.opengroup.osdu.storage.validation.api.PatchOperationValidator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.time.Clock;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toList;
@@ -72,6 +97,35 @@ public class BulkUpdateRecordServiceImpl implements BulkUpdateRecordService {
     @Autowired(required = false)
     private IPolicyService policyService;
 
+    @Autowired
+    private IQueryRepository queryRepository;
+
+    @Autowired
+    private JaxRsDpsLog logger;
+
+    @Value("${bulk.update.kind.chunk.size:500}")
+    private int kindChunkSize;
+
+    @Value("${bulk.update.kind.thread.count:4}")
+    private int kindThreadCount;
+
+    @Value("${bulk.update.kind.max.records:10000}")
+    private int kindMaxRecords;
+
+    private ExecutorService kindUpdateExecutor;
+
+    @PostConstruct
+    void init() {
+        if (this.kindThreadCount > 0) {
+            this.kindUpdateExecutor = BoundedExecutors.newFixedPool("storage-kind-update", this.kindThreadCount);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        BoundedExecutors.shutdown(this.kindUpdateExecutor, 30);
+    }
+
     @Override
     public BulkUpdateRecordsResponse bulkUpdateRecords(RecordBulkUpdateParam recordBulkUpdateParam, String user) {
         List<RecordMetadata> validRecordsMetadata = new ArrayList<>();
@@ -92,25 +146,35 @@ public class BulkUpdateRecordServiceImpl implements BulkUpdateRecordService {
         //<idWithoutVersion, idWithVersion>
         Map<String, String> idMap = recordUtil.mapRecordsAndVersions(ids);
         List<String> idsWithoutVersion = new ArrayList<>(idMap.keySet());
-        Map<String, RecordMetadata> existingRecords = recordRepository.get(idsWithoutVersion);
+        Map<String, RecordMetadata> existingRecords = CachingRecordsMetadataRepository.uncached(recordRepository).get(idsWithoutVersion);
         List<String> notFoundRecordIds = new ArrayList<>();
-        List<String> unauthorizedRecordIds= this.dataAuthorizationService.policyEnabled()
-                ? this.validateUserAccessAndCompliancePolicyConstraints(bulkUpdateOps, idMap, existingRecords, user)
-                : this.validateUserAccessAndComplianceConstraints(bulkUpdateOps, idMap, existingRecords);
-
+        RecordMetadataPatch patch = RecordMetadataPatch.compile(bulkUpdateOps);
         final long currentTimestamp = clock.millis();
+        // the policy is evaluated on the patched metadata, the owner checks on the stored one
+        boolean policyEnabled = this.dataAuthorizationService.policyEnabled();
+        Map<String, RecordMetadata> patchedRecords;
+        List<String> unauthorizedRecordIds;
+        if (policyEnabled) {
+            patchedRecords = this.patchRecords(existingRecords, patch, user, currentTimestamp);
+            unauthorizedRecordIds = this.validateUserAccessAndCompliancePolicyConstraints(idMap, patchedRecords);
+        } else {
+            unauthorizedRecordIds = this.validateUserAccessAndComplianceConstraints(bulkUpdateOps, idMap, existingRecords);
+            patchedRecords = this.patchRecords(existingRecords, patch, user, currentTimestamp);
+        }
+
+        Set<String> unauthorizedIds = new HashSet<>(unauthorizedRecordIds);
+        Set<String> skippedIds = new HashSet<>();
         for (String id : idsWithoutVersion) {
             String idWithVersion = idMap.get(id);
-            RecordMetadata metadata = existingRecords.get(id);
+            RecordMetadata metadata = patchedRecords.get(id);
 
             if (metadata == null) {
                 notFoundRecordIds.add(idWithVersion);
-                ids.remove(idWithVersion);
+                skippedIds.add(idWithVersion);
             } else {
-                if (unauthorizedRecordIds.contains(idWithVersion)) {
-                    ids.remove(idWithVersion);
+                if (unauthorizedIds.contains(idWithVersion)) {
+                    skippedIds.add(idWithVersion);
                 } else {
-                    metadata = recordUtil.updateRecordMetaDataForPatchOperations(metadata, bulkUpdateOps, user, currentTimestamp);
                     validRecordsMetadata.add(metadata);
                     validRecordsId.add(id);
                 }
@@ -121,9 +185,8 @@ public class BulkUpdateRecordServiceImpl implements BulkUpdateRecordService {
             lockedRecordsId = persistenceService.updateMetadata(validRecordsMetadata, validRecordsId, idMap);
         }
 
-        for (String lockedId : lockedRecordsId) {
-            ids.remove(lockedId);
-        }
+        skippedIds.addAll(lockedRecordsId);
+        ids.removeAll(skippedIds);
 
         BulkUpdateRecordsResponse recordsResponse = BulkUpdateRecordsResponse.builder()
                 .notFoundRecordIds(notFoundRecordIds)
@@ -137,6 +200,161 @@ public class BulkUpdateRecordServiceImpl implements BulkUpdateRecordService {
         return recordsResponse;
     }
 
+    @Override
+    public KindBulkUpdateResponse bulkUpdateRecordsByKind(KindBulkUpdateRequest request, String user) {
+        List<PatchOperation> ops = request.getOps();
+        this.patchOperationValidator.validateDuplicates(ops);
+        this.patchOperationValidator.validateAcls(ops);
+        this.patchOperationValidator.validateTags(ops);
+        boolean policyEnabled = this.dataAuthorizationService.policyEnabled();
+        if (!policyEnabled) {
+            this.patchOperationValidator.validateLegalTags(ops);
+        }
+
+        RecordMetadataPatch patch = RecordMetadataPatch.compile(ops);
+        final long currentTimestamp = clock.millis();
+        int maxRecords = Math.max(1, this.kindMaxRecords);
+
+        // chunks are patched while the following pages are still being scanned
+        List<List<String>> chunks = new ArrayList<>();
+        List<Future<KindUpdateChunk>> futures = new ArrayList<>();
+        String cursor = request.getCursor();
+        int scanned = 0;
+        do {
+            int limit = Math.min(IQueryRepository.PAGE_SIZE, maxRecords - scanned);
+            DatastoreQueryResult page = this.queryRepository.getAllRecordIdsFromKind(request.getKind(), limit, cursor);
+            List<String> ids = page.getResults() == null ? new ArrayList<>() : page.getResults();
+            for (List<String> chunk : Lists.partition(ids, Math.max(1, this.kindChunkSize))) {
+                List<String> chunkIds = new ArrayList<>(chunk);
+                Callable<KindUpdateChunk> task = BoundedExecutors.withRequestContext(
+                        () -> this.updateChunk(chunkIds, request, patch, policyEnabled, user, currentTimestamp));
+                chunks.add(chunkIds);
+                futures.add(this.submit(task));
+            }
+            scanned += ids.size();
+            cursor = ids.isEmpty() ? null : page.getCursor();
+        } while (!Strings.isNullOrEmpty(cursor) && scanned < maxRecords);
+
+        int recordCount = 0;
+        List<String> unauthorizedRecordIds = new ArrayList<>();
+        List<String> lockedRecordIds = new ArrayList<>();
+        List<KindBulkUpdateResponse.FailedChunk> failedChunks = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            KindUpdateChunk result;
+            try {
+                result = futures.get(i).get();
+            } catch (InterruptedException e) {
+                futures.forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, "Error updating records",
+                        "Interrupted while updating records", e);
+            } catch (ExecutionException e) {
+                result = this.failedChunk(chunks.get(i), e.getCause() instanceof AppException ? (AppException) e.getCause() : e);
+            }
+            recordCount += result.updatedCount;
+            unauthorizedRecordIds.addAll(result.unauthorizedRecordIds);
+            lockedRecordIds.addAll(result.lockedRecordIds);
+            if (result.failure != null) {
+                failedChunks.add(result.failure);
+            }
+        }
+
+        List<String> failedUpdates = new ArrayList<>(unauthorizedRecordIds);
+        failedUpdates.addAll(lockedRecordIds);
+        failedChunks.forEach(chunk -> failedUpdates.addAll(chunk.getRecordIds()));
+        if (!failedUpdates.isEmpty()) {
+            auditLogger.createOrUpdateRecordsFail(failedUpdates);
+        }
+
+        return KindBulkUpdateResponse.builder()
+                .cursor(cursor)
+                .scannedRecordCount(scanned)
+                .recordCount(recordCount)
+                .unAuthorizedRecordIds(unauthorizedRecordIds)
+                .lockedRecordIds(lockedRecordIds)
+                .failedChunks(failedChunks).build();
+    }
+
+    private Future<KindUpdateChunk> submit(Callable<KindUpdateChunk> task) {
+        if (this.kindUpdateExecutor != null) {
+            return this.kindUpdateExecutor.submit(task);
+        }
+        FutureTask<KindUpdateChunk> inline = new FutureTask<>(task);
+        inline.run();
+        return inline;
+    }
+
+    private KindUpdateChunk updateChunk(List<String> ids, KindBulkUpdateRequest request, RecordMetadataPatch patch,
+                                        boolean policyEnabled, String user, long currentTimestamp) {
+        try {
+            Map<String, RecordMetadata> existingRecords = CachingRecordsMetadataRepository.uncached(recordRepository).get(ids);
+            Map<String, RecordMetadata> matchingRecords = new HashMap<>();
+            Map<String, String> idMap = new HashMap<>();
+            for (Map.Entry<String, RecordMetadata> record : existingRecords.entrySet()) {
+                if (record.getValue() != null && matchesFilters(record.getValue(), request)) {
+                    matchingRecords.put(record.getKey(), record.getValue());
+                    idMap.put(record.getKey(), record.getKey());
+                }
+            }
+
+            KindUpdateChunk result = new KindUpdateChunk();
+            Map<String, RecordMetadata> patchedRecords;
+            if (policyEnabled) {
+                patchedRecords = this.patchRecords(matchingRecords, patch, user, currentTimestamp);
+                result.unauthorizedRecordIds = this.validateUserAccessAndCompliancePolicyConstraints(idMap, patchedRecords);
+            } else {
+                result.unauthorizedRecordIds = this.validateOwnerAccess(idMap, matchingRecords);
+                patchedRecords = this.patchRecords(matchingRecords, patch, user, currentTimestamp);
+            }
+
+            Set<String> unauthorizedIds = new HashSet<>(result.unauthorizedRecordIds);
+            List<RecordMetadata> validRecordsMetadata = new ArrayList<>();
+            List<String> validRecordsId = new ArrayList<>();
+            for (Map.Entry<String, RecordMetadata> record : patchedRecords.entrySet()) {
+                if (!unauthorizedIds.contains(record.getKey())) {
+                    validRecordsMetadata.add(record.getValue());
+                    validRecordsId.add(record.getKey());
+                }
+            }
+
+            if (!validRecordsId.isEmpty()) {
+                result.lockedRecordIds = persistenceService.updateMetadata(validRecordsMetadata, validRecordsId, idMap);
+            }
+            result.updatedCount = validRecordsId.size() - result.lockedRecordIds.size();
+            return result;
+        } catch (RuntimeException e) {
+            return this.failedChunk(ids, e);
+        }
+    }
+
+    private KindUpdateChunk failedChunk(List<String> ids, Exception cause) {
+        KindUpdateChunk result = new KindUpdateChunk();
+        if (cause instanceof AppException) {
+            AppException appException = (AppException) cause;
+            result.failure = new KindBulkUpdateResponse.FailedChunk(ids, appException.getError().getCode(),
+                    appException.getError().getReason());
+        } else {
+            this.logger.error(String.format("Error updating metadata of %d records", ids.size()), cause);
+            result.failure = new KindBulkUpdateResponse.FailedChunk(ids, HttpStatus.SC_INTERNAL_SERVER_ERROR,
+                    "Error updating records");
+        }
+        return result;
+    }
+
+    private static boolean matchesFilters(RecordMetadata metadata, KindBulkUpdateRequest request) {
+        Map<String, String> tags = request.getTags();
+        if (tags != null && !tags.isEmpty()
+                && (metadata.getTags() == null || !metadata.getTags().entrySet().containsAll(tags.entrySet()))) {
+            return false;
+        }
+        Set<String> legalTags = request.getLegalTags();
+        if (legalTags != null && !legalTags.isEmpty()) {
+            Set<String> recordLegalTags = metadata.getLegal() == null ? null : metadata.getLegal().getLegaltags();
+            return recordLegalTags != null && !Collections.disjoint(recordLegalTags, legalTags);
+        }
+        return true;
+    }
+
     private void auditCreateOrUpdateRecordsFails(BulkUpdateRecordsResponse recordsResponse) {
         List<String> failedUpdates =
                 Stream.of(recordsResponse.getNotFoundRecordIds(), recordsResponse.getUnAuthorizedRecordIds(),
@@ -170,22 +388,43 @@ public class BulkUpdateRecordServiceImpl implements BulkUpdateRecordService {
         return unauthorizedRecordIds;
     }
 
+    /**
+     * Returns the patched metadata of the given records, keyed like them. Records without metadata are left out.
+     */
+    private Map<String, RecordMetadata> patchRecords(Map<String, RecordMetadata> records, RecordMetadataPatch patch,
+                                                     String user, long currentTimestamp) {
+        Map<String, RecordMetadata> patchedRecords = new HashMap<>();
+        for (Map.Entry<String, RecordMetadata> record : records.entrySet()) {
+            if (record.getValue() != null) {
+                patchedRecords.put(record.getKey(),
+                        this.recordUtil.updateRecordMetaDataForPatchOperations(record.getValue(), patch, user, currentTimestamp));
+            }
+        }
+        return patchedRecords;
+    }
+
     private List<String> validateUserAccessAndCompliancePolicyConstraints(
-            List<PatchOperation> bulkUpdateOps, Map<String, String> idMap, Map<String, RecordMetadata> existingRecords, String user) {
-        List<String> unauthorizedRecordIds = new ArrayList<>();
-        final long currentTimestamp = clock.millis();
+            Map<String, String> idMap, Map<String, RecordMetadata> patchedRecords) {
+        List<AbstractMap.SimpleEntry<RecordMetadata, OperationType>> recordOperations = new ArrayList<>();
         for (String id : idMap.keySet()) {
-            String idWithVersion = idMap.get(id);
-            RecordMetadata metadata = existingRecords.get(id);
+            RecordMetadata metadata = patchedRecords.get(id);
 
             if (metadata == null) continue;
 
-            metadata = this.recordUtil.updateRecordMetaDataForPatchOperations(metadata, bulkUpdateOps, user, currentTimestamp);
+            recordOperations.add(new AbstractMap.SimpleEntry<>(metadata, OperationType.update));
+        }
 
-            if (!this.policyService.evaluateStorageDataAuthorizationPolicy(metadata, OperationType.update)) {
-                unauthorizedRecordIds.add(idWithVersion);
-            }
+        List<String> unauthorizedRecordIds = new ArrayList<>();
+        for (String deniedId : this.policyService.evaluateStorageDataAuthorizationPolicy(recordOperations)) {
+            unauthorizedRecordIds.add(idMap.get(deniedId));
         }
         return unauthorizedRecordIds;
     }
+
+    private static class KindUpdateChunk {
+        private int updatedCount;
+        private List<String> unauthorizedRecordIds = new ArrayList<>();
+        private List<String> lockedRecordIds = new ArrayList<>();
+        private KindBulkUpdateResponse.FailedChunk failure;
+    }
 }
@@ -28,13 +28,15 @@ import org.opengroup.osdu.core.common.model.http.AppException;
 import org.opengroup.osdu.core.common.model.http.DpsHeaders;
 import org.opengroup.osdu.core.common.model.storage.RecordMetadata;
 import org.opengroup.osdu.core.common.util.Crc32c;
+import org.opengroup.osdu.storage.cache.GroupsLocalCache;
+import org.opengroup.osdu.storage.util.AclGroupIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class EntitlementsAndCacheServiceImpl implements IEntitlementsExtensionService {
@@ -51,6 +53,12 @@ public class EntitlementsAndCacheServiceImpl implements IEntitlementsExtensionSe
     @Autowired
     private JaxRsDpsLog logger;
 
+    @Autowired(required = false)
+    private GroupsLocalCache localCache;
+
+    private final LongAdder sharedCacheHits = new LongAdder();
+    private final LongAdder sharedCacheMisses = new LongAdder();
+
     @Override
     public String authorize(DpsHeaders headers, String... roles) {
         Groups groups = this.getGroups(headers);
@@ -87,24 +95,17 @@ public class EntitlementsAndCacheServiceImpl implements IEntitlementsExtensionSe
     @Override
     public boolean hasOwnerAccess(DpsHeaders headers, String[] ownerList) {
         Groups groups = this.getGroups(headers);
-        Set<String> aclList = new HashSet<>();
-
-        for (String owner : ownerList) {
-            aclList.add(owner.split("@")[0]);
-        }
-
-        String[] acls = new String[aclList.size()];
-        return groups.any(aclList.toArray(acls));
+        return new AclGroupIndex(groups).isMemberOfAny(ownerList);
     }
 
     @Override
     public List<RecordMetadata> hasValidAccess(List<RecordMetadata> recordsMetadata, DpsHeaders headers) {
-        Groups groups = this.getGroups(headers);
+        AclGroupIndex groupIndex = new AclGroupIndex(this.getGroups(headers));
         List<RecordMetadata> result = new ArrayList<>();
 
         for (RecordMetadata recordMetadata : recordsMetadata) {
             Acl storageAcl = recordMetadata.getAcl();
-            if (hasAccess(storageAcl, groups)) {
+            if (hasAccess(storageAcl, groupIndex)) {
                 result.add(recordMetadata);
             } else {
                 this.logger.warning("Post ACL check fails: " + recordMetadata.getId());
@@ -114,30 +115,28 @@ public class EntitlementsAndCacheServiceImpl implements IEntitlementsExtensionSe
         return result;
     }
 
-    private boolean hasAccess(Acl storageAcl, Groups groups) {
-        String[] viewers = storageAcl.getViewers();
-        String[] owners = storageAcl.getOwners();
-        Set<String> aclList = new HashSet<>();
-
-        for (String viewer : viewers) {
-            aclList.add(viewer.split("@")[0]);
-        }
-        for (String owner : owners) {
-            aclList.add(owner.split("@")[0]);
-        }
-
-        String[] acls = new String[aclList.size()];
-        if (groups.any(aclList.toArray(acls))) {
-            return true;
-        } else {
-            return false;
-        }
+    private boolean hasAccess(Acl storageAcl, AclGroupIndex groupIndex) {
+        return groupIndex.isMemberOfAny(storageAcl.getViewers()) || groupIndex.isMemberOfAny(storageAcl.getOwners());
     }
 
     @Override
     public Groups getGroups(DpsHeaders headers) {
         String cacheKey = this.getGroupCacheKey(headers);
+        if (this.localCache == null) {
+            return this.loadGroups(headers, cacheKey);
+        }
+        return this.localCache.get(cacheKey, () -> this.loadGroups(headers, cacheKey));
+    }
 
+    public long getSharedCacheHitCount() {
+        return this.sharedCacheHits.sum();
+    }
+
+    public long getSharedCacheMissCount() {
+        return this.sharedCacheMisses.sum();
+    }
+
+    private Groups loadGroups(DpsHeaders headers, String cacheKey) {
         Groups groups = null;
         try {
             groups = this.cache.get(cacheKey);
@@ -146,6 +145,7 @@ public class EntitlementsAndCacheServiceImpl implements IEntitlementsExtensionSe
         }
 
         if (groups == null) {
+            this.sharedCacheMisses.increment();
             IEntitlementsService service = this.factory.create(headers);
             try {
                 groups = service.getGroups();
@@ -159,6 +159,8 @@ public class EntitlementsAndCacheServiceImpl implements IEntitlementsExtensionSe
             } catch (RedisException ex) {
                 this.logger.error(String.format("Error putting key %s into redis: %s", cacheKey, ex.getMessage()), ex);
             }
+        } else {
+            this.sharedCacheHits.increment();
         }
         return groups;
     }
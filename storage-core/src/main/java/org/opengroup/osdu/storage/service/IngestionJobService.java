@@ -0,0 +1,410 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Strings;
+import org.apache.http.HttpStatus;
+import org.opengroup.osdu.core.common.logging.JaxRsDpsLog;
+import org.opengroup.osdu.core.common.model.http.AppException;
+import org.opengroup.osdu.core.common.model.http.DpsHeaders;
+import org.opengroup.osdu.core.common.model.storage.Record;
+import org.opengroup.osdu.core.common.model.storage.TransferInfo;
+import org.opengroup.osdu.core.common.storage.IngestionService;
+import org.opengroup.osdu.core.common.util.IServiceAccountJwtClient;
+import org.opengroup.osdu.storage.model.IngestionJob;
+import org.opengroup.osdu.storage.response.IngestionJobStatus;
+import org.opengroup.osdu.storage.util.BoundedExecutors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Runs record ingestion in the background for inputs too large for a single PUT. The input is NDJSON, one record
+ * per line, either uploaded with the request and spooled to a temporary file or staged beforehand in
+ * {@code ingestion.job.staging.dir}. Records are read one line at a time and ingested in chunks on a bounded pool.
+ * Jobs run with the service account token rather than the caller's, which may expire before a large job is done.
+ * Jobs are kept in memory by the instance that accepted them.
+ */
+@Service
+public class IngestionJobService {
+
+    private static final String SPOOL_FILE_PREFIX = "storage-ingestion-";
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+    private static final int SPOOL_BUFFER_SIZE = 64 * 1024;
+
+    @Value("${ingestion.job.chunk.size:500}")
+    private int chunkSize;
+
+    @Value("${ingestion.job.thread.count:4}")
+    private int threadCount;
+
+    @Value("${ingestion.job.max.concurrent:2}")
+    private int maxConcurrentJobs;
+
+    @Value("${ingestion.job.max.queued:20}")
+    private int maxQueuedJobs;
+
+    @Value("${ingestion.job.max.errors:1000}")
+    private int maxErrors;
+
+    @Value("${ingestion.job.retention.minutes:1440}")
+    private long retentionMinutes;
+
+    @Value("${ingestion.job.staging.dir:}")
+    private String stagingDir;
+
+    @Value("${ingestion.job.max.spool.bytes:1073741824}")
+    private long maxSpoolBytes;
+
+    @Autowired
+    private IngestionService ingestionService;
+
+    @Autowired
+    private DpsHeaders headers;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IServiceAccountJwtClient jwtClient;
+
+    @Autowired
+    private JaxRsDpsLog logger;
+
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+
+    private ExecutorService jobExecutor;
+    private ExecutorService chunkExecutor;
+
+    @PostConstruct
+    void init() {
+        this.jobExecutor = BoundedExecutors.newFixedPool("storage-ingestion-job", Math.max(1, this.maxConcurrentJobs));
+        if (this.threadCount > 0) {
+            this.chunkExecutor = BoundedExecutors.newFixedPool("storage-ingestion-chunk", this.threadCount);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        BoundedExecutors.shutdown(this.jobExecutor, 30);
+        BoundedExecutors.shutdown(this.chunkExecutor, 30);
+    }
+
+    /**
+     * Starts a job ingesting either the given NDJSON body or, when {@code stagedFile} is set, that file of the
+     * staging directory.
+     */
+    public IngestionJobStatus submit(InputStream body, String stagedFile, boolean skipDupes, String user) {
+        this.purgeExpiredJobs();
+        long queued = this.jobs.values().stream().filter(job -> job.getStatus() == IngestionJob.Status.QUEUED).count();
+        if (queued >= this.maxQueuedJobs) {
+            throw new AppException(SC_TOO_MANY_REQUESTS, "Too many ingestion jobs",
+                    "Too many ingestion jobs are waiting to run, please retry later");
+        }
+
+        String partitionId = this.headers.getPartitionId();
+        Map<String, String> jobHeaders = new HashMap<>();
+        jobHeaders.put(DpsHeaders.AUTHORIZATION, this.getServiceToken(partitionId));
+        if (!Strings.isNullOrEmpty(this.headers.getCorrelationId())) {
+            jobHeaders.put(DpsHeaders.CORRELATION_ID, this.headers.getCorrelationId());
+        }
+        if (!Strings.isNullOrEmpty(this.headers.getUserEmail())) {
+            // set by the authorization filter, keeps the caller as the user of the job's audit events
+            jobHeaders.put(DpsHeaders.USER_EMAIL, this.headers.getUserEmail());
+        }
+
+        boolean spooled = Strings.isNullOrEmpty(stagedFile);
+        Path input = spooled ? this.spool(body) : this.resolveStagedFile(stagedFile);
+
+        IngestionJob job = new IngestionJob(UUID.randomUUID().toString(), partitionId, this.maxErrors);
+        this.jobs.put(job.getId(), job);
+
+        // the job outlives the request, so it gets its own request context, authorized with the service account
+        ServletRequestAttributes requestContext = BoundedExecutors.detachRequestContext(jobHeaders);
+        this.jobExecutor.submit(BoundedExecutors.withRequestContext(requestContext, () -> {
+            try {
+                this.run(job, input, skipDupes, user);
+            } finally {
+                if (requestContext != null) {
+                    requestContext.requestCompleted();
+                }
+                if (spooled) {
+                    this.deleteSpoolFile(input);
+                }
+            }
+            return null;
+        }));
+        return job.toStatus();
+    }
+
+    public IngestionJobStatus getStatus(String jobId) {
+        IngestionJob job = this.jobs.get(jobId);
+        if (job == null || !job.getPartitionId().equals(this.headers.getPartitionId())) {
+            throw new AppException(HttpStatus.SC_NOT_FOUND, "Ingestion job not found",
+                    String.format("The ingestion job '%s' was not found", jobId));
+        }
+        return job.toStatus();
+    }
+
+    private void run(IngestionJob job, Path input, boolean skipDupes, String user) {
+        job.start();
+        int maxInFlight = Math.max(1, this.threadCount) * 2;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        String failure = null;
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            List<LineRecord> chunk = new ArrayList<>();
+            long lineNumber = 0;
+            String line;
+            while (!job.isAborted() && (line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                job.recordSubmitted();
+                Record record = this.parse(job, lineNumber, line);
+                if (record != null) {
+                    chunk.add(new LineRecord(lineNumber, record));
+                }
+                if (chunk.size() >= Math.max(1, this.chunkSize)) {
+                    this.submitChunk(job, chunk, skipDupes, user, inFlight);
+                    chunk = new ArrayList<>();
+                }
+            }
+            if (!chunk.isEmpty() && !job.isAborted()) {
+                this.submitChunk(job, chunk, skipDupes, user, inFlight);
+            }
+        } catch (IOException e) {
+            failure = "Error reading the ingestion input: " + e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = "The ingestion job was interrupted";
+        } catch (RuntimeException e) {
+            this.logger.error(String.format("Ingestion job %s failed", job.getId()), e);
+            failure = e.getMessage();
+        } finally {
+            // running chunks use the job's request context and input file, both released once this returns
+            awaitChunks(inFlight, maxInFlight);
+        }
+
+        if (failure != null) {
+            job.fail(failure);
+        } else if (job.isAborted()) {
+            job.fail(job.getAbortReason());
+        } else {
+            job.complete();
+        }
+    }
+
+    private static void awaitChunks(Semaphore inFlight, int maxInFlight) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            inFlight.acquire(maxInFlight);
+        } catch (InterruptedException e) {
+            interrupted = true;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Record parse(IngestionJob job, long lineNumber, String line) {
+        Record record;
+        try {
+            record = this.objectMapper.readValue(line, Record.class);
+        } catch (IOException e) {
+            job.recordFailed(lineNumber, null, HttpStatus.SC_BAD_REQUEST, "Invalid record: " + e.getMessage());
+            return null;
+        }
+        Set<ConstraintViolation<Record>> violations = this.validator.validate(record);
+        if (!violations.isEmpty()) {
+            job.recordFailed(lineNumber, record.getId(), HttpStatus.SC_BAD_REQUEST, violations.iterator().next().getMessage());
+            return null;
+        }
+        return record;
+    }
+
+    private void submitChunk(IngestionJob job, List<LineRecord> chunk, boolean skipDupes, String user, Semaphore inFlight)
+            throws InterruptedException {
+        // each chunk gets its own request context, and so its own DpsHeaders, with a fresh service account token:
+        // the token is cached by the client, asking for it per chunk renews it for long jobs
+        ServletRequestAttributes chunkContext = BoundedExecutors.detachRequestContext(
+                Collections.singletonMap(DpsHeaders.AUTHORIZATION, this.getServiceToken(job.getPartitionId())));
+        Callable<Void> task = BoundedExecutors.withRequestContext(chunkContext, () -> {
+            try {
+                this.ingestChunk(job, chunk, skipDupes, user);
+            } finally {
+                if (chunkContext != null) {
+                    chunkContext.requestCompleted();
+                }
+                inFlight.release();
+            }
+            return null;
+        });
+        inFlight.acquire();
+        if (this.chunkExecutor == null) {
+            try {
+                task.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        } else {
+            this.chunkExecutor.submit(task);
+        }
+    }
+
+    private void ingestChunk(IngestionJob job, List<LineRecord> chunk, boolean skipDupes, String user) {
+        if (job.isAborted()) {
+            return;
+        }
+        List<Record> records = new ArrayList<>(chunk.size());
+        chunk.forEach(lineRecord -> records.add(lineRecord.record));
+        try {
+            TransferInfo transfer = this.ingestionService.createUpdateRecords(skipDupes, records, user);
+            int skipped = transfer.getSkippedRecords() == null ? 0 : transfer.getSkippedRecords().size();
+            job.recordsSkipped(skipped);
+            job.recordsCreated(records.size() - skipped);
+        } catch (AppException e) {
+            int code = e.getError().getCode();
+            if (chunk.size() > 1 && code == HttpStatus.SC_BAD_REQUEST) {
+                // a single invalid record rejects the whole chunk, ingest them one by one to report the culprits
+                chunk.forEach(lineRecord -> this.ingestChunk(job, Collections.singletonList(lineRecord), skipDupes, user));
+                return;
+            }
+            chunk.forEach(lineRecord -> job.recordFailed(lineRecord.line, lineRecord.record.getId(),
+                    code, e.getError().getMessage()));
+            if (code == HttpStatus.SC_UNAUTHORIZED || code == HttpStatus.SC_FORBIDDEN) {
+                // the remaining chunks would be rejected the same way
+                job.abort(String.format("Ingestion stopped after an authorization failure: %s", e.getError().getMessage()));
+            }
+        } catch (RuntimeException e) {
+            this.logger.error(String.format("Error ingesting %d records of ingestion job %s", chunk.size(), job.getId()), e);
+            chunk.forEach(lineRecord -> job.recordFailed(lineRecord.line, lineRecord.record.getId(),
+                    HttpStatus.SC_INTERNAL_SERVER_ERROR, "Error ingesting record"));
+        }
+    }
+
+    private Path spool(InputStream body) {
+        if (body == null) {
+            throw new AppException(HttpStatus.SC_BAD_REQUEST, "Missing records", "No records were provided");
+        }
+        Path file = null;
+        boolean stored = false;
+        try (InputStream in = body) {
+            file = Files.createTempFile(SPOOL_FILE_PREFIX, ".ndjson");
+            try (OutputStream out = Files.newOutputStream(file)) {
+                byte[] buffer = new byte[SPOOL_BUFFER_SIZE];
+                long size = 0;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    if (size > this.maxSpoolBytes) {
+                        throw new AppException(HttpStatus.SC_REQUEST_TOO_LONG, "Request too large", String.format(
+                                "The records exceed the maximum of %d bytes, stage them as a file instead", this.maxSpoolBytes));
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            stored = true;
+            return file;
+        } catch (IOException e) {
+            throw new AppException(HttpStatus.SC_BAD_REQUEST, "Error reading records",
+                    "The records could not be read from the request", e);
+        } finally {
+            if (!stored && file != null) {
+                this.deleteSpoolFile(file);
+            }
+        }
+    }
+
+    private String getServiceToken(String partitionId) {
+        String token = this.jwtClient.getIdToken(partitionId);
+        if (Strings.isNullOrEmpty(token)) {
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, "Authorization failed",
+                    "The service account token for the ingestion job could not be obtained");
+        }
+        return token;
+    }
+
+    private Path resolveStagedFile(String stagedFile) {
+        if (Strings.isNullOrEmpty(this.stagingDir)) {
+            throw new AppException(HttpStatus.SC_BAD_REQUEST, "Staged files not enabled",
+                    "Ingesting staged files is not enabled on this service");
+        }
+        Path base = Paths.get(this.stagingDir).toAbsolutePath().normalize();
+        Path file = base.resolve(stagedFile).normalize();
+        if (!file.startsWith(base) || !Files.isRegularFile(file)) {
+            throw new AppException(HttpStatus.SC_NOT_FOUND, "Staged file not found",
+                    String.format("The staged file '%s' was not found", stagedFile));
+        }
+        return file;
+    }
+
+    private void deleteSpoolFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            this.logger.warning(String.format("Could not delete ingestion spool file %s", file));
+        }
+    }
+
+    private void purgeExpiredJobs() {
+        long expiry = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(this.retentionMinutes);
+        this.jobs.values().removeIf(job -> job.isFinished() && job.getEndTime() < expiry);
+    }
+
+    private static class LineRecord {
+        private final long line;
+        private final Record record;
+
+        private LineRecord(long line, Record record) {
+            this.line = line;
+            this.record = record;
+        }
+    }
+}
@@ -30,10 +30,14 @@ import org.opengroup.osdu.core.common.logging.JaxRsDpsLog;
 import org.opengroup.osdu.core.common.model.storage.validation.ValidationDoc;
 import org.opengroup.osdu.core.common.model.tenant.TenantInfo;
 import org.opengroup.osdu.core.common.storage.*;
+import org.opengroup.osdu.storage.cache.CachingRecordsMetadataRepository;
 import org.opengroup.osdu.storage.logging.StorageAuditLogger;
+import org.opengroup.osdu.storage.model.RecordContentHash;
 import org.opengroup.osdu.storage.policy.service.IPolicyService;
 import org.opengroup.osdu.storage.provider.interfaces.ICloudStorage;
+import org.opengroup.osdu.storage.provider.interfaces.IRecordContentHashRepository;
 import org.opengroup.osdu.storage.provider.interfaces.IRecordsMetadataRepository;
+import org.opengroup.osdu.storage.util.RecordContentHasher;
 import org.opengroup.osdu.storage.util.api.RecordUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -82,6 +86,9 @@ public class IngestionServiceImpl implements IngestionService {
 	@Autowired
 	private RecordUtil recordUtil;
 
+	@Autowired(required = false)
+	private IRecordContentHashRepository contentHashRepository;
+
 	@Override
 	public TransferInfo createUpdateRecords(boolean skipDupes, List<Record> inputRecords, String user) {
 		this.validateKindFormat(inputRecords);
@@ -164,7 +171,8 @@ public class IngestionServiceImpl implements IngestionService {
 		List<RecordProcessing> recordsToProcess = new ArrayList<>();
 
 		List<String> ids = this.getRecordIds(inputRecords, recordParentMap);
-		Map<String, RecordMetadata> existingRecords = this.recordRepository.get(ids);
+		// read-modify-write: the versions appended below must not be based on a cached copy
+		Map<String, RecordMetadata> existingRecords = CachingRecordsMetadataRepository.uncached(this.recordRepository).get(ids);
 
 		this.validateParentsExist(existingRecords, recordParentMap);
 		if(this.dataAuthorizationService.policyEnabled()) {
@@ -290,11 +298,57 @@ public class IngestionServiceImpl implements IngestionService {
 	}
 
 	private void removeDuplicatedRecords(Map<RecordMetadata, RecordData> recordUpdatesMap, TransferInfo transfer) {
-		Collection<RecordMetadata> metadataList = recordUpdatesMap.keySet();
-		Map<String, String> hashMap = this.cloudStorage.getHash(metadataList);
+		Map<RecordMetadata, RecordData> unresolvedRecords = recordUpdatesMap;
+		if (this.contentHashRepository != null) {
+			unresolvedRecords = this.removeIndexedDuplicatedRecords(recordUpdatesMap, transfer);
+		}
+		if (unresolvedRecords.isEmpty()) {
+			return;
+		}
+
+		Set<RecordMetadata> unresolvedMetadata = unresolvedRecords.keySet();
+		Map<String, String> hashMap = this.cloudStorage.getHash(unresolvedMetadata);
 		recordUpdatesMap
 				.entrySet()
-				.removeIf(kv -> this.cloudStorage.isDuplicateRecord(transfer, hashMap, kv));
+				.removeIf(kv -> unresolvedMetadata.contains(kv.getKey()) && this.cloudStorage.isDuplicateRecord(transfer, hashMap, kv));
+	}
+
+	/**
+	 * Removes the records whose content matches the indexed hash of their latest version. Returns the records the
+	 * index has no current entry for, which still need to be compared against the stored blobs.
+	 */
+	private Map<RecordMetadata, RecordData> removeIndexedDuplicatedRecords(Map<RecordMetadata, RecordData> recordUpdatesMap, TransferInfo transfer) {
+		Set<String> ids = new HashSet<>();
+		recordUpdatesMap.keySet().forEach(recordMetadata -> ids.add(recordMetadata.getId()));
+		Map<String, RecordContentHash> indexedHashes = this.contentHashRepository.get(ids);
+
+		Map<RecordMetadata, RecordData> unresolvedRecords = new HashMap<>();
+		Iterator<Map.Entry<RecordMetadata, RecordData>> iterator = recordUpdatesMap.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<RecordMetadata, RecordData> kv = iterator.next();
+			RecordMetadata recordMetadata = kv.getKey();
+			RecordContentHash indexedHash = indexedHashes == null ? null : indexedHashes.get(recordMetadata.getId());
+
+			if (indexedHash == null || indexedHash.getVersion() != recordMetadata.getLatestVersion()) {
+				unresolvedRecords.put(recordMetadata, kv.getValue());
+			} else if (indexedHash.getHash().equals(RecordContentHasher.hash(kv.getValue()))) {
+				transfer.getSkippedRecords().add(recordMetadata.getId());
+				iterator.remove();
+			}
+		}
+		return unresolvedRecords;
+	}
+
+	private void indexContentHashes(List<RecordProcessing> records, long version) {
+		Map<String, RecordContentHash> hashes = new HashMap<>();
+		records.forEach(record -> hashes.put(record.getRecordMetadata().getId(),
+				new RecordContentHash(version, RecordContentHasher.hash(record.getRecordData()))));
+		try {
+			this.contentHashRepository.put(hashes);
+		} catch (Exception e) {
+			// entries are versioned, a stale entry only makes duplicate detection fall back to the blobs
+			this.logger.warning(String.format("Could not index content hash of %d records: %s", hashes.size(), e.getMessage()));
+		}
 	}
 
 	private void populateUpdatedRecords(Map<RecordMetadata, RecordData> recordUpdatesMap,
@@ -315,6 +369,9 @@ public class IngestionServiceImpl implements IngestionService {
 	private void sendRecordsForProcessing(List<RecordProcessing> records, TransferInfo transferInfo) {
 		if (!records.isEmpty()) {
 			this.persistenceService.persistRecordBatch(new TransferBatch(transferInfo, records));
+			if (this.contentHashRepository != null) {
+				this.indexContentHashes(records, transferInfo.getVersion());
+			}
 			this.auditLogger.createOrUpdateRecordsSuccess(this.extractRecordIds(records));
 		}
 	}
@@ -386,20 +443,18 @@ public class IngestionServiceImpl implements IngestionService {
 	private void validateUserAccessAndCompliancePolicyConstraints(
 			List<Record> inputRecords, Map<String, RecordMetadata> existingRecords,  Map<String, List<RecordIdWithVersion>> recordParentMap) {
 		this.populateLegalInfoFromParents(inputRecords, existingRecords, recordParentMap);
+		List<AbstractMap.SimpleEntry<RecordMetadata, OperationType>> recordOperations = new ArrayList<>(inputRecords.size());
 		for (Record record : inputRecords) {
-			RecordMetadata recordMetadata;
-			OperationType operationType;
 			if (existingRecords.containsKey(record.getId())) {
-				recordMetadata = existingRecords.get(record.getId());
-				operationType = OperationType.update;
+				recordOperations.add(new AbstractMap.SimpleEntry<>(existingRecords.get(record.getId()), OperationType.update));
 			} else {
-				recordMetadata = new RecordMetadata(record);
-				operationType = OperationType.create;
-			}
-			if (!this.policyService.evaluateStorageDataAuthorizationPolicy(recordMetadata, operationType)) {
-				throw new AppException(HttpStatus.SC_FORBIDDEN,
-						"User Unauthorized", "User is not authorized to create or update records.", String.format("User does not have required access to record %s", record.getId()));
+				recordOperations.add(new AbstractMap.SimpleEntry<>(new RecordMetadata(record), OperationType.create));
 			}
 		}
+		List<String> deniedRecordIds = this.policyService.evaluateStorageDataAuthorizationPolicy(recordOperations);
+		if (!deniedRecordIds.isEmpty()) {
+			throw new AppException(HttpStatus.SC_FORBIDDEN,
+					"User Unauthorized", "User is not authorized to create or update records.", String.format("User does not have required access to record %s", deniedRecordIds.get(0)));
+		}
 	}
 }
\ No newline at end of file
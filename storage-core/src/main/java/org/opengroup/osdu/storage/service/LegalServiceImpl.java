@@ -30,9 +30,13 @@ import org.opengroup.osdu.core.common.model.legal.LegalTagProperties;
 import org.opengroup.osdu.core.common.model.storage.Record;
 import org.opengroup.osdu.core.common.model.storage.RecordIdWithVersion;
 import org.opengroup.osdu.core.common.model.storage.RecordMetadata;
+import org.opengroup.osdu.storage.cache.CountryCodesCache;
+import org.opengroup.osdu.storage.cache.LegalTagLocalCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -51,22 +55,31 @@ public class LegalServiceImpl implements ILegalService {
     private ILegalFactory factory;
     @Autowired
     private JaxRsDpsLog log;
+    @Autowired(required = false)
+    private LegalTagLocalCache localCache;
+    @Autowired(required = false)
+    private CountryCodesCache countryCodesCache;
 
     @Override
     public void validateLegalTags(Set<String> legaltags) {
 
-        if (this.isInCache(legaltags)) {
+        Set<String> uncachedLegalTags = this.getUncachedLegalTags(legaltags);
+        if (uncachedLegalTags.isEmpty()) {
             return;
         }
 
-        InvalidTagWithReason[] invalidLegalTags = this.getInvalidLegalTags(legaltags);
+        InvalidTagWithReason[] invalidLegalTags = this.getInvalidLegalTags(uncachedLegalTags);
 
         if (invalidLegalTags.length > 0) {
-            throw new AppException(HttpStatus.SC_BAD_REQUEST, "Invalid legal tags",
-                    String.format("Invalid legal tags: %s", invalidLegalTags[0].getName()));
+            if (this.localCache != null) {
+                for (InvalidTagWithReason invalidLegalTag : invalidLegalTags) {
+                    this.localCache.putInvalid(this.headers.getPartitionId(), invalidLegalTag.getName());
+                }
+            }
+            throw this.invalidLegalTagException(invalidLegalTags[0].getName());
         }
 
-        this.addToCache(legaltags);
+        this.addToCache(uncachedLegalTags);
     }
 
     @Override
@@ -114,6 +127,9 @@ public class LegalServiceImpl implements ILegalService {
     }
 
     public Map<String, String> getValidCountryCodes() {
+        if (this.countryCodesCache != null) {
+            return this.countryCodesCache.get(this.headers);
+        }
         if (validCountryCodes == null) {
             try {
                 ILegalProvider legalService = this.factory.create(this.headers);
@@ -141,24 +157,53 @@ public class LegalServiceImpl implements ILegalService {
         }
     }
 
-    private boolean isInCache(Set<String> legalTagNames) {
+    /**
+     * Returns the tags that are neither in the local nor in the shared cache. Tags known to be invalid fail
+     * immediately. As before, tags that could not be looked up because of a cache error are considered valid.
+     */
+    private Set<String> getUncachedLegalTags(Set<String> legalTagNames) {
+        String partitionId = this.headers.getPartitionId();
+        List<String> locallyUncached = new ArrayList<>();
+        for (String legalTagName : legalTagNames) {
+            Boolean valid = this.localCache == null ? null : this.localCache.isValid(partitionId, legalTagName);
+            if (valid == null) {
+                locallyUncached.add(legalTagName);
+            } else if (!valid) {
+                throw this.invalidLegalTagException(legalTagName);
+            }
+        }
+
+        Set<String> uncached = new HashSet<>();
+        List<String> cached = new ArrayList<>();
         String currentLegalTagName = null;
         try {
-            for (String legalTagName : legalTagNames) {
-                String legalTag = null;
+            for (String legalTagName : locallyUncached) {
                 currentLegalTagName = legalTagName;
-                legalTag = this.cache.get(legalTagName);
-                if (legalTag == null) {
-                    return false;
+                if (this.cache.get(legalTagName) == null) {
+                    uncached.add(legalTagName);
+                } else {
+                    cached.add(legalTagName);
                 }
             }
         } catch (RedisException ex) {
             this.log.error(String.format("Error getting key %s from redis: %s", currentLegalTagName, ex.getMessage()), ex);
         }
-        return true;
+
+        if (this.localCache != null) {
+            this.localCache.putValid(partitionId, cached);
+        }
+        return uncached;
+    }
+
+    private AppException invalidLegalTagException(String legalTagName) {
+        return new AppException(HttpStatus.SC_BAD_REQUEST, "Invalid legal tags",
+                String.format("Invalid legal tags: %s", legalTagName));
     }
 
     private void addToCache(Set<String> legalTagNames) {
+        if (this.localCache != null) {
+            this.localCache.putValid(this.headers.getPartitionId(), legalTagNames);
+        }
         String currentLegalTagName = null;
         try {
             for (String legalTagName : legalTagNames) {
@@ -26,13 +26,23 @@ import org.opengroup.osdu.core.common.storage.IPersistenceService;
 import org.opengroup.osdu.storage.provider.interfaces.ICloudStorage;
 import org.opengroup.osdu.storage.provider.interfaces.IMessageBus;
 import org.opengroup.osdu.storage.provider.interfaces.IRecordsMetadataRepository;
+import org.opengroup.osdu.storage.util.BoundedExecutors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.google.common.collect.Lists;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 @Service
 public class PersistenceServiceImpl implements IPersistenceService {
@@ -52,6 +62,26 @@ public class PersistenceServiceImpl implements IPersistenceService {
 	@Autowired
 	private JaxRsDpsLog logger;
 
+	@Value("${ingestion.pipeline.batch.size:0}")
+	private int pipelineBatchSize;
+
+	@Value("${ingestion.pipeline.thread.count:8}")
+	private int pipelineThreadCount;
+
+	private ExecutorService pipelineExecutor;
+
+	@PostConstruct
+	void init() {
+		if (this.pipelineBatchSize > 0 && this.pipelineThreadCount > 0) {
+			this.pipelineExecutor = BoundedExecutors.newFixedPool("storage-ingestion-pipeline", this.pipelineThreadCount);
+		}
+	}
+
+	@PreDestroy
+	void shutdown() {
+		BoundedExecutors.shutdown(this.pipelineExecutor, 30);
+	}
+
 	@Override
 	public void persistRecordBatch(TransferBatch transfer) {
 
@@ -67,7 +97,11 @@ public class PersistenceServiceImpl implements IPersistenceService {
 			pubsubInfo[i] = new PubSubInfo(recordMetadata.getId(), recordMetadata.getKind(), OperationType.create);
 		}
 
-		this.commitBatch(recordsProcessing, recordsMetadata);
+		if (this.pipelineExecutor != null && recordsProcessing.size() > this.pipelineBatchSize) {
+			this.commitBatchPipelined(recordsProcessing, pubsubInfo);
+		} else {
+			this.commitBatch(recordsProcessing, recordsMetadata);
+		}
 		this.pubSubClient.publishMessage(this.headers, pubsubInfo);
 	}
 
@@ -87,6 +121,83 @@ public class PersistenceServiceImpl implements IPersistenceService {
 		}
 	}
 
+	/**
+	 * Splits the batch in sub-batches and uploads the blobs of sub-batch N+1 while the metadata of sub-batch N is committed.
+	 * On failure, blobs of sub-batches whose metadata was not committed are cleaned up, and the sub-batches that were
+	 * committed are published before the error is rethrown, as those records are persisted.
+	 */
+	private void commitBatchPipelined(List<RecordProcessing> recordsProcessing, PubSubInfo[] pubsubInfo) {
+		List<List<RecordProcessing>> subBatches = Lists.partition(recordsProcessing, this.pipelineBatchSize);
+
+		int committed = 0;
+		int submitted = 0;
+		Future<?> pendingWrite = this.writeAsync(subBatches.get(0));
+		try {
+			for (int i = 0; i < subBatches.size(); i++) {
+				this.awaitWrite(pendingWrite);
+				pendingWrite = null;
+				if (i + 1 < subBatches.size()) {
+					pendingWrite = this.writeAsync(subBatches.get(i + 1));
+					submitted = i + 1;
+				}
+
+				List<RecordMetadata> recordsMetadata = new ArrayList<>(subBatches.get(i).size());
+				subBatches.get(i).forEach(processing -> recordsMetadata.add(processing.getRecordMetadata()));
+				this.commitDatastoreTransaction(recordsMetadata);
+				committed++;
+			}
+		} catch (RuntimeException e) {
+			// not only AppException: metadata of earlier sub-batches is committed and must be published whatever failed
+			this.awaitQuietly(pendingWrite);
+			for (int i = committed; i <= submitted; i++) {
+				try {
+					this.tryCleanupCloudStorage(subBatches.get(i));
+				} catch (RuntimeException innerException) {
+					e.addSuppressed(innerException);
+				}
+			}
+
+			int committedRecords = Math.min(committed * this.pipelineBatchSize, pubsubInfo.length);
+			if (committedRecords > 0) {
+				this.pubSubClient.publishMessage(this.headers, Arrays.copyOf(pubsubInfo, committedRecords));
+			}
+			throw e;
+		}
+	}
+
+	private Future<?> writeAsync(List<RecordProcessing> recordsProcessing) {
+		return this.pipelineExecutor.submit(BoundedExecutors.withRequestContext(() -> this.commitCloudStorageTransaction(recordsProcessing)));
+	}
+
+	private void awaitWrite(Future<?> write) {
+		try {
+			write.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, "Error writing record.",
+					"The server could not process your request at the moment.", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, "Error writing record.",
+					"The server could not process your request at the moment.", e);
+		}
+	}
+
+	private void awaitQuietly(Future<?> write) {
+		if (write == null) {
+			return;
+		}
+		try {
+			write.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			// the write failed, whatever was stored is cleaned up by the caller
+		}
+	}
+
 	@Override
 	public List<String> updateMetadata(List<RecordMetadata> recordMetadata, List<String> recordsId, Map<String, String> recordsIdMap) {
 		Map<String, Acl> originalAcls = new HashMap<>();
@@ -28,8 +28,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.google.common.base.Strings;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
 import org.opengroup.osdu.storage.logging.StorageAuditLogger;
 import org.opengroup.osdu.core.common.model.storage.Record;
 import org.opengroup.osdu.core.common.model.storage.RecordMetadata;
@@ -38,6 +36,7 @@ import org.opengroup.osdu.core.common.model.storage.RecordVersions;
 import org.opengroup.osdu.core.common.storage.PersistenceHelper;
 import org.opengroup.osdu.storage.provider.interfaces.ICloudStorage;
 import org.opengroup.osdu.storage.provider.interfaces.IRecordsMetadataRepository;
+import org.opengroup.osdu.storage.util.RecordAssembler;
 import org.opengroup.osdu.core.common.model.http.AppException;
 
 @Service
@@ -179,14 +178,7 @@ public class QueryServiceImpl implements QueryService {
 
 		List<String> validAttributes = PersistenceHelper.getValidRecordAttributes(attributes);
 
-		JsonElement jsonRecord = new JsonParser().parse(blob);
-
-		// Filter out data sub properties
-		if (!validAttributes.isEmpty()) {
-			jsonRecord = PersistenceHelper.filterRecordDataFields(jsonRecord, validAttributes);
-		}
-
-		return PersistenceHelper.combineRecordMetaDataAndRecordData(jsonRecord, recordMetadata, version);
+		return RecordAssembler.assemble(blob, recordMetadata, version, validAttributes);
 
 	}
 }
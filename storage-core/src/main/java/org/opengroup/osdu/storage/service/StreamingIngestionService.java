@@ -0,0 +1,220 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Strings;
+import org.apache.http.HttpStatus;
+import org.opengroup.osdu.core.common.logging.JaxRsDpsLog;
+import org.opengroup.osdu.core.common.model.http.AppException;
+import org.opengroup.osdu.core.common.model.storage.Record;
+import org.opengroup.osdu.core.common.model.storage.TransferInfo;
+import org.opengroup.osdu.core.common.model.storage.validation.ValidationDoc;
+import org.opengroup.osdu.core.common.storage.IngestionService;
+import org.opengroup.osdu.storage.mapper.CreateUpdateRecordsResponseMapper;
+import org.opengroup.osdu.storage.response.CreateUpdateRecordsResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Creates or updates the records of a JSON array read incrementally from a request body. The body, at most
+ * {@code ingestion.stream.max.bytes}, is spooled to a temporary file and read twice: every record is validated before
+ * any is stored, then records are handed to the ingestion service in chunks, so only one chunk is held in memory.
+ * A record rejected by the ingestion service itself still fails the request after the previous chunks were stored;
+ * the error then tells how many were.
+ */
+@Service
+public class StreamingIngestionService {
+
+    private static final String SPOOL_FILE_PREFIX = "storage-records-";
+    private static final int SPOOL_BUFFER_SIZE = 64 * 1024;
+
+    @Value("${ingestion.stream.chunk.size:50}")
+    private int chunkSize;
+
+    @Value("${ingestion.stream.max.records:500}")
+    private int maxRecords;
+
+    @Value("${ingestion.stream.max.bytes:104857600}")
+    private long maxBytes;
+
+    @Autowired
+    private IngestionService ingestionService;
+
+    @Autowired
+    private CreateUpdateRecordsResponseMapper createUpdateRecordsResponseMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JaxRsDpsLog logger;
+
+    public CreateUpdateRecordsResponse createUpdateRecords(InputStream body, boolean skipDupes, String user) {
+        Path file = this.spool(body);
+        try {
+            // ids are tracked across chunks, the ingestion service only detects duplicates within a chunk
+            Set<String> ids = new HashSet<>();
+            int count = this.readRecords(file, record -> this.validate(record, ids));
+            if (count == 0) {
+                throw new AppException(HttpStatus.SC_BAD_REQUEST, "Validation error.", "The records must not be empty");
+            }
+
+            CreateUpdateRecordsResponse response = new CreateUpdateRecordsResponse();
+            response.setRecordCount(0);
+            response.setSkippedRecordIds(new ArrayList<>());
+            List<Record> chunk = new ArrayList<>();
+            this.readRecords(file, record -> {
+                chunk.add(record);
+                if (chunk.size() >= Math.max(1, this.chunkSize)) {
+                    this.ingest(new ArrayList<>(chunk), skipDupes, user, response);
+                    chunk.clear();
+                }
+            });
+            if (!chunk.isEmpty()) {
+                this.ingest(chunk, skipDupes, user, response);
+            }
+            return response;
+        } finally {
+            this.deleteSpoolFile(file);
+        }
+    }
+
+    private Path spool(InputStream body) {
+        Path file = null;
+        boolean stored = false;
+        try (InputStream in = body) {
+            file = Files.createTempFile(SPOOL_FILE_PREFIX, ".json");
+            try (OutputStream out = Files.newOutputStream(file)) {
+                byte[] buffer = new byte[SPOOL_BUFFER_SIZE];
+                long size = 0;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    if (size > this.maxBytes) {
+                        throw new AppException(HttpStatus.SC_REQUEST_TOO_LONG, "Request too large",
+                                String.format("The records exceed the maximum of %d bytes", this.maxBytes));
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            stored = true;
+            return file;
+        } catch (IOException e) {
+            throw new AppException(HttpStatus.SC_BAD_REQUEST, "Invalid records",
+                    "The records could not be read from the request: " + e.getMessage(), e);
+        } finally {
+            if (!stored && file != null) {
+                this.deleteSpoolFile(file);
+            }
+        }
+    }
+
+    private int readRecords(Path file, Consumer<Record> consumer) {
+        int count = 0;
+        try (JsonParser parser = this.objectMapper.getFactory().createParser(file.toFile())) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new AppException(HttpStatus.SC_BAD_REQUEST, "Invalid records", "The records must be a JSON array");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                if (++count > this.maxRecords) {
+                    throw new AppException(HttpStatus.SC_BAD_REQUEST, "Validation error.", ValidationDoc.RECORDS_MAX);
+                }
+                consumer.accept(this.objectMapper.readValue(parser, Record.class));
+            }
+            if (parser.getCurrentToken() != JsonToken.END_ARRAY) {
+                throw new AppException(HttpStatus.SC_BAD_REQUEST, "Invalid records", "The records must be JSON objects");
+            }
+        } catch (IOException e) {
+            throw new AppException(HttpStatus.SC_BAD_REQUEST, "Invalid records",
+                    "The records could not be read from the request: " + e.getMessage(), e);
+        }
+        return count;
+    }
+
+    private void deleteSpoolFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            this.logger.warning(String.format("Could not delete records spool file %s", file));
+        }
+    }
+
+    private void validate(Record record, Set<String> ids) {
+        Set<ConstraintViolation<Record>> violations = this.validator.validate(record);
+        if (!violations.isEmpty()) {
+            throw new AppException(HttpStatus.SC_BAD_REQUEST, "Validation error.", violations.iterator().next().getMessage());
+        }
+        if (Strings.isNullOrEmpty(record.getKind())) {
+            throw new AppException(HttpStatus.SC_BAD_REQUEST, "Bad request", "Must have valid kind");
+        }
+        if (!record.getKind().matches(ValidationDoc.KIND_REGEX)) {
+            throw new AppException(HttpStatus.SC_BAD_REQUEST, "Invalid kind",
+                    String.format("Invalid kind: '%s', does not follow the required naming convention", record.getKind()));
+        }
+        if (!Strings.isNullOrEmpty(record.getId()) && !ids.add(record.getId())) {
+            throw new AppException(HttpStatus.SC_BAD_REQUEST, "Bad request",
+                    "Cannot update the same record multiple times in the same request. Id: " + record.getId());
+        }
+    }
+
+    private void ingest(List<Record> chunk, boolean skipDupes, String user, CreateUpdateRecordsResponse response) {
+        TransferInfo transfer;
+        try {
+            transfer = this.ingestionService.createUpdateRecords(skipDupes, chunk, user);
+        } catch (AppException e) {
+            int processed = response.getRecordCount();
+            if (processed == 0) {
+                throw e;
+            }
+            throw new AppException(e.getError().getCode(), e.getError().getReason(), String.format(
+                    "%s. The first %d records of the request were already processed", e.getError().getMessage(), processed), e);
+        }
+        CreateUpdateRecordsResponse chunkResponse = this.createUpdateRecordsResponseMapper.map(transfer, chunk);
+
+        response.setRecordCount(response.getRecordCount() + chunkResponse.getRecordCount());
+        if (chunkResponse.getSkippedRecordIds() != null) {
+            response.getSkippedRecordIds().addAll(chunkResponse.getSkippedRecordIds());
+        }
+        if (chunkResponse.getRecordIds() != null) {
+            if (response.getRecordIds() == null) {
+                response.setRecordIds(new ArrayList<>());
+                response.setRecordIdVersions(new ArrayList<>());
+            }
+            response.getRecordIds().addAll(chunkResponse.getRecordIds());
+            response.getRecordIdVersions().addAll(chunkResponse.getRecordIdVersions());
+        }
+    }
+}
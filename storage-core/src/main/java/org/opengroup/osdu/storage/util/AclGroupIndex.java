@@ -0,0 +1,55 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.opengroup.osdu.storage.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.opengroup.osdu.core.common.model.entitlements.Groups;
+
+/**
+ * Answers whether the user is a member of the group an ACL entry refers to. Answers are memoized per ACL entry,
+ * so checking a batch of records sharing the same ACLs only asks {@link Groups} once per distinct entry.
+ * Instances are not thread safe and are meant to live for a single access check.
+ */
+public final class AclGroupIndex {
+
+    private final Groups groups;
+    private final Map<String, Boolean> memberships = new HashMap<>();
+
+    public AclGroupIndex(Groups groups) {
+        this.groups = groups;
+    }
+
+    public boolean isMember(String aclEntry) {
+        Boolean member = this.memberships.get(aclEntry);
+        if (member == null) {
+            int separator = aclEntry.indexOf('@');
+            member = this.groups.any(separator < 0 ? aclEntry : aclEntry.substring(0, separator));
+            this.memberships.put(aclEntry, member);
+        }
+        return member;
+    }
+
+    public boolean isMemberOfAny(String[] aclEntries) {
+        for (String aclEntry : aclEntries) {
+            if (this.isMember(aclEntry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,128 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.util;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public final class BoundedExecutors {
+
+    private static final int QUEUE_CAPACITY_PER_THREAD = 64;
+
+    private BoundedExecutors() {
+    }
+
+    /**
+     * Fixed size pool with a bounded queue. When the queue is full the submitting thread runs the task itself,
+     * which throttles callers instead of rejecting work.
+     */
+    public static ExecutorService newFixedPool(String name, int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(threads * QUEUE_CAPACITY_PER_THREAD),
+                new ThreadFactoryBuilder().setNameFormat(name + "-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public static void shutdown(ExecutorService executor, long timeoutSeconds) {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Binds the caller's request attributes to the thread running the task, so request scoped beans such as
+     * DpsHeaders resolve the same way they do on the request thread.
+     */
+    public static <T> Callable<T> withRequestContext(Callable<T> task) {
+        return withRequestContext(RequestContextHolder.getRequestAttributes(), task);
+    }
+
+    public static <T> Callable<T> withRequestContext(RequestAttributes attributes, Callable<T> task) {
+        return () -> {
+            RequestAttributes previous = RequestContextHolder.getRequestAttributes();
+            RequestContextHolder.setRequestAttributes(attributes);
+            try {
+                return task.call();
+            } finally {
+                if (previous == null) {
+                    RequestContextHolder.resetRequestAttributes();
+                } else {
+                    RequestContextHolder.setRequestAttributes(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Request attributes backed by a snapshot of the caller's request, for background work that outlives the
+     * request. Request scoped beans already created keep resolving to the same instances. The caller completes the
+     * returned attributes once the work is done. Returns null outside of a request.
+     */
+    public static ServletRequestAttributes detachRequestContext() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        return new ServletRequestAttributes(new DetachedHttpServletRequest(((ServletRequestAttributes) attributes).getRequest()));
+    }
+
+    /**
+     * Same as {@link #detachRequestContext()}, with {@code headers} replacing the caller's headers. Request scoped
+     * beans are not carried over, so DpsHeaders and the beans depending on it are created again from the new headers.
+     */
+    public static ServletRequestAttributes detachRequestContext(Map<String, String> headers) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        return new ServletRequestAttributes(new DetachedHttpServletRequest(((ServletRequestAttributes) attributes).getRequest(), headers));
+    }
+
+    public static Runnable withRequestContext(Runnable task) {
+        Callable<Void> callable = withRequestContext(() -> {
+            task.run();
+            return null;
+        });
+        return () -> {
+            try {
+                callable.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+}
@@ -0,0 +1,125 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.util;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * Copy of the headers, attributes and request line of a request, taken while the request is still active.
+ * Other calls are delegated to the original request and must not be relied upon once it completed.
+ */
+final class DetachedHttpServletRequest extends HttpServletRequestWrapper {
+
+    private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private final String method;
+    private final String requestURI;
+    private final String remoteAddr;
+
+    DetachedHttpServletRequest(HttpServletRequest request) {
+        this(request, null);
+    }
+
+    /**
+     * With {@code headerOverrides} set, those headers replace the ones of the request and the request attributes,
+     * which hold the request scoped beans, are not copied.
+     */
+    DetachedHttpServletRequest(HttpServletRequest request, Map<String, String> headerOverrides) {
+        super(request);
+        Enumeration<String> headerNames = request.getHeaderNames();
+        while (headerNames != null && headerNames.hasMoreElements()) {
+            String name = headerNames.nextElement();
+            this.headers.put(name, Collections.list(request.getHeaders(name)));
+        }
+        if (headerOverrides != null) {
+            headerOverrides.forEach((name, value) -> this.headers.put(name, Collections.singletonList(value)));
+        }
+        Enumeration<String> attributeNames = headerOverrides == null ? request.getAttributeNames() : null;
+        while (attributeNames != null && attributeNames.hasMoreElements()) {
+            String name = attributeNames.nextElement();
+            Object value = request.getAttribute(name);
+            if (value != null) {
+                this.attributes.put(name, value);
+            }
+        }
+        this.method = request.getMethod();
+        this.requestURI = request.getRequestURI();
+        this.remoteAddr = request.getRemoteAddr();
+    }
+
+    @Override
+    public String getHeader(String name) {
+        List<String> values = this.headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        List<String> values = this.headers.get(name);
+        return Collections.enumeration(values == null ? Collections.emptyList() : values);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        return Collections.enumeration(this.headers.keySet());
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return this.attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(this.attributes.keySet());
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            this.attributes.remove(name);
+        } else {
+            this.attributes.put(name, value);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        this.attributes.remove(name);
+    }
+
+    @Override
+    public String getMethod() {
+        return this.method;
+    }
+
+    @Override
+    public String getRequestURI() {
+        return this.requestURI;
+    }
+
+    @Override
+    public String getRemoteAddr() {
+        return this.remoteAddr;
+    }
+}
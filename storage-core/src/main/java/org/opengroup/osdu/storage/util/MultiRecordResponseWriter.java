@@ -0,0 +1,65 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.opengroup.osdu.core.common.model.storage.ConversionStatus;
+
+/**
+ * Writes a MultiRecordBatchResponse incrementally: records are emitted as they become available,
+ * notFound, retryRecords and conversionStatuses once the whole batch has been processed.
+ * The generator is not auto-completed on close, so a response aborted half way stays recognizably truncated.
+ */
+public class MultiRecordResponseWriter implements Closeable {
+
+    private final JsonGenerator generator;
+
+    public MultiRecordResponseWriter(JsonGenerator generator) {
+        this.generator = generator;
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+    }
+
+    public void writeStart() throws IOException {
+        this.generator.writeStartObject();
+        this.generator.writeArrayFieldStart("records");
+    }
+
+    public void writeRecord(String record) throws IOException {
+        this.generator.writeRawValue(record);
+    }
+
+    public void flush() throws IOException {
+        this.generator.flush();
+    }
+
+    public void writeEnd(List<String> notFound, List<String> retryRecords, List<ConversionStatus> conversionStatuses) throws IOException {
+        this.generator.writeEndArray();
+        this.generator.writeObjectField("notFound", notFound);
+        this.generator.writeObjectField("retryRecords", retryRecords);
+        this.generator.writeObjectField("conversionStatuses", conversionStatuses);
+        this.generator.writeEndObject();
+        this.generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.generator.close();
+    }
+}
@@ -0,0 +1,325 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.util;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.apache.http.HttpStatus;
+import org.opengroup.osdu.core.common.model.http.AppException;
+import org.opengroup.osdu.core.common.model.storage.RecordMetadata;
+import org.opengroup.osdu.core.common.storage.PersistenceHelper;
+
+/**
+ * Builds the client representation of a record from its stored blob and metadata in a single pass over the blob.
+ * Produces the same document as parsing the blob, filtering it with PersistenceHelper.filterRecordDataFields and
+ * merging it with PersistenceHelper.combineRecordMetaDataAndRecordDataIntoJsonObject, without building the tree.
+ * Unfiltered records are not tokenized at all: the stored members are copied verbatim and only the envelope is
+ * serialized.
+ */
+public final class RecordAssembler {
+
+    private static final String DATA = "data";
+    private static final String LITERAL_TERMINATORS = ",}] \t\r\n";
+
+    private RecordAssembler() {
+    }
+
+    public static String assemble(String blob, RecordMetadata metadata, Long version, List<String> attributes) {
+        JsonObject envelope = getEnvelope(metadata, version);
+        boolean filter = attributes != null && !attributes.isEmpty();
+        String record = filter ? null : passThrough(blob, envelope);
+        if (record != null) {
+            return record;
+        }
+
+        StringWriter out = new StringWriter(blob.length() + 512);
+        try {
+            write(blob, envelope, attributes, out);
+        } catch (IOException e) {
+            throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, "Error reading record",
+                    String.format("The record '%s' could not be read", metadata.getId()), e);
+        }
+        return out.toString();
+    }
+
+    public static void assemble(String blob, RecordMetadata metadata, Long version, List<String> attributes, Writer writer)
+            throws IOException {
+        JsonObject envelope = getEnvelope(metadata, version);
+        boolean filter = attributes != null && !attributes.isEmpty();
+        String record = filter ? null : passThrough(blob, envelope);
+        if (record != null) {
+            writer.write(record);
+            writer.flush();
+        } else {
+            write(blob, envelope, attributes, writer);
+        }
+    }
+
+    private static void write(String blob, JsonObject envelope, List<String> attributes, Writer writer) throws IOException {
+        boolean filter = attributes != null && !attributes.isEmpty();
+        JsonReader in = new JsonReader(new StringReader(blob));
+        in.setLenient(true);
+        JsonWriter out = new JsonWriter(writer);
+        out.setLenient(true);
+
+        in.beginObject();
+        out.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (envelope.has(name)) {
+                in.skipValue();
+            } else if (filter && DATA.equals(name) && in.peek() == JsonToken.BEGIN_OBJECT) {
+                out.name(name);
+                writeFilteredData(in, out, attributes);
+            } else {
+                out.name(name);
+                copy(in, out);
+            }
+        }
+        in.endObject();
+
+        for (Map.Entry<String, JsonElement> member : envelope.entrySet()) {
+            out.name(member.getKey());
+            out.jsonValue(member.getValue().toString());
+        }
+        out.endObject();
+        out.flush();
+    }
+
+    private static JsonObject getEnvelope(RecordMetadata metadata, Long version) {
+        return PersistenceHelper.combineRecordMetaDataAndRecordDataIntoJsonObject(new JsonObject(), metadata, version);
+    }
+
+    /**
+     * Copies every top-level member of the blob that is not part of the envelope verbatim, only locating where each
+     * value ends. Returns null when the blob contains something the scanner does not handle, such as escaped member
+     * names, so the caller can fall back to the tokenizing path.
+     */
+    static String passThrough(String blob, JsonObject envelope) {
+        int length = blob.length();
+        StringBuilder out = new StringBuilder(length + 512);
+        out.append('{');
+        boolean first = true;
+
+        int i = skipWhitespace(blob, 0);
+        if (i >= length || blob.charAt(i) != '{') {
+            return null;
+        }
+        i = skipWhitespace(blob, i + 1);
+        if (i < length && blob.charAt(i) == '}') {
+            i++;
+        } else {
+            while (true) {
+                int nameStart = i;
+                int nameEnd = skipString(blob, nameStart);
+                if (nameEnd < 0 || blob.substring(nameStart, nameEnd).indexOf('\\') >= 0) {
+                    return null;
+                }
+                i = skipWhitespace(blob, nameEnd);
+                if (i >= length || blob.charAt(i) != ':') {
+                    return null;
+                }
+                int valueStart = skipWhitespace(blob, i + 1);
+                int valueEnd = skipValue(blob, valueStart);
+                if (valueEnd < 0) {
+                    return null;
+                }
+                if (!envelope.has(blob.substring(nameStart + 1, nameEnd - 1))) {
+                    if (!first) {
+                        out.append(',');
+                    }
+                    out.append(blob, nameStart, nameEnd).append(':').append(blob, valueStart, valueEnd);
+                    first = false;
+                }
+
+                i = skipWhitespace(blob, valueEnd);
+                if (i < length && blob.charAt(i) == ',') {
+                    i = skipWhitespace(blob, i + 1);
+                } else if (i < length && blob.charAt(i) == '}') {
+                    i++;
+                    break;
+                } else {
+                    return null;
+                }
+            }
+        }
+        if (skipWhitespace(blob, i) != length) {
+            return null;
+        }
+
+        for (Map.Entry<String, JsonElement> member : envelope.entrySet()) {
+            if (!first) {
+                out.append(',');
+            }
+            out.append(new JsonPrimitive(member.getKey())).append(':').append(member.getValue());
+            first = false;
+        }
+        return out.append('}').toString();
+    }
+
+    private static int skipWhitespace(String json, int i) {
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipString(String json, int i) {
+        if (i >= json.length() || json.charAt(i) != '"') {
+            return -1;
+        }
+        for (int j = i + 1; j < json.length(); j++) {
+            char c = json.charAt(j);
+            if (c == '\\') {
+                j++;
+            } else if (c == '"') {
+                return j + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipValue(String json, int i) {
+        if (i >= json.length()) {
+            return -1;
+        }
+        char c = json.charAt(i);
+        if (c == '"') {
+            return skipString(json, i);
+        }
+        if (c == '{' || c == '[') {
+            int depth = 0;
+            while (i < json.length()) {
+                c = json.charAt(i);
+                if (c == '"') {
+                    i = skipString(json, i);
+                    if (i < 0) {
+                        return -1;
+                    }
+                    continue;
+                }
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                    if (depth == 0) {
+                        return i + 1;
+                    }
+                }
+                i++;
+            }
+            return -1;
+        }
+        int start = i;
+        while (i < json.length() && LITERAL_TERMINATORS.indexOf(json.charAt(i)) < 0) {
+            i++;
+        }
+        return i == start ? -1 : i;
+    }
+
+    private static void writeFilteredData(JsonReader in, JsonWriter out, List<String> attributes) throws IOException {
+        Set<String> roots = new HashSet<>();
+        for (String attribute : attributes) {
+            roots.add(attribute.split("\\.", 2)[0]);
+        }
+
+        Map<String, JsonElement> values = new HashMap<>();
+        JsonParser parser = new JsonParser();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (roots.contains(name)) {
+                values.put(name, parser.parse(in));
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        Set<String> written = new HashSet<>();
+        out.beginObject();
+        for (String attribute : attributes) {
+            JsonElement value = resolve(values, attribute);
+            if (value != null && written.add(attribute)) {
+                out.name(attribute);
+                out.jsonValue(value.toString());
+            }
+        }
+        out.endObject();
+    }
+
+    private static JsonElement resolve(Map<String, JsonElement> values, String attribute) {
+        String[] path = attribute.split("\\.");
+        JsonElement current = values.get(path[0]);
+        for (int i = 1; i < path.length && current != null; i++) {
+            current = current.isJsonObject() ? current.getAsJsonObject().get(path[i]) : null;
+        }
+        return current;
+    }
+
+    static void copy(JsonReader in, JsonWriter out) throws IOException {
+        switch (in.peek()) {
+            case BEGIN_ARRAY:
+                in.beginArray();
+                out.beginArray();
+                while (in.hasNext()) {
+                    copy(in, out);
+                }
+                in.endArray();
+                out.endArray();
+                break;
+            case BEGIN_OBJECT:
+                in.beginObject();
+                out.beginObject();
+                while (in.hasNext()) {
+                    out.name(in.nextName());
+                    copy(in, out);
+                }
+                in.endObject();
+                out.endObject();
+                break;
+            case STRING:
+                out.value(in.nextString());
+                break;
+            case NUMBER:
+                out.jsonValue(in.nextString());
+                break;
+            case BOOLEAN:
+                out.value(in.nextBoolean());
+                break;
+            case NULL:
+                in.nextNull();
+                out.nullValue();
+                break;
+            default:
+                throw new IllegalStateException("Unexpected token " + in.peek());
+        }
+    }
+}
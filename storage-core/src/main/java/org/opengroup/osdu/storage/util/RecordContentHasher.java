@@ -0,0 +1,38 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.opengroup.osdu.storage.util;
+
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import org.opengroup.osdu.core.common.model.storage.RecordData;
+
+public final class RecordContentHasher {
+
+    private static final Gson GSON = new Gson();
+
+    private RecordContentHasher() {
+    }
+
+    /**
+     * Hash of the record content as it is written to the blob, so identical submissions of a record produce
+     * the same value.
+     */
+    public static String hash(RecordData recordData) {
+        return Hashing.sha256().hashString(GSON.toJson(recordData), StandardCharsets.UTF_8).toString();
+    }
+}
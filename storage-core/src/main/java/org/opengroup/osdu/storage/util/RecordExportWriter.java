@@ -0,0 +1,86 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.util;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes exported records as newline delimited JSON, one record per line, followed by a trailer line
+ * {@code {"@export":{"cursor":...,"recordCount":...,"retryRecords":[...]}}} holding the cursor to resume the export
+ * from. A response whose last line is not the trailer was aborted half way; records still buffered when the writer
+ * is closed without a trailer are dropped rather than flushed.
+ */
+public class RecordExportWriter implements Closeable {
+
+    public static final String TRAILER_FIELD = "@export";
+
+    private final Writer writer;
+    private final ObjectMapper objectMapper;
+    private final UnaryOperator<String> cursorEncoder;
+
+    private boolean completed;
+
+    public RecordExportWriter(OutputStream out, ObjectMapper objectMapper, UnaryOperator<String> cursorEncoder) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.objectMapper = objectMapper;
+        this.cursorEncoder = cursorEncoder;
+    }
+
+    public void writeRecord(String record) throws IOException {
+        // raw line breaks can only be insignificant whitespace copied from the stored blob
+        if (record.indexOf('\n') >= 0 || record.indexOf('\r') >= 0) {
+            record = record.replace('\n', ' ').replace('\r', ' ');
+        }
+        this.writer.write(record);
+        this.writer.write('\n');
+    }
+
+    public void flush() throws IOException {
+        this.writer.flush();
+    }
+
+    public void writeEnd(String cursor, int recordCount, List<String> retryRecords) throws IOException {
+        Map<String, Object> export = new LinkedHashMap<>();
+        export.put("cursor", this.cursorEncoder.apply(cursor));
+        export.put("recordCount", recordCount);
+        export.put("retryRecords", retryRecords);
+        Map<String, Object> trailer = new LinkedHashMap<>();
+        trailer.put(TRAILER_FIELD, export);
+        this.writer.write(this.objectMapper.writeValueAsString(trailer));
+        this.writer.write('\n');
+        this.writer.flush();
+        this.completed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // the underlying stream is owned by the caller and is not closed
+        if (this.completed) {
+            this.writer.flush();
+        }
+    }
+}
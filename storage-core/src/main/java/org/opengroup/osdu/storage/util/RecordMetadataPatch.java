@@ -0,0 +1,163 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.http.HttpStatus;
+import org.opengroup.osdu.core.common.model.entitlements.Acl;
+import org.opengroup.osdu.core.common.model.http.AppException;
+import org.opengroup.osdu.core.common.model.legal.Legal;
+import org.opengroup.osdu.core.common.model.storage.PatchOperation;
+import org.opengroup.osdu.core.common.model.storage.RecordMetadata;
+
+/**
+ * Patch operations compiled once per request into mutations of the {@link RecordMetadata} fields they target, so
+ * applying them to every record of a bulk update does not go through a JSON representation of the metadata.
+ * Operations on paths that do not map to a metadata field are ignored.
+ */
+public final class RecordMetadataPatch {
+
+    private static final String PATCH_OPERATION_ADD = "add";
+    private static final String PATCH_OPERATION_REPLACE = "replace";
+    private static final String PATCH_OPERATION_REMOVE = "remove";
+    private static final String TAGS_PATH = "/tags";
+    private static final String LEGAL_PATH = "/legal";
+    private static final String ACL_PATH = "/acl";
+    private static final String ACL = "acl";
+    private static final String LEGAL_TAGS = "legaltags";
+    private static final String VIEWERS = "viewers";
+    private static final String OWNERS = "owners";
+    private static final String ERROR_MSG = "Cannot delete";
+    private static final String ERROR_REASON = "Cannot remove all ";
+
+    private final List<Consumer<RecordMetadata>> mutations;
+
+    private RecordMetadataPatch(List<Consumer<RecordMetadata>> mutations) {
+        this.mutations = mutations;
+    }
+
+    public static RecordMetadataPatch compile(List<PatchOperation> ops) {
+        List<Consumer<RecordMetadata>> mutations = new ArrayList<>(ops.size());
+        for (PatchOperation op : ops) {
+            String path = op.getPath();
+            if (path.startsWith(TAGS_PATH)) {
+                mutations.add(compileTags(op));
+            } else if (path.startsWith(LEGAL_PATH) && path.toLowerCase().endsWith("/" + LEGAL_TAGS)) {
+                mutations.add(compileValues(op, LEGAL_TAGS, RecordMetadataPatch::getLegalTags,
+                        (metadata, values) -> getLegal(metadata).setLegaltags(new LinkedHashSet<>(values))));
+            } else if (path.startsWith(ACL_PATH) && path.toLowerCase().endsWith("/" + VIEWERS)) {
+                mutations.add(compileValues(op, ACL + " " + VIEWERS,
+                        metadata -> asList(getAcl(metadata).getViewers()),
+                        (metadata, values) -> getAcl(metadata).setViewers(values.toArray(new String[0]))));
+            } else if (path.startsWith(ACL_PATH) && path.toLowerCase().endsWith("/" + OWNERS)) {
+                mutations.add(compileValues(op, ACL + " " + OWNERS,
+                        metadata -> asList(getAcl(metadata).getOwners()),
+                        (metadata, values) -> getAcl(metadata).setOwners(values.toArray(new String[0]))));
+            }
+        }
+        return new RecordMetadataPatch(mutations);
+    }
+
+    public void apply(RecordMetadata recordMetadata) {
+        for (Consumer<RecordMetadata> mutation : this.mutations) {
+            mutation.accept(recordMetadata);
+        }
+    }
+
+    private static Consumer<RecordMetadata> compileTags(PatchOperation op) {
+        if (PATCH_OPERATION_ADD.equals(op.getOp()) || PATCH_OPERATION_REPLACE.equals(op.getOp())) {
+            Map<String, String> newTags = new HashMap<>();
+            for (String value : op.getValue()) {
+                String[] tagsPair = value.split(":");
+                newTags.put(tagsPair[0], tagsPair[1]);
+            }
+            return metadata -> metadata.getTags().putAll(newTags);
+        } else if (PATCH_OPERATION_REMOVE.equals(op.getOp())) {
+            List<String> keys = Arrays.asList(op.getValue());
+            return metadata -> keys.forEach(metadata.getTags()::remove);
+        }
+        return metadata -> { };
+    }
+
+    private static Consumer<RecordMetadata> compileValues(PatchOperation op, String errorPath,
+                                                          Function<RecordMetadata, Iterable<String>> getter,
+                                                          ValuesSetter setter) {
+        List<String> values = asList(op.getValue());
+        switch (op.getOp().toLowerCase()) {
+            case PATCH_OPERATION_ADD:
+                return metadata -> {
+                    Set<String> merged = new LinkedHashSet<>(values);
+                    getter.apply(metadata).forEach(merged::add);
+                    merged.remove(null);
+                    setter.set(metadata, merged);
+                };
+            case PATCH_OPERATION_REPLACE:
+                return metadata -> setter.set(metadata, values);
+            case PATCH_OPERATION_REMOVE:
+                Set<String> removed = new LinkedHashSet<>(values);
+                return metadata -> {
+                    Set<String> remaining = new LinkedHashSet<>();
+                    getter.apply(metadata).forEach(remaining::add);
+                    remaining.removeAll(removed);
+                    //prevent from removing all acl viewers, acl owners or legaltags
+                    if (remaining.isEmpty()) {
+                        throw new AppException(HttpStatus.SC_BAD_REQUEST, ERROR_REASON + errorPath, ERROR_MSG);
+                    }
+                    setter.set(metadata, remaining);
+                };
+            default:
+                return metadata -> { };
+        }
+    }
+
+    private static List<String> asList(String[] values) {
+        return values == null ? Collections.emptyList() : Arrays.asList(values);
+    }
+
+    private static Iterable<String> getLegalTags(RecordMetadata metadata) {
+        Set<String> legalTags = getLegal(metadata).getLegaltags();
+        return legalTags == null ? Collections.emptySet() : legalTags;
+    }
+
+    private static Legal getLegal(RecordMetadata metadata) {
+        if (metadata.getLegal() == null) {
+            metadata.setLegal(new Legal());
+        }
+        return metadata.getLegal();
+    }
+
+    private static Acl getAcl(RecordMetadata metadata) {
+        if (metadata.getAcl() == null) {
+            metadata.setAcl(new Acl());
+        }
+        return metadata.getAcl();
+    }
+
+    @FunctionalInterface
+    private interface ValuesSetter {
+        void set(RecordMetadata metadata, Collection<String> values);
+    }
+}
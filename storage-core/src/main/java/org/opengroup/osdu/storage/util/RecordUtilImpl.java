@@ -14,18 +14,8 @@
 
 package org.opengroup.osdu.storage.util;
 
-import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toMap;
-
 import java.util.*;
-import java.util.stream.Stream;
 
-import com.google.gson.JsonParser;
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.http.HttpStatus;
 import org.opengroup.osdu.core.common.model.http.AppException;
 import org.opengroup.osdu.core.common.model.storage.PatchOperation;
@@ -38,23 +28,10 @@ import org.springframework.stereotype.Component;
 @Component
 public class RecordUtilImpl implements RecordUtil {
 
-    private static final String PATCH_OPERATION_ADD = "add";
-    private static final String PATCH_OPERATION_REPLACE = "replace";
-    private static final String PATCH_OPERATION_REMOVE = "remove";
-    private static final String LEGAL = "legal";
-    private static final String LEGAL_TAGS = "legaltags";
-    private static final String ACL = "acl";
-    private static final String VIEWERS = "viewers";
-    private static final String OWNERS = "owners";
-    private static final String ERROR_MSG = "Cannot delete";
-    private static final String ERROR_REASON = "Cannot remove all ";
-
     private final TenantInfo tenant;
-    private final Gson gson;
 
-    public RecordUtilImpl(TenantInfo tenant, Gson gson) {
+    public RecordUtilImpl(TenantInfo tenant) {
         this.tenant = tenant;
-        this.gson = gson;
     }
 
     @Override
@@ -87,27 +64,13 @@ public class RecordUtilImpl implements RecordUtil {
     @Override
     public RecordMetadata updateRecordMetaDataForPatchOperations(RecordMetadata recordMetadata, List<PatchOperation> ops,
                                                                  String user, long timestamp) {
-        List<PatchOperation> tagOperation = ops.stream()
-                .filter(operation -> operation.getPath().startsWith("/tags"))
-                .collect(toList());
-        if (tagOperation.size() > 0) {
-            updateRecordMetaDataForTags(recordMetadata, tagOperation);
-        }
-
-        List<PatchOperation> legalOperation = ops.stream()
-                .filter(operation -> operation.getPath().startsWith("/legal"))
-                .collect(toList());
-        if (legalOperation.size() > 0) {
-            recordMetadata = updateMetadataForAclAndLegal(recordMetadata, legalOperation);
-        }
-
-        List<PatchOperation> aclOperation = ops.stream()
-                .filter(operation -> operation.getPath().startsWith("/acl"))
-                .collect(toList());
-        if (aclOperation.size() > 0) {
-            recordMetadata = updateMetadataForAclAndLegal(recordMetadata, aclOperation);
-        }
+        return this.updateRecordMetaDataForPatchOperations(recordMetadata, RecordMetadataPatch.compile(ops), user, timestamp);
+    }
 
+    @Override
+    public RecordMetadata updateRecordMetaDataForPatchOperations(RecordMetadata recordMetadata, RecordMetadataPatch patch,
+                                                                 String user, long timestamp) {
+        patch.apply(recordMetadata);
         recordMetadata.setModifyUser(user);
         recordMetadata.setModifyTime(timestamp);
         return recordMetadata;
@@ -118,131 +81,4 @@ public class RecordUtilImpl implements RecordUtil {
                 .filter(Objects::nonNull)
                 .anyMatch(path -> path.endsWith("/" + version));
     }
-
-    private RecordMetadata updateMetadataForAclAndLegal(RecordMetadata recordMetadata, List<PatchOperation> ops) {
-        JsonObject metadata = this.gson.toJsonTree(recordMetadata).getAsJsonObject();
-        String errorPath = "";
-
-        for (PatchOperation op : ops) {
-            String path = op.getPath();
-            String[] pathComponents = path.split("/");
-
-            JsonObject outer = metadata;
-            JsonObject inner = metadata;
-
-            Set<String> oldValues = new HashSet<String>();
-
-            for (int i = 1; i < pathComponents.length - 1; i++) {
-                inner = outer.getAsJsonObject(pathComponents[i]);
-                outer = inner;
-                errorPath = getExistingValuesAndErrorPath(pathComponents, i, oldValues, recordMetadata);
-
-            }
-            JsonArray values = new JsonArray();
-
-            Set<String> newValues = new HashSet<>();
-            newValues.addAll(Arrays.asList(op.getValue()));
-
-            for (String value : op.getValue()) {
-                values.add(value);
-            }
-            executeCorrespondingOperation(op, pathComponents, outer, inner, values, oldValues, newValues, errorPath);
-        }
-        return gson.fromJson(metadata, RecordMetadata.class);
-    }
-
-    private String getExistingValuesAndErrorPath(String[] pathComponents, int i, Set<String> oldValues, RecordMetadata recordMetadata) {
-        switch (pathComponents[i].toLowerCase()) {
-            case LEGAL:
-                if (LEGAL_TAGS.equalsIgnoreCase(pathComponents[pathComponents.length - 1])) {
-                    oldValues.addAll(recordMetadata.getLegal().getLegaltags());
-                    return LEGAL_TAGS;
-                }
-                break;
-            case ACL:
-                switch (pathComponents[pathComponents.length - 1].toLowerCase()) {
-                    case VIEWERS:
-                        oldValues.addAll(Arrays.asList(recordMetadata.getAcl().getViewers()));
-                        return ACL + " " + VIEWERS;
-                    case OWNERS:
-                        oldValues.addAll(Arrays.asList(recordMetadata.getAcl().getOwners()));
-                        return ACL + " " + OWNERS;
-                }
-        }
-        return "";
-    }
-
-    private void executeCorrespondingOperation(PatchOperation op, String[] pathComponents, JsonObject outer,
-                                               JsonObject inner, JsonArray values, Set<String> oldValues,
-                                               Set<String> newValues, String errorPath) {
-        switch (op.getOp().toLowerCase()) {
-            case PATCH_OPERATION_ADD:
-                setOriginalAclAndLegal(pathComponents, outer, values);
-                values = removeDuplicates(values);
-                inner.add(pathComponents[pathComponents.length - 1], values);
-                break;
-            case PATCH_OPERATION_REPLACE:
-                inner.add(pathComponents[pathComponents.length - 1], values);
-                break;
-            case PATCH_OPERATION_REMOVE:
-                patchRemoveForAclAndLegal(oldValues, newValues, errorPath);
-                JsonArray jsonArray = new JsonArray();
-                for (String stringValue : oldValues) {
-                    jsonArray.add(stringValue);
-                }
-                inner.add(pathComponents[pathComponents.length - 1], jsonArray);
-                break;
-        }
-
-    }
-
-
-    private void patchRemoveForAclAndLegal(Set<String> oldValues, Set<String> newValues, String errorPath) {
-        //prevent from removing all acl viewers, acl owners or legaltags
-        oldValues.removeAll(newValues);
-        if (oldValues.isEmpty()) {
-            throw new AppException(HttpStatus.SC_BAD_REQUEST, ERROR_REASON + errorPath, ERROR_MSG);
-        }
-    }
-
-    private JsonArray removeDuplicates(JsonArray values) {
-        Set<String> items = new LinkedHashSet<>();
-        for (JsonElement value : values) {
-            if (!(value.isJsonNull())) {
-                items.add(value.getAsString());
-            }
-        }
-        values = new JsonParser().parse(new Gson().toJson(items)).getAsJsonArray();
-        return values;
-    }
-
-
-    private void setOriginalAclAndLegal(String[] pathComponents, JsonObject outer, JsonArray values) {
-        if (pathComponents[1].equalsIgnoreCase(ACL)) {
-            if (pathComponents[2].equalsIgnoreCase(VIEWERS)) {
-                values.addAll(gson.fromJson(outer.get(VIEWERS), JsonArray.class));
-            } else if (pathComponents[2].equalsIgnoreCase(OWNERS)) {
-                values.addAll(gson.fromJson(outer.get(OWNERS), JsonArray.class));
-            }
-        } else if (pathComponents[1].equalsIgnoreCase(LEGAL)) {
-            values.addAll(gson.fromJson(outer.get(LEGAL_TAGS), JsonArray.class));
-        }
-    }
-
-    private void updateRecordMetaDataForTags(RecordMetadata recordMetadata, List<PatchOperation> ops) {
-        for (PatchOperation operation : ops) {
-            if (PATCH_OPERATION_ADD.equals(operation.getOp()) || PATCH_OPERATION_REPLACE.equals(operation.getOp())) {
-                Map<String, String> newTags = Stream.of(operation.getValue())
-                        .map(value -> {
-                            String[] tagsPair = value.split(":");
-                            return new ImmutablePair<>(tagsPair[0], tagsPair[1]);
-                        })
-                        .collect(toMap(ImmutablePair::getKey, ImmutablePair::getValue));
-                recordMetadata.getTags().putAll(newTags);
-            } else if (PATCH_OPERATION_REMOVE.equals((operation.getOp()))) {
-                Stream.of(operation.getValue())
-                        .forEach(recordMetadata.getTags()::remove);
-            }
-        }
-    }
-}
\ No newline at end of file
+}
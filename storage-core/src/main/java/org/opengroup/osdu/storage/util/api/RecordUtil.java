@@ -16,6 +16,7 @@ package org.opengroup.osdu.storage.util.api;
 
 import org.opengroup.osdu.core.common.model.storage.PatchOperation;
 import org.opengroup.osdu.core.common.model.storage.RecordMetadata;
+import org.opengroup.osdu.storage.util.RecordMetadataPatch;
 
 import java.util.List;
 import java.util.Map;
@@ -28,5 +29,7 @@ public interface RecordUtil {
 
     RecordMetadata updateRecordMetaDataForPatchOperations(RecordMetadata recordMetadata, List<PatchOperation> ops, String user, long timestamp);
 
+    RecordMetadata updateRecordMetaDataForPatchOperations(RecordMetadata recordMetadata, RecordMetadataPatch patch, String user, long timestamp);
+
     boolean hasVersionPath(List<String> gcsVersionPaths, Long version);
 }
\ No newline at end of file
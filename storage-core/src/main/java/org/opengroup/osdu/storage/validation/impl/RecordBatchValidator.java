@@ -0,0 +1,86 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.validation.impl;
+
+import org.apache.http.HttpStatus;
+import org.opengroup.osdu.core.common.model.http.AppException;
+import org.opengroup.osdu.core.common.model.storage.MultiRecordIds;
+import org.opengroup.osdu.core.common.model.storage.MultiRecordRequest;
+import org.opengroup.osdu.storage.validation.api.BatchRequestValidator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import javax.validation.constraints.Size;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the bean validation of batch requests, except for the fixed maximum size of their record list which is
+ * replaced by a configurable limit.
+ */
+@Component
+public class RecordBatchValidator implements BatchRequestValidator {
+
+    private static final String RECORDS = "records";
+
+    private final Validator validator;
+    private final int maxRecords;
+    private final int maxBatchRecords;
+
+    public RecordBatchValidator(Validator validator,
+                                @Value("${query.records.max:1000}") int maxRecords,
+                                @Value("${query.records.batch.max:500}") int maxBatchRecords) {
+        this.validator = validator;
+        this.maxRecords = maxRecords;
+        this.maxBatchRecords = maxBatchRecords;
+    }
+
+    @Override
+    public void validate(MultiRecordIds ids) {
+        this.validate(ids, ids.getRecords(), this.maxRecords);
+    }
+
+    @Override
+    public void validate(MultiRecordRequest request) {
+        this.validate(request, request.getRecords(), this.maxBatchRecords);
+    }
+
+    private <T> void validate(T request, List<String> records, int limit) {
+        List<String> errors = new ArrayList<>();
+        for (ConstraintViolation<T> violation : this.validator.validate(request)) {
+            if (!this.isMaxRecordsViolation(violation, records)) {
+                errors.add(violation.getMessage());
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new AppException(HttpStatus.SC_BAD_REQUEST, "Validation error.", String.join(", ", errors));
+        }
+        if (records != null && records.size() > limit) {
+            throw new AppException(HttpStatus.SC_BAD_REQUEST, "Validation error.",
+                    String.format("Up to %d records can be requested at once", limit));
+        }
+    }
+
+    private boolean isMaxRecordsViolation(ConstraintViolation<?> violation, List<String> records) {
+        Annotation constraint = violation.getConstraintDescriptor().getAnnotation();
+        return constraint instanceof Size
+                && RECORDS.equals(violation.getPropertyPath().toString())
+                && records != null
+                && records.size() > ((Size) constraint).max();
+    }
+}
@@ -22,6 +22,8 @@ import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.apache.http.HttpStatus;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -35,8 +37,11 @@ import org.opengroup.osdu.core.common.model.storage.MultiRecordInfo;
 import org.opengroup.osdu.core.common.model.storage.StorageRole;
 import org.opengroup.osdu.core.common.model.storage.DatastoreQueryResult;
 import org.opengroup.osdu.core.common.model.storage.*;
+import org.opengroup.osdu.storage.request.MultiRecordVersionsRequest;
+import org.opengroup.osdu.storage.response.MultiRecordVersionsResponse;
 import org.opengroup.osdu.storage.service.BatchService;
 import org.opengroup.osdu.storage.util.EncodeDecode;
+import org.opengroup.osdu.storage.validation.api.BatchRequestValidator;
 import org.springframework.http.ResponseEntity;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -50,6 +55,9 @@ public class QueryApiTest {
     @Spy
     private EncodeDecode encodeDecode;
 
+    @Mock
+    private BatchRequestValidator batchRequestValidator;
+
     @InjectMocks
     private QueryApi sut;
 
@@ -154,6 +162,43 @@ public class QueryApiTest {
         assertTrue(annotation.value().contains(StorageRole.ADMIN));
     }
 
+    @Test
+    public void should_allowAccessToStreamedFetchRecords_when_userBelongsToViewerCreatorOrAdminGroups() throws Exception {
+
+        Method method = this.sut.getClass().getMethod("fetchRecordsStream", MultiRecordRequest.class, HttpServletResponse.class);
+        PreAuthorize annotation = method.getAnnotation(PreAuthorize.class);
+
+        assertTrue(annotation.value().contains(StorageRole.VIEWER));
+        assertTrue(annotation.value().contains(StorageRole.CREATOR));
+        assertTrue(annotation.value().contains(StorageRole.ADMIN));
+    }
+
+    @Test
+    public void should_returnHttp200_when_gettingRecordVersionsSuccessfully() {
+        MultiRecordVersionsRequest input = new MultiRecordVersionsRequest();
+        MultiRecordVersionsResponse output = new MultiRecordVersionsResponse();
+        output.getRecords().add("{\"id\":\"id1\",\"version\":1}");
+        output.getNotFound().add("id2");
+
+        when(this.batchService.getMultipleRecordVersions(input)).thenReturn(output);
+
+        ResponseEntity response = this.sut.getRecordVersions(input);
+
+        assertEquals(HttpStatus.SC_OK, response.getStatusCodeValue());
+        assertSame(output, response.getBody());
+    }
+
+    @Test
+    public void should_allowAccessToGetRecordVersions_when_userBelongsToViewerCreatorOrAdminGroups() throws Exception {
+
+        Method method = this.sut.getClass().getMethod("getRecordVersions", MultiRecordVersionsRequest.class);
+        PreAuthorize annotation = method.getAnnotation(PreAuthorize.class);
+
+        assertTrue(annotation.value().contains(StorageRole.VIEWER));
+        assertTrue(annotation.value().contains(StorageRole.CREATOR));
+        assertTrue(annotation.value().contains(StorageRole.ADMIN));
+    }
+
     @Test
     public void should_allowAccessToGetAllKinds_when_userBelongsToCreatorOrAdminGroups() throws Exception {
 
@@ -175,4 +220,15 @@ public class QueryApiTest {
         assertFalse(annotation.value().contains(StorageRole.CREATOR));
         assertTrue(annotation.value().contains(StorageRole.ADMIN));
     }
+
+    @Test
+    public void should_allowAccessToExportRecordsFromKind_when_userBelongsToAdminGroup() throws Exception {
+
+        Method method = this.sut.getClass().getMethod("exportRecords", String.class, Integer.class, String.class, HttpServletResponse.class);
+        PreAuthorize annotation = method.getAnnotation(PreAuthorize.class);
+
+        assertFalse(annotation.value().contains(StorageRole.VIEWER));
+        assertFalse(annotation.value().contains(StorageRole.CREATOR));
+        assertTrue(annotation.value().contains(StorageRole.ADMIN));
+    }
 }
\ No newline at end of file
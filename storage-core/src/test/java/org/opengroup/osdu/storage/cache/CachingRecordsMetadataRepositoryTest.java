@@ -0,0 +1,158 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.cache;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.opengroup.osdu.core.common.model.http.DpsHeaders;
+import org.opengroup.osdu.core.common.model.storage.RecordMetadata;
+import org.opengroup.osdu.core.common.model.storage.RecordState;
+import org.opengroup.osdu.storage.provider.interfaces.IRecordsMetadataRepository;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingRecordsMetadataRepositoryTest {
+
+    @Mock
+    private IRecordsMetadataRepository delegate;
+
+    @Mock
+    private ApplicationContext applicationContext;
+
+    @Mock
+    private DpsHeaders headers;
+
+    @InjectMocks
+    private CachingRecordsMetadataRepository sut;
+
+    @Before
+    public void setup() {
+        ReflectionTestUtils.setField(this.sut, "ttlSeconds", 60);
+        ReflectionTestUtils.setField(this.sut, "maxSize", 100);
+        this.sut.init();
+
+        Map<String, IRecordsMetadataRepository> repositories = new HashMap<>();
+        repositories.put("cachingRecordsMetadataRepository", this.sut);
+        repositories.put("recordsMetadataRepository", this.delegate);
+        when(this.applicationContext.getBeansOfType(IRecordsMetadataRepository.class)).thenReturn(repositories);
+        this.sut.afterSingletonsInstantiated();
+
+        when(this.headers.getPartitionId()).thenReturn("tenant1");
+    }
+
+    @Test
+    public void should_returnCopyFromCache_when_recordWasReadBefore() {
+        when(this.delegate.get("tenant1:doc:1")).thenReturn(this.record("tenant1:doc:1"));
+
+        RecordMetadata first = this.sut.get("tenant1:doc:1");
+        first.setKind("modified");
+        RecordMetadata second = this.sut.get("tenant1:doc:1");
+
+        assertEquals("tenant1:test:doc:1.0.0", second.getKind());
+        assertNotSame(first, second);
+        verify(this.delegate, times(1)).get("tenant1:doc:1");
+        assertEquals(1, this.sut.getHitCount());
+        assertEquals(1, this.sut.getMissCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_onlyFetchMissingIds_when_gettingMultipleRecords() {
+        when(this.delegate.get("tenant1:doc:1")).thenReturn(this.record("tenant1:doc:1"));
+        this.sut.get("tenant1:doc:1");
+
+        Map<String, RecordMetadata> fetched = new HashMap<>();
+        fetched.put("tenant1:doc:2", this.record("tenant1:doc:2"));
+        when(this.delegate.get(Lists.newArrayList("tenant1:doc:2", "tenant1:doc:3"))).thenReturn(fetched);
+
+        Map<String, RecordMetadata> result = this.sut.get(Lists.newArrayList("tenant1:doc:1", "tenant1:doc:2", "tenant1:doc:3"));
+
+        assertEquals(2, result.size());
+        assertNotNull(result.get("tenant1:doc:1"));
+        assertNotNull(result.get("tenant1:doc:2"));
+        verify(this.delegate, times(1)).get(Lists.newArrayList("tenant1:doc:2", "tenant1:doc:3"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_evictRecord_when_recordIsUpdatedOrDeleted() {
+        when(this.delegate.get("tenant1:doc:1")).thenReturn(this.record("tenant1:doc:1"));
+
+        this.sut.get("tenant1:doc:1");
+        this.sut.createOrUpdate(Lists.newArrayList(this.record("tenant1:doc:1")));
+        this.sut.get("tenant1:doc:1");
+        this.sut.delete("tenant1:doc:1");
+        this.sut.get("tenant1:doc:1");
+
+        verify(this.delegate, times(3)).get("tenant1:doc:1");
+        verify(this.delegate, times(1)).delete("tenant1:doc:1");
+    }
+
+    @Test
+    public void should_notShareEntries_when_partitionsDiffer() {
+        when(this.delegate.get("tenant1:doc:1")).thenReturn(this.record("tenant1:doc:1"));
+
+        this.sut.get("tenant1:doc:1");
+        when(this.headers.getPartitionId()).thenReturn("tenant2");
+        this.sut.get("tenant1:doc:1");
+
+        verify(this.delegate, times(2)).get("tenant1:doc:1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_notCacheStaleRecord_when_recordIsUpdatedWhileBeingRead() {
+        RecordMetadata stale = this.record("tenant1:doc:1");
+        RecordMetadata updated = this.record("tenant1:doc:1");
+        updated.setGcsVersionPaths(Lists.newArrayList("tenant1:test:doc:1.0.0/tenant1:doc:1/1", "tenant1:test:doc:1.0.0/tenant1:doc:1/2"));
+        when(this.delegate.get("tenant1:doc:1")).thenAnswer(invocation -> {
+            this.sut.createOrUpdate(Lists.newArrayList(updated));
+            return stale;
+        }).thenReturn(updated);
+
+        this.sut.get("tenant1:doc:1");
+        RecordMetadata second = this.sut.get("tenant1:doc:1");
+
+        assertEquals(2, second.getGcsVersionPaths().size());
+        verify(this.delegate, times(2)).get("tenant1:doc:1");
+    }
+
+    @Test
+    public void should_returnDelegate_when_bypassingCache() {
+        assertSame(this.delegate, CachingRecordsMetadataRepository.uncached(this.sut));
+        assertSame(this.delegate, CachingRecordsMetadataRepository.uncached(this.delegate));
+    }
+
+    private RecordMetadata record(String id) {
+        RecordMetadata recordMetadata = new RecordMetadata();
+        recordMetadata.setId(id);
+        recordMetadata.setKind("tenant1:test:doc:1.0.0");
+        recordMetadata.setStatus(RecordState.active);
+        recordMetadata.setGcsVersionPaths(Lists.newArrayList("tenant1:test:doc:1.0.0/" + id + "/1"));
+        return recordMetadata;
+    }
+}
@@ -0,0 +1,105 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.opengroup.osdu.storage.cache;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.opengroup.osdu.core.common.legal.ILegalFactory;
+import org.opengroup.osdu.core.common.legal.ILegalProvider;
+import org.opengroup.osdu.core.common.logging.JaxRsDpsLog;
+import org.opengroup.osdu.core.common.model.http.DpsHeaders;
+import org.opengroup.osdu.core.common.model.legal.LegalTagProperties;
+import org.opengroup.osdu.core.common.model.tenant.TenantInfo;
+import org.opengroup.osdu.core.common.provider.interfaces.ITenantFactory;
+import org.opengroup.osdu.core.common.util.IServiceAccountJwtClient;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CountryCodesCacheTest {
+
+    @Mock
+    private ILegalFactory factory;
+
+    @Mock
+    private ILegalProvider legalProvider;
+
+    @Mock
+    private ITenantFactory tenantFactory;
+
+    @Mock
+    private IServiceAccountJwtClient jwtClient;
+
+    @Mock
+    private JaxRsDpsLog logger;
+
+    @InjectMocks
+    private CountryCodesCache sut;
+
+    @Test
+    public void should_loadOncePerPartition_when_servingRequests() throws Exception {
+        when(this.factory.create(any(DpsHeaders.class))).thenReturn(this.legalProvider);
+        when(this.legalProvider.getLegalTagProperties()).thenReturn(this.properties("US"), this.properties("FR"));
+
+        Map<String, String> tenant1 = this.sut.get(this.headers("tenant1"));
+        this.sut.get(this.headers("tenant1"));
+        Map<String, String> tenant2 = this.sut.get(this.headers("tenant2"));
+
+        assertTrue(tenant1.containsKey("US"));
+        assertTrue(tenant2.containsKey("FR"));
+        verify(this.legalProvider, times(2)).getLegalTagProperties();
+    }
+
+    @Test
+    public void should_loadEveryTenantWithServiceToken_when_refreshing() throws Exception {
+        TenantInfo tenantInfo = new TenantInfo();
+        tenantInfo.setDataPartitionId("tenant1");
+        when(this.tenantFactory.listTenantInfo()).thenReturn(Collections.singletonList(tenantInfo));
+        when(this.jwtClient.getIdToken("tenant1")).thenReturn("service-token");
+        when(this.factory.create(any(DpsHeaders.class))).thenReturn(this.legalProvider);
+        when(this.legalProvider.getLegalTagProperties()).thenReturn(this.properties("US"));
+
+        this.sut.refresh();
+        Map<String, String> codes = this.sut.get(this.headers("tenant1"));
+
+        assertTrue(codes.containsKey("US"));
+        verify(this.legalProvider, times(1)).getLegalTagProperties();
+        verify(this.jwtClient, times(1)).getIdToken("tenant1");
+    }
+
+    private LegalTagProperties properties(String country) {
+        Map<String, String> countries = new HashMap<>();
+        countries.put(country, country);
+        LegalTagProperties properties = new LegalTagProperties();
+        properties.setOtherRelevantDataCountries(countries);
+        return properties;
+    }
+
+    private DpsHeaders headers(String partitionId) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put(DpsHeaders.DATA_PARTITION_ID, partitionId);
+        return DpsHeaders.createFromMap(headers);
+    }
+}
@@ -0,0 +1,72 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.cache;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.opengroup.osdu.core.common.model.crs.Point;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CrsPointCacheTest {
+
+    @Test
+    public void should_returnCopies_when_allPointsAreCached() {
+        CrsPointCache sut = this.createCache(60);
+        String digest = CrsPointCache.getReferenceDigest("reference");
+        Point converted = this.point(15788.036, 9567.4);
+        sut.put(digest, this.point(16.0, 10.0), converted);
+
+        List<Point> first = sut.getAll(digest, Lists.newArrayList(this.point(16.0, 10.0)));
+        first.get(0).setX(0.0);
+        List<Point> second = sut.getAll(digest, Lists.newArrayList(this.point(16.0, 10.0)));
+
+        assertEquals(15788.036, second.get(0).getX(), 0.0);
+        assertEquals(9567.4, second.get(0).getY(), 0.0);
+        assertNull(sut.getAll(digest, Lists.newArrayList(this.point(16.0, 10.0), this.point(17.0, 10.0))));
+        assertNull(sut.getAll(CrsPointCache.getReferenceDigest("other"), Lists.newArrayList(this.point(16.0, 10.0))));
+        assertEquals(3, sut.getHitCount());
+        assertEquals(2, sut.getMissCount());
+    }
+
+    @Test
+    public void should_neverHit_when_ttlIsZero() {
+        CrsPointCache sut = this.createCache(0);
+        String digest = CrsPointCache.getReferenceDigest("reference");
+        sut.put(digest, this.point(16.0, 10.0), this.point(15788.036, 9567.4));
+
+        assertFalse(sut.isEnabled());
+        assertNull(sut.getAll(digest, Lists.newArrayList(this.point(16.0, 10.0))));
+    }
+
+    private CrsPointCache createCache(int ttlSeconds) {
+        CrsPointCache cache = new CrsPointCache();
+        ReflectionTestUtils.setField(cache, "ttlSeconds", ttlSeconds);
+        ReflectionTestUtils.setField(cache, "maxSize", 100);
+        cache.init();
+        return cache;
+    }
+
+    private Point point(double x, double y) {
+        Point point = new Point();
+        point.setX(x);
+        point.setY(y);
+        point.setZ(0.0);
+        return point;
+    }
+}
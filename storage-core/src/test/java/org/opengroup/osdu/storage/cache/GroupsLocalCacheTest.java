@@ -0,0 +1,97 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.opengroup.osdu.storage.cache;
+
+import org.junit.Test;
+import org.opengroup.osdu.core.common.model.entitlements.Groups;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class GroupsLocalCacheTest {
+
+    @Test
+    public void should_loadOnce_when_concurrentCallsMissTheSameKey() throws Exception {
+        GroupsLocalCache sut = this.createCache(60);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        Groups groups = new Groups();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Groups>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> sut.get("key", () -> {
+                    loads.incrementAndGet();
+                    loading.await();
+                    return groups;
+                })));
+            }
+            Thread.sleep(200);
+            loading.countDown();
+
+            for (Future<Groups> future : futures) {
+                assertSame(groups, future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(1, sut.getMissCount());
+    }
+
+    @Test
+    public void should_alwaysLoad_when_ttlIsZero() {
+        GroupsLocalCache sut = this.createCache(0);
+        AtomicInteger loads = new AtomicInteger();
+
+        sut.get("key", () -> {
+            loads.incrementAndGet();
+            return new Groups();
+        });
+        sut.get("key", () -> {
+            loads.incrementAndGet();
+            return new Groups();
+        });
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void should_returnNull_and_notCache_when_loaderReturnsNull() {
+        GroupsLocalCache sut = this.createCache(60);
+
+        assertNull(sut.get("key", () -> null));
+        assertNotNull(sut.get("key", Groups::new));
+    }
+
+    private GroupsLocalCache createCache(int ttlSeconds) {
+        GroupsLocalCache cache = new GroupsLocalCache();
+        ReflectionTestUtils.setField(cache, "ttlSeconds", ttlSeconds);
+        ReflectionTestUtils.setField(cache, "maxSize", 100);
+        cache.init();
+        return cache;
+    }
+}
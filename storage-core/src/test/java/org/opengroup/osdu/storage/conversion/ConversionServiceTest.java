@@ -27,6 +27,7 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -244,5 +245,39 @@ public class ConversionServiceTest {
         Assert.assertTrue(result.getRecords().contains(this.jsonParser.parse(RECORD_2).getAsJsonObject()));
     }
 
+
+    @Test
+    public void shouldConvertUnitsOfEveryRecord_whenBatchIsSplitAcrossThePool() {
+        ReflectionTestUtils.setField(this.sut, "parallelism", 2);
+        ReflectionTestUtils.setField(this.sut, "parallelThreshold", 2);
+        this.sut.init();
+
+        String inputRecordString = "{\"id\": \"unit-test-%d\",\"kind\": \"unit:test:1.0.0\",\"data\": {\"MD\": 10.0},\"meta\": [{\"path\": \"\",\"kind\": \"UNIT\",\"persistableReference\": \"%%7B%%22ScaleOffset%%22%%3A%%7B%%22Scale%%22%%3A0.3048%%2C%%22Offset%%22%%3A0.0%%7D%%2C%%22Symbol%%22%%3A%%22ft%%22%%2C%%22BaseMeasurement%%22%%3A%%22%%257B%%2522Ancestry%%2522%%253A%%2522Length%%2522%%257D%%22%%7D\",\"propertyNames\": [\"MD\"],\"name\": \"ft\"}]}";
+        List<JsonObject> inputRecords = new ArrayList<>();
+        List<ConversionStatus> conversionStatuses = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            inputRecords.add(this.jsonParser.parse(String.format(inputRecordString, i)).getAsJsonObject());
+            ConversionStatus conversionStatus = new ConversionStatus();
+            conversionStatus.setStatus(ConvertStatus.SUCCESS.toString());
+            conversionStatus.setId("unit-test-" + i);
+            conversionStatus.setErrors(new ArrayList<>());
+            conversionStatuses.add(conversionStatus);
+        }
+        RecordsAndStatuses crsConversionResult = new RecordsAndStatuses();
+        crsConversionResult.setConversionStatuses(conversionStatuses);
+        crsConversionResult.setRecords(inputRecords);
+        when(this.crsConversionService.doCrsConversion(any(), any())).thenReturn(crsConversionResult);
+
+        try {
+            RecordsAndStatuses result = this.sut.doConversion(inputRecords);
+
+            Assert.assertEquals(7, result.getRecords().size());
+            for (JsonObject resultRecord : result.getRecords()) {
+                Assert.assertEquals(3.048, resultRecord.getAsJsonObject("data").get("MD").getAsDouble(), 0.00001);
+            }
+        } finally {
+            this.sut.shutdown();
+        }
+    }
 }
 
@@ -34,11 +34,15 @@ import org.opengroup.osdu.core.common.model.http.DpsHeaders;
 import org.opengroup.osdu.core.common.crs.CrsConverterFactory;
 import org.opengroup.osdu.core.common.crs.CrsConverterService;
 import org.opengroup.osdu.core.common.http.HttpResponse;
+import org.opengroup.osdu.storage.cache.CrsPointCache;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.*;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -395,5 +399,96 @@ public class CrsConversionServiceTest {
         String converted = String.format(CONVERTED_RECORD_9, TO_CRS);
         Assert.assertTrue(crsResult.getRecords().get(0).toString().equalsIgnoreCase(converted));
     }
+
+    @Test
+    public void should_coalescePointsPerReference_and_convertRequestsConcurrently_whenRecordsShareReference() throws Exception {
+        this.configureScheduler(2, 2, 5000);
+        this.originalRecords.add(this.jsonParser.parse(RECORD_1).getAsJsonObject());
+        this.originalRecords.add(this.jsonParser.parse(RECORD_2).getAsJsonObject());
+        this.originalRecords.add(this.jsonParser.parse(RECORD_12).getAsJsonObject());
+        this.conversionStatuses.add(ConversionStatus.builder().id("unit-test-1").status(ConvertStatus.SUCCESS.toString()));
+        this.conversionStatuses.add(ConversionStatus.builder().id("unit-test-2").status(ConvertStatus.SUCCESS.toString()));
+        this.conversionStatuses.add(ConversionStatus.builder().id("unit-test-12").status(ConvertStatus.SUCCESS.toString()));
+
+        try {
+            RecordsAndStatuses crsResult = this.sut.doCrsConversion(this.originalRecords, this.conversionStatuses);
+
+            Assert.assertEquals(3, crsResult.getRecords().size());
+            Assert.assertTrue(crsResult.getRecords().get(0).toString().equalsIgnoreCase(String.format(CONVERTED_RECORD_1, TO_CRS)));
+            Assert.assertTrue(crsResult.getRecords().get(1).toString().equalsIgnoreCase(String.format(CONVERTED_RECORD_2, TO_CRS)));
+            Assert.assertTrue(crsResult.getRecords().get(2).toString().equalsIgnoreCase(String.format(CONVERTED_RECORD_5, TO_CRS)));
+            verify(this.crsConverterService, times(2)).convertPoints(any());
+        } finally {
+            this.sut.shutdown();
+        }
+    }
+
+    @Test
+    public void should_returnOriginalRecordAndTimeoutError_whenCrsConverterDoesNotRespondInTime() throws Exception {
+        this.configureScheduler(1, 2, 200);
+        when(this.crsConverterService.convertPoints(any())).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return this.convertPointsResponse;
+        });
+        this.originalRecords.add(this.jsonParser.parse(RECORD_1).getAsJsonObject());
+        this.originalRecords.add(this.jsonParser.parse(RECORD_2).getAsJsonObject());
+        this.conversionStatuses.add(ConversionStatus.builder().id("unit-test-1").status(ConvertStatus.SUCCESS.toString()));
+        this.conversionStatuses.add(ConversionStatus.builder().id("unit-test-2").status(ConvertStatus.SUCCESS.toString()));
+
+        try {
+            RecordsAndStatuses crsResult = this.sut.doCrsConversion(this.originalRecords, this.conversionStatuses);
+
+            Assert.assertTrue(crsResult.getRecords().get(0).toString().equalsIgnoreCase(RECORD_1));
+            Assert.assertEquals(1, crsResult.getConversionStatuses().get(0).getErrors().size());
+            Assert.assertTrue(crsResult.getConversionStatuses().get(0).getErrors().get(0).contains("did not respond in time"));
+        } finally {
+            this.sut.shutdown();
+        }
+    }
+
+    @Test
+    public void should_skipCrsConverter_whenPointsWereConvertedBefore() throws Exception {
+        CrsPointCache pointCache = new CrsPointCache();
+        ReflectionTestUtils.setField(pointCache, "ttlSeconds", 60);
+        ReflectionTestUtils.setField(pointCache, "maxSize", 100);
+        pointCache.init();
+        ReflectionTestUtils.setField(this.sut, "pointCache", pointCache);
+
+        this.originalRecords.add(this.jsonParser.parse(RECORD_1).getAsJsonObject());
+        this.conversionStatuses.add(ConversionStatus.builder().id("unit-test-1").status(ConvertStatus.SUCCESS.toString()));
+        this.sut.doCrsConversion(this.originalRecords, this.conversionStatuses);
+
+        List<JsonObject> repeatedRecords = new ArrayList<>();
+        repeatedRecords.add(this.jsonParser.parse(RECORD_1).getAsJsonObject());
+        List<ConversionStatus.ConversionStatusBuilder> repeatedStatuses = new ArrayList<>();
+        repeatedStatuses.add(ConversionStatus.builder().id("unit-test-1").status(ConvertStatus.SUCCESS.toString()));
+        RecordsAndStatuses crsResult = this.sut.doCrsConversion(repeatedRecords, repeatedStatuses);
+
+        Assert.assertTrue(crsResult.getRecords().get(0).toString().equalsIgnoreCase(String.format(CONVERTED_RECORD_1, TO_CRS)));
+        verify(this.crsConverterService, times(1)).convertPoints(any());
+        Assert.assertEquals(1, pointCache.getHitCount());
+    }
+
+    @Test
+    public void should_compilePairingOnce_whenRecordsShareMetaPropertyNames() {
+        this.originalRecords.add(this.jsonParser.parse(RECORD_1).getAsJsonObject());
+        this.originalRecords.add(this.jsonParser.parse(RECORD_2).getAsJsonObject());
+        this.conversionStatuses.add(ConversionStatus.builder().id("unit-test-1").status(ConvertStatus.SUCCESS.toString()));
+        this.conversionStatuses.add(ConversionStatus.builder().id("unit-test-2").status(ConvertStatus.SUCCESS.toString()));
+
+        RecordsAndStatuses crsResult = this.sut.doCrsConversion(this.originalRecords, this.conversionStatuses);
+
+        Assert.assertTrue(crsResult.getRecords().get(1).toString().equalsIgnoreCase(String.format(CONVERTED_RECORD_2, TO_CRS)));
+        Assert.assertTrue(crsResult.getConversionStatuses().get(0).getErrors().contains("CRS conversion: Unknown coordinate pair 'z'."));
+        Assert.assertTrue(crsResult.getConversionStatuses().get(1).getErrors().contains("CRS conversion: Unknown coordinate pair 'z'."));
+        verify(this.crsPropertySet, times(1)).getPropertyPairing();
+    }
+
+    private void configureScheduler(int maxPointsPerRequest, int threads, long timeoutMillis) {
+        ReflectionTestUtils.setField(this.sut, "maxPointsPerRequest", maxPointsPerRequest);
+        ReflectionTestUtils.setField(this.sut, "conversionThreadCount", threads);
+        ReflectionTestUtils.setField(this.sut, "requestTimeoutMillis", timeoutMillis);
+        this.sut.init();
+    }
 }
 
@@ -0,0 +1,204 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.opengroup.osdu.storage.messagebus;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.opengroup.osdu.core.common.logging.JaxRsDpsLog;
+import org.opengroup.osdu.core.common.model.http.DpsHeaders;
+import org.opengroup.osdu.core.common.model.indexer.OperationType;
+import org.opengroup.osdu.core.common.model.storage.PubSubInfo;
+import org.opengroup.osdu.core.common.util.IServiceAccountJwtClient;
+import org.opengroup.osdu.storage.provider.interfaces.IMessageBus;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CoalescingMessageBusTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    private IMessageBus delegate;
+
+    @Mock
+    private ApplicationContext applicationContext;
+
+    @Mock
+    private IServiceAccountJwtClient jwtClient;
+
+    @Mock
+    private JaxRsDpsLog logger;
+
+    @InjectMocks
+    private CoalescingMessageBus sut;
+
+    @After
+    public void tearDown() {
+        this.sut.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_publishOneBatch_when_batchSizeIsReached() {
+        this.start(this.sut, 3, "");
+
+        this.sut.publishMessage(this.headers("tenant1"), this.message("id1"));
+        this.sut.publishMessage(this.headers("tenant1"), this.message("id2"), this.message("id3"));
+
+        ArgumentCaptor<PubSubInfo[]> captor = ArgumentCaptor.forClass(PubSubInfo[].class);
+        verify(this.delegate, timeout(5000).times(1)).publishMessage(any(DpsHeaders.class), captor.capture());
+        assertEquals(3, ((List) captor.getAllValues()).size());
+        assertEquals(3, this.sut.getPublishedCount());
+        assertEquals(0, this.sut.getQueueDepth());
+    }
+
+    @Test
+    public void should_notMixPartitions_when_coalescingMessages() throws Exception {
+        this.start(this.sut, 2, "");
+
+        this.sut.publishMessage(this.headers("tenant1"), this.message("id1"));
+        this.sut.publishMessage(this.headers("tenant2"), this.message("id2"));
+
+        Thread.sleep(300);
+        verify(this.delegate, never()).publishMessage(any(DpsHeaders.class), any(PubSubInfo.class));
+        assertEquals(2, this.sut.getQueueDepth());
+    }
+
+    @Test
+    public void should_retryPublish_when_delegateFails() {
+        this.start(this.sut, 1, "");
+        doThrow(new RuntimeException("unavailable")).doNothing()
+                .when(this.delegate).publishMessage(any(DpsHeaders.class), any(PubSubInfo.class));
+
+        this.sut.publishMessage(this.headers("tenant1"), this.message("id1"));
+
+        verify(this.delegate, timeout(5000).times(2)).publishMessage(any(DpsHeaders.class), any(PubSubInfo.class));
+        assertEquals(0, this.sut.getFailedCount());
+    }
+
+    @Test
+    public void should_replayPendingMessagesOnStart_when_outboxIsConfigured() throws Exception {
+        String outbox = this.folder.getRoot().toPath().resolve("outbox.jsonl").toString();
+        this.start(this.sut, 10, outbox);
+
+        this.sut.publishMessage(this.headers("tenant1"), this.message("id1"), this.message("id2"));
+        this.sut.shutdown();
+        verify(this.delegate, never()).publishMessage(any(DpsHeaders.class), any(PubSubInfo.class));
+
+        CoalescingMessageBus restarted = new CoalescingMessageBus();
+        ReflectionTestUtils.setField(restarted, "applicationContext", this.applicationContext);
+        ReflectionTestUtils.setField(restarted, "jwtClient", this.jwtClient);
+        ReflectionTestUtils.setField(restarted, "logger", this.logger);
+        this.start(restarted, 2, outbox);
+        try {
+            verify(this.delegate, timeout(5000).times(1)).publishMessage(any(DpsHeaders.class), any(PubSubInfo.class), any(PubSubInfo.class));
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    public void should_coalesceWritesOfDifferentCallersWithServiceToken_when_partitionIsShared() throws Exception {
+        Path outbox = this.folder.getRoot().toPath().resolve("outbox.jsonl");
+        this.start(this.sut, 3, outbox.toString());
+        when(this.jwtClient.getIdToken("tenant1")).thenReturn("Bearer service");
+
+        this.sut.publishMessage(this.headers("tenant1", "Bearer user1", "correlation1"), this.message("id1"), this.message("id2"));
+        this.sut.publishMessage(this.headers("tenant1", "Bearer user2", "correlation2"), this.message("id3"));
+
+        ArgumentCaptor<DpsHeaders> captor = ArgumentCaptor.forClass(DpsHeaders.class);
+        verify(this.delegate, timeout(5000).times(1)).publishMessage(captor.capture(), any(PubSubInfo.class), any(PubSubInfo.class), any(PubSubInfo.class));
+        assertEquals("Bearer service", captor.getValue().getAuthorization());
+        assertEquals("tenant1", captor.getValue().getPartitionId());
+
+        this.sut.publishMessage(this.headers("tenant1", "Bearer user1", "correlation1"), this.message("id4"));
+        this.sut.shutdown();
+        assertFalse(new String(Files.readAllBytes(outbox), StandardCharsets.UTF_8).contains("Bearer"));
+    }
+
+    @Test
+    public void should_publishQueuedMessagesFirst_when_bufferIsFull() {
+        this.start(this.sut, 10, "");
+        ReflectionTestUtils.setField(this.sut, "queueCapacity", 2);
+        ReflectionTestUtils.setField(this.sut, "lingerMillis", 10L);
+
+        this.sut.publishMessage(this.headers("tenant1"), this.message("id1"), this.message("id2"));
+        this.sut.publishMessage(this.headers("tenant1"), this.message("id3"));
+
+        ArgumentCaptor<PubSubInfo> captor = ArgumentCaptor.forClass(PubSubInfo.class);
+        InOrder inOrder = inOrder(this.delegate);
+        inOrder.verify(this.delegate, timeout(5000)).publishMessage(any(DpsHeaders.class), captor.capture(), captor.capture());
+        assertEquals("id1", captor.getAllValues().get(0).getId());
+        assertEquals("id2", captor.getAllValues().get(1).getId());
+        assertEquals(1, this.sut.getQueueDepth());
+    }
+
+    private void start(CoalescingMessageBus messageBus, int batchSize, String outboxPath) {
+        ReflectionTestUtils.setField(messageBus, "batchSize", batchSize);
+        ReflectionTestUtils.setField(messageBus, "lingerMillis", 60000L);
+        ReflectionTestUtils.setField(messageBus, "queueCapacity", 1000);
+        ReflectionTestUtils.setField(messageBus, "threadCount", 2);
+        ReflectionTestUtils.setField(messageBus, "maxAttempts", 3);
+        ReflectionTestUtils.setField(messageBus, "retryBackoffMillis", 10L);
+        ReflectionTestUtils.setField(messageBus, "outboxPath", outboxPath);
+        messageBus.init();
+
+        Map<String, IMessageBus> messageBuses = new HashMap<>();
+        messageBuses.put("coalescingMessageBus", messageBus);
+        messageBuses.put("messageBus", this.delegate);
+        when(this.applicationContext.getBeansOfType(IMessageBus.class)).thenReturn(messageBuses);
+        messageBus.afterSingletonsInstantiated();
+    }
+
+    private DpsHeaders headers(String partitionId) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put(DpsHeaders.DATA_PARTITION_ID, partitionId);
+        return DpsHeaders.createFromMap(headers);
+    }
+
+    private DpsHeaders headers(String partitionId, String authorization, String correlationId) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put(DpsHeaders.DATA_PARTITION_ID, partitionId);
+        headers.put(DpsHeaders.AUTHORIZATION, authorization);
+        headers.put(DpsHeaders.CORRELATION_ID, correlationId);
+        return DpsHeaders.createFromMap(headers);
+    }
+
+    private PubSubInfo message(String id) {
+        return new PubSubInfo(id, "tenant1:test:doc:1.0.0", OperationType.create);
+    }
+}
@@ -0,0 +1,160 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.opengroup.osdu.storage.policy.service;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.opengroup.osdu.core.common.model.entitlements.GroupInfo;
+import org.opengroup.osdu.core.common.model.entitlements.Groups;
+import org.opengroup.osdu.core.common.model.http.DpsHeaders;
+import org.opengroup.osdu.core.common.model.indexer.OperationType;
+import org.opengroup.osdu.core.common.model.policy.PolicyRequest;
+import org.opengroup.osdu.core.common.model.policy.PolicyResponse;
+import org.opengroup.osdu.core.common.model.policy.Result;
+import org.opengroup.osdu.core.common.model.storage.RecordMetadata;
+import org.opengroup.osdu.core.common.policy.IPolicyFactory;
+import org.opengroup.osdu.core.common.policy.IPolicyProvider;
+import org.opengroup.osdu.storage.policy.cache.PolicyDecisionCache;
+import org.opengroup.osdu.storage.policy.di.PolicyServiceConfiguration;
+import org.opengroup.osdu.storage.service.IEntitlementsExtensionService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PolicyServiceImplTest {
+
+    @Mock
+    private PolicyServiceConfiguration policyServiceConfiguration;
+
+    @Mock
+    private IPolicyFactory policyFactory;
+
+    @Mock
+    private IPolicyProvider policyProvider;
+
+    @Mock
+    private DpsHeaders headers;
+
+    @Mock
+    private IEntitlementsExtensionService entitlementsService;
+
+    @InjectMocks
+    private PolicyServiceImpl sut;
+
+    @Before
+    public void setup() {
+        GroupInfo groupInfo = new GroupInfo();
+        groupInfo.setEmail("data.owners@tenant1.com");
+        Groups groups = new Groups();
+        groups.setGroups(Lists.newArrayList(groupInfo));
+
+        when(this.entitlementsService.getGroups(this.headers)).thenReturn(groups);
+        when(this.policyFactory.create(this.headers)).thenReturn(this.policyProvider);
+        when(this.policyServiceConfiguration.getPolicyId()).thenReturn("storage");
+
+        ReflectionTestUtils.setField(this.sut, "evaluationThreadCount", 2);
+        this.sut.init();
+    }
+
+    @After
+    public void tearDown() {
+        this.sut.shutdown();
+    }
+
+    @Test
+    public void should_returnDeniedRecordsInOrder_and_fetchGroupsOnce_when_evaluatingBatch() throws Exception {
+        when(this.policyProvider.evaluatePolicy(any(PolicyRequest.class))).thenAnswer(invocation -> {
+            PolicyRequest request = (PolicyRequest) invocation.getArguments()[0];
+            String id = request.getInput().getAsJsonObject("record").get("id").getAsString();
+            assertEquals("data.owners@tenant1.com", request.getInput().getAsJsonArray("groups").get(0).getAsString());
+            return this.response(!id.endsWith("2") && !id.endsWith("4"));
+        });
+
+        List<SimpleEntry<RecordMetadata, OperationType>> recordOperations = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            recordOperations.add(new SimpleEntry<>(this.record("tenant1:doc:" + i), OperationType.update));
+        }
+
+        List<String> denied = this.sut.evaluateStorageDataAuthorizationPolicy(recordOperations);
+
+        assertEquals(Lists.newArrayList("tenant1:doc:2", "tenant1:doc:4"), denied);
+        verify(this.entitlementsService, times(1)).getGroups(this.headers);
+        verify(this.policyProvider, times(5)).evaluatePolicy(any(PolicyRequest.class));
+    }
+
+    @Test
+    public void should_sendOperationAndRecord_when_evaluatingSingleRecord() throws Exception {
+        when(this.policyProvider.evaluatePolicy(any(PolicyRequest.class))).thenAnswer(invocation -> {
+            PolicyRequest request = (PolicyRequest) invocation.getArguments()[0];
+            assertEquals("storage", request.getPolicyId());
+            assertTrue(request.getInput().has("operation"));
+            assertEquals("tenant1:test:doc:1.0.0", request.getInput().getAsJsonObject("record").get("kind").getAsString());
+            return this.response(true);
+        });
+
+        assertEquals(true, this.sut.evaluateStorageDataAuthorizationPolicy(this.record("tenant1:doc:1"), OperationType.create));
+    }
+
+    @Test
+    public void should_evaluateOnce_and_reuseDecision_when_recordsShareAclLegalAndKind() throws Exception {
+        ReflectionTestUtils.setField(this.sut, "decisionCache", new PolicyDecisionCache(60, 100));
+        when(this.headers.getPartitionId()).thenReturn("tenant1");
+        when(this.policyProvider.evaluatePolicy(any(PolicyRequest.class))).thenReturn(this.response(false));
+
+        List<SimpleEntry<RecordMetadata, OperationType>> recordOperations = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            recordOperations.add(new SimpleEntry<>(this.record("tenant1:doc:" + i), OperationType.update));
+        }
+
+        List<String> denied = this.sut.evaluateStorageDataAuthorizationPolicy(recordOperations);
+        boolean allowed = this.sut.evaluateStorageDataAuthorizationPolicy(this.record("tenant1:doc:6"), OperationType.update);
+
+        assertEquals(5, denied.size());
+        assertEquals("tenant1:doc:1", denied.get(0));
+        assertFalse(allowed);
+        verify(this.policyProvider, times(1)).evaluatePolicy(any(PolicyRequest.class));
+    }
+
+    private PolicyResponse response(boolean allow) {
+        Result result = new Result();
+        result.setAllow(allow);
+        PolicyResponse response = new PolicyResponse();
+        response.setResult(result);
+        return response;
+    }
+
+    private RecordMetadata record(String id) {
+        RecordMetadata recordMetadata = new RecordMetadata();
+        recordMetadata.setId(id);
+        recordMetadata.setKind("tenant1:test:doc:1.0.0");
+        return recordMetadata;
+    }
+}
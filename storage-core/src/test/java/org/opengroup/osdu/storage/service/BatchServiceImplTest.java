@@ -0,0 +1,322 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.opengroup.osdu.core.common.crs.CrsConverterClientFactory;
+import org.opengroup.osdu.core.common.entitlements.IEntitlementsAndCacheService;
+import org.opengroup.osdu.core.common.logging.JaxRsDpsLog;
+import org.opengroup.osdu.core.common.model.entitlements.Acl;
+import org.opengroup.osdu.core.common.model.http.DpsHeaders;
+import org.opengroup.osdu.core.common.model.legal.Legal;
+import org.opengroup.osdu.core.common.model.legal.LegalCompliance;
+import org.opengroup.osdu.core.common.model.storage.DatastoreQueryResult;
+import org.opengroup.osdu.core.common.model.storage.MultiRecordRequest;
+import org.opengroup.osdu.core.common.model.storage.RecordMetadata;
+import org.opengroup.osdu.core.common.model.storage.RecordState;
+import org.opengroup.osdu.storage.conversion.DpsConversionService;
+import org.opengroup.osdu.storage.logging.StorageAuditLogger;
+import org.opengroup.osdu.storage.provider.interfaces.ICloudStorage;
+import org.opengroup.osdu.storage.provider.interfaces.IQueryRepository;
+import org.opengroup.osdu.storage.provider.interfaces.IRecordsMetadataRepository;
+import org.opengroup.osdu.storage.request.MultiRecordVersionsRequest;
+import org.opengroup.osdu.storage.request.RecordVersionsQuery;
+import org.opengroup.osdu.storage.response.MultiRecordBatchResponse;
+import org.opengroup.osdu.storage.response.MultiRecordVersionsResponse;
+import org.opengroup.osdu.storage.util.EncodeDecode;
+import org.opengroup.osdu.storage.util.MultiRecordResponseWriter;
+import org.opengroup.osdu.storage.util.RecordExportWriter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchServiceImplTest {
+
+    private static final String KIND = "tenant1:test:doc:1.0.0";
+
+    @Mock
+    private IRecordsMetadataRepository recordRepository;
+
+    @Mock
+    private StorageAuditLogger auditLogger;
+
+    @Mock
+    private DpsHeaders headers;
+
+    @Mock
+    private JaxRsDpsLog logger;
+
+    @Mock
+    private DpsConversionService conversionService;
+
+    @Mock
+    private CrsConverterClientFactory crsConverterClientFactory;
+
+    @Mock
+    private IEntitlementsAndCacheService entitlementsAndCacheService;
+
+    @Mock
+    private BlobBatchReader blobBatchReader;
+
+    @Mock
+    private IQueryRepository queryRepository;
+
+    @InjectMocks
+    private TestBatchService sut;
+
+    private final Map<String, RecordMetadata> records = new HashMap<>();
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        ReflectionTestUtils.setField(this.sut, "streamChunkSize", 2);
+        ReflectionTestUtils.setField(this.sut, "exportMaxRecords", 10000);
+
+        when(this.recordRepository.get(any(List.class))).thenAnswer(invocation -> {
+            Map<String, RecordMetadata> result = new HashMap<>();
+            ((List<String>) invocation.getArguments()[0]).forEach(id -> {
+                if (this.records.containsKey(id)) {
+                    result.put(id, this.records.get(id));
+                }
+            });
+            return result;
+        });
+        when(this.blobBatchReader.read(any(Map.class), any(List.class))).thenAnswer(invocation -> {
+            Map<String, String> blobs = new HashMap<>();
+            ((Map<String, String>) invocation.getArguments()[0]).keySet().forEach(id -> blobs.put(id, "{\"data\":{\"a\":1}}"));
+            return blobs;
+        });
+        when(this.entitlementsAndCacheService.hasValidAccess(any(List.class), any(DpsHeaders.class)))
+                .thenAnswer(invocation -> invocation.getArguments()[0]);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_listTimedOutRecordsForRetry_when_blobReadTimesOut() {
+        this.addRecord("tenant1:doc:1", RecordState.active);
+        this.addRecord("tenant1:doc:2", RecordState.active);
+        when(this.blobBatchReader.read(any(Map.class), any(List.class))).thenAnswer(invocation -> {
+            ((List<String>) invocation.getArguments()[1]).add("tenant1:doc:2");
+            Map<String, String> blobs = new HashMap<>();
+            blobs.put("tenant1:doc:1", "{\"data\":{\"a\":1}}");
+            return blobs;
+        });
+
+        MultiRecordBatchResponse response = (MultiRecordBatchResponse) this.sut.fetchMultipleRecords(
+                this.request("tenant1:doc:1", "tenant1:doc:2", "tenant1:doc:3"));
+
+        assertEquals(1, response.getRecords().size());
+        assertEquals(Lists.newArrayList("tenant1:doc:3"), response.getNotFound());
+        assertEquals(Lists.newArrayList("tenant1:doc:2"), response.getRetryRecords());
+
+        ArgumentCaptor<List> audited = ArgumentCaptor.forClass(List.class);
+        verify(this.auditLogger).readMultipleRecordsSuccess(audited.capture());
+        assertEquals(Lists.newArrayList(KIND + "/tenant1:doc:1/1"), audited.getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_accountForEveryRequestedId_when_streamingChunksWithInactiveAndUnauthorizedRecords() throws Exception {
+        this.addRecord("tenant1:doc:1", RecordState.active);
+        this.addRecord("tenant1:doc:2", RecordState.deleted);
+        this.addRecord("tenant1:doc:3", RecordState.active);
+        this.addRecord("tenant1:doc:4", RecordState.active);
+        this.addRecord("tenant1:doc:5", RecordState.active);
+        when(this.entitlementsAndCacheService.hasValidAccess(any(List.class), any(DpsHeaders.class))).thenAnswer(invocation ->
+                ((List<RecordMetadata>) invocation.getArguments()[0]).stream()
+                        .filter(record -> !"tenant1:doc:3".equals(record.getId())).collect(Collectors.toList()));
+
+        List<String> requested = Lists.newArrayList("tenant1:doc:1", "tenant1:doc:2", "tenant1:doc:3", "tenant1:doc:4",
+                "tenant1:doc:5", "tenant1:doc:6");
+        ObjectMapper objectMapper = new ObjectMapper();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MultiRecordResponseWriter writer = new MultiRecordResponseWriter(objectMapper.getFactory().createGenerator(out))) {
+            this.sut.fetchMultipleRecords(this.request(requested.toArray(new String[0])), writer);
+        }
+
+        JsonNode response = objectMapper.readTree(out.toByteArray());
+        Set<String> returned = new HashSet<>();
+        response.get("records").forEach(record -> returned.add(record.get("id").asText()));
+        Set<String> notFound = new HashSet<>();
+        response.get("notFound").forEach(id -> notFound.add(id.asText()));
+
+        assertEquals(Sets.newHashSet("tenant1:doc:1", "tenant1:doc:4", "tenant1:doc:5"), returned);
+        assertEquals(Sets.newHashSet("tenant1:doc:2", "tenant1:doc:3", "tenant1:doc:6"), notFound);
+        assertEquals(requested.size(), response.get("records").size() + response.get("notFound").size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_readEachVersionOnce_when_idsAndVersionsAreRepeated() {
+        this.addRecord("tenant1:doc:1", RecordState.active);
+        this.records.get("tenant1:doc:1").setGcsVersionPaths(Lists.newArrayList(
+                KIND + "/tenant1:doc:1/1", KIND + "/tenant1:doc:1/2"));
+        when(this.blobBatchReader.readVersions(any(List.class), any(List.class))).thenAnswer(invocation -> {
+            Map<String, String> blobs = new HashMap<>();
+            ((List<SimpleEntry<RecordMetadata, Long>>) invocation.getArguments()[0]).forEach(entry ->
+                    blobs.put(ICloudStorage.versionKey(entry.getKey().getId(), entry.getValue()), "{\"data\":{\"a\":1}}"));
+            return blobs;
+        });
+        ReflectionTestUtils.setField(this.sut, "maxRecordVersions", 2);
+
+        MultiRecordVersionsRequest request = new MultiRecordVersionsRequest();
+        request.setRecords(Lists.newArrayList(this.versionsQuery("tenant1:doc:1", 1L, 1L, 3L),
+                this.versionsQuery("tenant1:doc:1", 2L, 1L, 3L)));
+        MultiRecordVersionsResponse response = this.sut.getMultipleRecordVersions(request);
+
+        ArgumentCaptor<List> read = ArgumentCaptor.forClass(List.class);
+        verify(this.blobBatchReader).readVersions(read.capture(), any(List.class));
+        assertEquals(2, read.getValue().size());
+        assertEquals(2, response.getRecords().size());
+        assertEquals(Lists.newArrayList("tenant1:doc:1:3"), response.getNotFound());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_exportReadableRecordsAndResumeCursor_when_limitIsReachedAcrossPages() throws Exception {
+        this.addRecord("tenant1:doc:1", RecordState.active);
+        this.addRecord("tenant1:doc:2", RecordState.active);
+        this.addRecord("tenant1:doc:3", RecordState.active);
+        this.addRecord("tenant1:doc:4", RecordState.deleted);
+        when(this.queryRepository.getAllRecordIdsFromKind(KIND, 4, null))
+                .thenReturn(this.page("cursor1", "tenant1:doc:1", "tenant1:doc:2"));
+        when(this.queryRepository.getAllRecordIdsFromKind(KIND, 2, "cursor1"))
+                .thenReturn(this.page("cursor2", "tenant1:doc:3", "tenant1:doc:4"));
+        when(this.entitlementsAndCacheService.hasValidAccess(any(List.class), any(DpsHeaders.class))).thenAnswer(invocation ->
+                ((List<RecordMetadata>) invocation.getArguments()[0]).stream()
+                        .filter(record -> !"tenant1:doc:2".equals(record.getId())).collect(Collectors.toList()));
+        when(this.blobBatchReader.read(any(Map.class), any(List.class))).thenAnswer(invocation -> {
+            Map<String, String> blobs = new HashMap<>();
+            ((Map<String, String>) invocation.getArguments()[0]).keySet().forEach(id -> {
+                if ("tenant1:doc:3".equals(id)) {
+                    ((List<String>) invocation.getArguments()[1]).add(id);
+                } else {
+                    blobs.put(id, "{\"data\":{\"a\":1}}");
+                }
+            });
+            return blobs;
+        });
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        EncodeDecode encodeDecode = new EncodeDecode();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (RecordExportWriter writer = new RecordExportWriter(out, objectMapper, encodeDecode::serializeCursor)) {
+            this.sut.exportRecords(null, KIND, 4, writer);
+        }
+
+        String[] lines = out.toString("UTF-8").split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("tenant1:doc:1", objectMapper.readTree(lines[0]).get("id").asText());
+        JsonNode trailer = objectMapper.readTree(lines[1]).get(RecordExportWriter.TRAILER_FIELD);
+        assertEquals("cursor2", encodeDecode.deserializeCursor(trailer.get("cursor").asText()));
+        assertEquals(1, trailer.get("recordCount").asInt());
+        assertEquals(1, trailer.get("retryRecords").size());
+        assertEquals("tenant1:doc:3", trailer.get("retryRecords").get(0).asText());
+        verify(this.auditLogger).readAllRecordsOfGivenKindSuccess(Lists.newArrayList("tenant1:doc:1"));
+    }
+
+    @Test
+    public void should_returnNullCursor_when_kindIsExhausted() throws Exception {
+        this.addRecord("tenant1:doc:1", RecordState.active);
+        when(this.queryRepository.getAllRecordIdsFromKind(KIND, IQueryRepository.PAGE_SIZE, null)).thenReturn(this.page(null, "tenant1:doc:1"));
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (RecordExportWriter writer = new RecordExportWriter(out, objectMapper, new EncodeDecode()::serializeCursor)) {
+            this.sut.exportRecords(null, KIND, null, writer);
+        }
+
+        String[] lines = out.toString("UTF-8").split("\n");
+        assertEquals(2, lines.length);
+        JsonNode trailer = objectMapper.readTree(lines[1]).get(RecordExportWriter.TRAILER_FIELD);
+        assertTrue(trailer.get("cursor").isNull());
+        assertEquals(1, trailer.get("recordCount").asInt());
+    }
+
+    private DatastoreQueryResult page(String cursor, String... ids) {
+        DatastoreQueryResult page = new DatastoreQueryResult();
+        page.setCursor(cursor);
+        page.setResults(Lists.newArrayList(ids));
+        return page;
+    }
+
+    private RecordVersionsQuery versionsQuery(String id, Long... versions) {
+        RecordVersionsQuery query = new RecordVersionsQuery();
+        query.setId(id);
+        query.setVersions(Lists.newArrayList(versions));
+        return query;
+    }
+
+    private MultiRecordRequest request(String... ids) {
+        MultiRecordRequest request = new MultiRecordRequest();
+        request.setRecords(Lists.newArrayList(ids));
+        return request;
+    }
+
+    private void addRecord(String id, RecordState status) {
+        Acl acl = new Acl();
+        acl.setViewers(new String[]{"viewer@tenant1.com"});
+        acl.setOwners(new String[]{"owner@tenant1.com"});
+
+        Legal legal = new Legal();
+        legal.setLegaltags(Sets.newHashSet("legal1"));
+        legal.setOtherRelevantDataCountries(Sets.newHashSet("FRA"));
+        legal.setStatus(LegalCompliance.compliant);
+
+        RecordMetadata recordMetadata = new RecordMetadata();
+        recordMetadata.setId(id);
+        recordMetadata.setKind(KIND);
+        recordMetadata.setStatus(status);
+        recordMetadata.setAcl(acl);
+        recordMetadata.setLegal(legal);
+        recordMetadata.setGcsVersionPaths(Lists.newArrayList(KIND + "/" + id + "/1"));
+        this.records.put(id, recordMetadata);
+    }
+
+    public static class TestBatchService extends BatchServiceImpl {
+
+        @Override
+        public DatastoreQueryResult getAllKinds(String cursor, Integer limit) {
+            return null;
+        }
+
+        @Override
+        public DatastoreQueryResult getAllRecords(String cursorId, String kind, Integer limit) {
+            return null;
+        }
+    }
+}
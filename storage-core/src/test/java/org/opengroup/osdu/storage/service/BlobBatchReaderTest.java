@@ -0,0 +1,168 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.service;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.opengroup.osdu.core.common.logging.JaxRsDpsLog;
+import org.opengroup.osdu.core.common.model.http.AppException;
+import org.opengroup.osdu.core.common.model.storage.RecordMetadata;
+import org.opengroup.osdu.storage.provider.interfaces.ICloudStorage;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BlobBatchReaderTest {
+
+    @Mock
+    private ICloudStorage cloudStorage;
+
+    @Mock
+    private JaxRsDpsLog logger;
+
+    @InjectMocks
+    private BlobBatchReader sut;
+
+    @After
+    public void tearDown() {
+        this.sut.shutdown();
+    }
+
+    @Test
+    public void should_readInline_when_batchFitsInOneChunk() {
+        this.configure(25, 4, 1000);
+        Map<String, String> objects = this.objects(10);
+        when(this.cloudStorage.read(objects)).thenReturn(this.blobs(objects));
+
+        List<String> timedOut = new ArrayList<>();
+        Map<String, String> result = this.sut.read(objects, timedOut);
+
+        assertEquals(10, result.size());
+        assertTrue(timedOut.isEmpty());
+        verify(this.cloudStorage, times(1)).read(any(Map.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_readAllChunks_when_batchIsLargerThanChunkSize() {
+        this.configure(10, 4, 5000);
+        when(this.cloudStorage.read(any(Map.class))).thenAnswer(invocation ->
+                this.blobs((Map<String, String>) invocation.getArguments()[0]));
+
+        List<String> timedOut = new ArrayList<>();
+        Map<String, String> result = this.sut.read(this.objects(95), timedOut);
+
+        assertEquals(95, result.size());
+        assertEquals("content-id94", result.get("id94"));
+        assertTrue(timedOut.isEmpty());
+        verify(this.cloudStorage, times(10)).read(any(Map.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_reportOnlyTimedOutChunks_when_chunkReadIsSlow() {
+        this.configure(5, 4, 500);
+        when(this.cloudStorage.read(any(Map.class))).thenAnswer(invocation -> {
+            Map<String, String> chunk = (Map<String, String>) invocation.getArguments()[0];
+            if (chunk.containsKey("id0")) {
+                Thread.sleep(5000);
+            }
+            return this.blobs(chunk);
+        });
+
+        List<String> timedOut = new ArrayList<>();
+        Map<String, String> result = this.sut.read(this.objects(15), timedOut);
+
+        assertEquals(10, result.size());
+        assertEquals(5, timedOut.size());
+        assertTrue(timedOut.contains("id0"));
+        assertFalse(result.containsKey("id0"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_rethrowAppException_when_chunkReadFails() {
+        this.configure(5, 4, 5000);
+        when(this.cloudStorage.read(any(Map.class)))
+                .thenThrow(new AppException(403, "Access denied", "The user is not authorized to perform this action"));
+
+        try {
+            this.sut.read(this.objects(15), new ArrayList<>());
+            fail("Should not succeed");
+        } catch (AppException e) {
+            assertEquals(403, e.getError().getCode());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_readVersionsInChunks_when_manyVersionsAreRequested() {
+        this.configure(2, 4, 5000);
+        when(this.cloudStorage.readVersions(any(List.class))).thenAnswer(invocation -> {
+            Map<String, String> blobs = new HashMap<>();
+            ((List<SimpleEntry<RecordMetadata, Long>>) invocation.getArguments()[0]).forEach(entry ->
+                    blobs.put(ICloudStorage.versionKey(entry.getKey().getId(), entry.getValue()), "content"));
+            return blobs;
+        });
+
+        RecordMetadata record = new RecordMetadata();
+        record.setId("tenant1:doc:1");
+        List<SimpleEntry<RecordMetadata, Long>> versions = new ArrayList<>();
+        for (long version = 1; version <= 5; version++) {
+            versions.add(new SimpleEntry<>(record, version));
+        }
+
+        Map<String, String> result = this.sut.readVersions(versions, new ArrayList<>());
+
+        assertEquals(5, result.size());
+        assertEquals("content", result.get("tenant1:doc:1:5"));
+        verify(this.cloudStorage, times(3)).readVersions(any(List.class));
+    }
+
+    private void configure(int chunkSize, int threads, long timeoutMillis) {
+        ReflectionTestUtils.setField(this.sut, "chunkSize", chunkSize);
+        ReflectionTestUtils.setField(this.sut, "threadCount", threads);
+        ReflectionTestUtils.setField(this.sut, "chunkTimeoutMillis", timeoutMillis);
+        this.sut.init();
+    }
+
+    private Map<String, String> objects(int count) {
+        Map<String, String> objects = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            objects.put("id" + i, "kind/id" + i + "/1");
+        }
+        return objects;
+    }
+
+    private Map<String, String> blobs(Map<String, String> objects) {
+        Map<String, String> blobs = new HashMap<>();
+        objects.keySet().forEach(id -> blobs.put(id, "content-" + id));
+        return blobs;
+    }
+}
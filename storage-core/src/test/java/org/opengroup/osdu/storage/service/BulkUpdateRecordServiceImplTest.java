@@ -17,36 +17,52 @@ package org.opengroup.osdu.storage.service;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.only;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.time.Clock;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.http.HttpStatus;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.opengroup.osdu.core.common.entitlements.IEntitlementsAndCacheService;
+import org.opengroup.osdu.core.common.logging.JaxRsDpsLog;
 import org.opengroup.osdu.core.common.model.entitlements.Acl;
+import org.opengroup.osdu.core.common.model.http.AppException;
 import org.opengroup.osdu.core.common.model.http.DpsHeaders;
+import org.opengroup.osdu.core.common.model.storage.DatastoreQueryResult;
 import org.opengroup.osdu.core.common.model.storage.PatchOperation;
 import org.opengroup.osdu.core.common.model.storage.RecordBulkUpdateParam;
 import org.opengroup.osdu.core.common.model.storage.RecordMetadata;
 import org.opengroup.osdu.core.common.model.storage.RecordQuery;
 import org.opengroup.osdu.core.common.storage.IPersistenceService;
 import org.opengroup.osdu.storage.logging.StorageAuditLogger;
+import org.opengroup.osdu.storage.policy.service.IPolicyService;
+import org.opengroup.osdu.storage.provider.interfaces.IQueryRepository;
 import org.opengroup.osdu.storage.provider.interfaces.IRecordsMetadataRepository;
+import org.opengroup.osdu.storage.request.KindBulkUpdateRequest;
 import org.opengroup.osdu.storage.response.BulkUpdateRecordsResponse;
+import org.opengroup.osdu.storage.response.KindBulkUpdateResponse;
+import org.opengroup.osdu.storage.util.RecordMetadataPatch;
 import org.opengroup.osdu.storage.util.api.RecordUtil;
 import org.opengroup.osdu.storage.validation.api.PatchOperationValidator;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @RunWith(MockitoJUnitRunner.class)
 public class BulkUpdateRecordServiceImplTest {
@@ -92,6 +108,12 @@ public class BulkUpdateRecordServiceImplTest {
     private Clock clock;
     @Mock
     private DataAuthorizationService dataAuthorizationService;
+    @Mock
+    private IQueryRepository queryRepository;
+    @Mock
+    private JaxRsDpsLog logger;
+    @Mock
+    private IPolicyService policyService;
     @InjectMocks
     private BulkUpdateRecordServiceImpl service;
 
@@ -175,6 +197,85 @@ public class BulkUpdateRecordServiceImplTest {
         assertTrue(actualResponse.getUnAuthorizedRecordIds().isEmpty());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_patchMatchingRecordsInChunks_when_updatingByKind() {
+        ReflectionTestUtils.setField(service, "kindChunkSize", 2);
+        ReflectionTestUtils.setField(service, "kindThreadCount", 2);
+        ReflectionTestUtils.setField(service, "kindMaxRecords", 10);
+        service.init();
+        try {
+            when(queryRepository.getAllRecordIdsFromKind(TEST_KIND, 10, null))
+                    .thenReturn(buildPage("cursor1", Arrays.asList("id1", "id2", "id3")));
+            when(queryRepository.getAllRecordIdsFromKind(TEST_KIND, 7, "cursor1"))
+                    .thenReturn(buildPage(null, singletonList("id4")));
+            when(recordRepository.get(any(List.class))).thenAnswer(invocation -> {
+                Map<String, RecordMetadata> records = new HashMap<>();
+                for (String id : (List<String>) invocation.getArguments()[0]) {
+                    RecordMetadata recordMetadata = buildRecordMetadata();
+                    recordMetadata.setId(id);
+                    recordMetadata.getTags().put("source", "id3".equals(id) ? "other" : "legacy");
+                    records.put(id, recordMetadata);
+                }
+                return records;
+            });
+            when(recordUtil.updateRecordMetaDataForPatchOperations(any(RecordMetadata.class), any(RecordMetadataPatch.class),
+                    eq(TEST_USER), eq(CURRENT_MILLIS.longValue()))).thenAnswer(invocation -> invocation.getArguments()[0]);
+            when(persistenceService.updateMetadata(any(List.class), any(List.class), any(Map.class))).thenAnswer(invocation -> {
+                if (((List<String>) invocation.getArguments()[1]).contains("id4")) {
+                    throw new AppException(HttpStatus.SC_INTERNAL_SERVER_ERROR, "Error writing record.", "failed");
+                }
+                return new ArrayList<String>();
+            });
+            when(clock.millis()).thenReturn(CURRENT_MILLIS);
+            when(entitlementsAndCacheService.hasOwnerAccess(headers, OWNERS)).thenReturn(true);
+            when(dataAuthorizationService.policyEnabled()).thenReturn(false);
+
+            KindBulkUpdateRequest request = new KindBulkUpdateRequest();
+            request.setKind(TEST_KIND);
+            request.setTags(Collections.singletonMap("source", "legacy"));
+            request.setOps(buildRecordBulkUpdateParam().getOps());
+
+            KindBulkUpdateResponse response = service.bulkUpdateRecordsByKind(request, TEST_USER);
+
+            assertNull(response.getCursor());
+            assertEquals(4, response.getScannedRecordCount().intValue());
+            assertEquals(2, response.getRecordCount().intValue());
+            assertTrue(response.getUnAuthorizedRecordIds().isEmpty());
+            assertEquals(1, response.getFailedChunks().size());
+            assertEquals(singletonList("id4"), response.getFailedChunks().get(0).getRecordIds());
+            verify(persistenceService, times(2)).updateMetadata(any(List.class), any(List.class), any(Map.class));
+            verify(auditLogger, only()).createOrUpdateRecordsFail(singletonList("id4"));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_persistPatchedMetadata_when_policyIsEnabled() {
+        RecordMetadata recordMetadata = buildRecordMetadata();
+        RecordMetadata patchedMetadata = buildRecordMetadata();
+        patchedMetadata.setModifyUser(TEST_USER);
+        Map<String, RecordMetadata> recordMetadataMap = new HashMap<String, RecordMetadata>() {{
+            put(TEST_ID, recordMetadata);
+        }};
+
+        RecordBulkUpdateParam param = buildRecordBulkUpdateParam();
+        commonSetup(recordMetadataMap, param.getOps(), true, false);
+        when(dataAuthorizationService.policyEnabled()).thenReturn(true);
+        when(recordUtil.updateRecordMetaDataForPatchOperations(eq(recordMetadata), any(RecordMetadataPatch.class),
+                eq(TEST_USER), eq(CURRENT_MILLIS.longValue()))).thenReturn(patchedMetadata);
+        when(policyService.evaluateStorageDataAuthorizationPolicy(any(List.class))).thenReturn(new ArrayList<String>());
+
+        BulkUpdateRecordsResponse actualResponse = service.bulkUpdateRecords(param, TEST_USER);
+
+        verify(persistenceService, only()).updateMetadata(singletonList(patchedMetadata), TEST_IDS, IDS_VERSION_MAP);
+        verify(recordUtil, times(1)).updateRecordMetaDataForPatchOperations(eq(recordMetadata), any(RecordMetadataPatch.class),
+                eq(TEST_USER), eq(CURRENT_MILLIS.longValue()));
+        assertEquals(TEST_IDS, actualResponse.getRecordIds());
+    }
+
     private static RecordMetadata buildRecordMetadata() {
         Acl acl = new Acl();
         acl.setOwners(OWNERS);
@@ -185,6 +286,13 @@ public class BulkUpdateRecordServiceImplTest {
         return recordMetadata;
     }
 
+    private static DatastoreQueryResult buildPage(String cursor, List<String> ids) {
+        DatastoreQueryResult page = new DatastoreQueryResult();
+        page.setCursor(cursor);
+        page.setResults(ids);
+        return page;
+    }
+
     private RecordBulkUpdateParam buildRecordBulkUpdateParam() {
         RecordQuery query = new RecordQuery();
         query.setIds(new ArrayList<>(singletonList(ID)));
@@ -204,8 +312,8 @@ public class BulkUpdateRecordServiceImplTest {
                 .thenReturn(isLockedRecord ? new ArrayList<>(singletonList(TEST_ID)) : emptyList());
         when(clock.millis()).thenReturn(CURRENT_MILLIS);
         when(entitlementsAndCacheService.hasOwnerAccess(headers, OWNERS)).thenReturn(hasOwnerAccess);
-        when(recordUtil.updateRecordMetaDataForPatchOperations(recordMetadataMap.get(TEST_ID), patchOperations, TEST_USER,
-                CURRENT_MILLIS)).thenReturn(recordMetadataMap.get(TEST_ID));
+        when(recordUtil.updateRecordMetaDataForPatchOperations(eq(recordMetadataMap.get(TEST_ID)), any(RecordMetadataPatch.class),
+                eq(TEST_USER), eq(CURRENT_MILLIS.longValue()))).thenReturn(recordMetadataMap.get(TEST_ID));
         when(dataAuthorizationService.policyEnabled()).thenReturn(false);
     }
 
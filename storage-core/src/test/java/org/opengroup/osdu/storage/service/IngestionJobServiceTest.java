@@ -0,0 +1,200 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.service;
+
+import org.apache.http.HttpStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.opengroup.osdu.core.common.logging.JaxRsDpsLog;
+import org.opengroup.osdu.core.common.model.http.AppException;
+import org.opengroup.osdu.core.common.model.http.DpsHeaders;
+import org.opengroup.osdu.core.common.model.storage.Record;
+import org.opengroup.osdu.core.common.model.storage.TransferInfo;
+import org.opengroup.osdu.core.common.storage.IngestionService;
+import org.opengroup.osdu.core.common.util.IServiceAccountJwtClient;
+import org.opengroup.osdu.storage.response.IngestionJobStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class IngestionJobServiceTest {
+
+    private static final String KIND = "tenant1:test:doc:1.0.0";
+    private static final String SERVICE_TOKEN = "Bearer service-token";
+
+    @Mock
+    private IngestionService ingestionService;
+
+    @Mock
+    private DpsHeaders headers;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private JaxRsDpsLog logger;
+
+    @Mock
+    private IServiceAccountJwtClient jwtClient;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private IngestionJobService sut;
+
+    @Before
+    public void setup() {
+        ReflectionTestUtils.setField(this.sut, "chunkSize", 2);
+        ReflectionTestUtils.setField(this.sut, "threadCount", 2);
+        ReflectionTestUtils.setField(this.sut, "maxConcurrentJobs", 1);
+        ReflectionTestUtils.setField(this.sut, "maxQueuedJobs", 5);
+        ReflectionTestUtils.setField(this.sut, "maxErrors", 100);
+        ReflectionTestUtils.setField(this.sut, "retentionMinutes", 60L);
+        ReflectionTestUtils.setField(this.sut, "maxSpoolBytes", 1024L * 1024L);
+        this.sut.init();
+
+        when(this.headers.getPartitionId()).thenReturn("tenant1");
+        when(this.jwtClient.getIdToken("tenant1")).thenReturn(SERVICE_TOKEN);
+    }
+
+    @After
+    public void tearDown() {
+        this.sut.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_reportInvalidRecordsByLine_when_ingestingNdjson() throws Exception {
+        when(this.ingestionService.createUpdateRecords(anyBoolean(), any(List.class), anyString())).thenAnswer(invocation -> {
+            List<Record> records = (List<Record>) invocation.getArguments()[1];
+            if (records.stream().anyMatch(record -> !KIND.equals(record.getKind()))) {
+                throw new AppException(HttpStatus.SC_BAD_REQUEST, "Invalid kind", "Invalid kind: 'bad'");
+            }
+            return new TransferInfo("user", records.size());
+        });
+
+        String ndjson = this.record("tenant1:doc:1", KIND) + "\n"
+                + "{not json\n"
+                + "\n"
+                + this.record("tenant1:doc:2", "bad") + "\n"
+                + this.record("tenant1:doc:3", KIND) + "\n";
+
+        IngestionJobStatus submitted = this.sut.submit(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), null, false, "user");
+        IngestionJobStatus status = this.awaitCompletion(submitted.getJobId());
+
+        assertEquals("COMPLETED", status.getStatus());
+        assertEquals(4L, status.getSubmittedRecordCount().longValue());
+        assertEquals(2L, status.getCreatedRecordCount().longValue());
+        assertEquals(2L, status.getFailedRecordCount().longValue());
+        List<Long> failedLines = status.getErrors().stream().map(IngestionJobStatus.RecordError::getLine).sorted()
+                .collect(Collectors.toList());
+        assertEquals(2L, failedLines.get(0).longValue());
+        assertEquals(4L, failedLines.get(1).longValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_failJobWithoutIngestingFurtherChunks_when_authorizationIsRejected() throws Exception {
+        ReflectionTestUtils.setField(this.sut, "threadCount", 0);
+        this.sut.shutdown();
+        this.sut.init();
+        when(this.ingestionService.createUpdateRecords(anyBoolean(), any(List.class), anyString()))
+                .thenThrow(new AppException(HttpStatus.SC_FORBIDDEN, "Access denied", "The user is not authorized to perform this action"));
+
+        String ndjson = this.record("tenant1:doc:1", KIND) + "\n"
+                + this.record("tenant1:doc:2", KIND) + "\n"
+                + this.record("tenant1:doc:3", KIND) + "\n"
+                + this.record("tenant1:doc:4", KIND) + "\n";
+
+        IngestionJobStatus submitted = this.sut.submit(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), null, false, "user");
+        IngestionJobStatus status = this.awaitCompletion(submitted.getJobId());
+
+        assertEquals("FAILED", status.getStatus());
+        assertTrue(status.getFailureReason().contains("The user is not authorized to perform this action"));
+        assertEquals(2L, status.getFailedRecordCount().longValue());
+        verify(this.ingestionService, times(1)).createUpdateRecords(anyBoolean(), any(List.class), anyString());
+        verify(this.jwtClient, atLeast(2)).getIdToken("tenant1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_throwRequestTooLong_when_bodyExceedsMaxSpoolSize() {
+        ReflectionTestUtils.setField(this.sut, "maxSpoolBytes", 16L);
+        String ndjson = this.record("tenant1:doc:1", KIND) + "\n";
+
+        try {
+            this.sut.submit(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), null, false, "user");
+            fail("Should not succeed");
+        } catch (AppException e) {
+            assertEquals(HttpStatus.SC_REQUEST_TOO_LONG, e.getError().getCode());
+        }
+        verify(this.ingestionService, never()).createUpdateRecords(anyBoolean(), any(List.class), anyString());
+    }
+
+    @Test
+    public void should_throwNotFound_when_jobBelongsToAnotherPartition() {
+        IngestionJobStatus submitted = this.sut.submit(new ByteArrayInputStream(new byte[0]), null, false, "user");
+        when(this.headers.getPartitionId()).thenReturn("tenant2");
+
+        try {
+            this.sut.getStatus(submitted.getJobId());
+            fail("Should not succeed");
+        } catch (AppException e) {
+            assertEquals(HttpStatus.SC_NOT_FOUND, e.getError().getCode());
+        }
+    }
+
+    private IngestionJobStatus awaitCompletion(String jobId) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            IngestionJobStatus status = this.sut.getStatus(jobId);
+            if ("COMPLETED".equals(status.getStatus()) || "FAILED".equals(status.getStatus())) {
+                return status;
+            }
+            Thread.sleep(100);
+        }
+        fail("The ingestion job did not complete");
+        return null;
+    }
+
+    private String record(String id, String kind) {
+        return String.format("{\"id\":\"%s\",\"kind\":\"%s\",\"data\":{\"count\":1}}", id, kind);
+    }
+}
@@ -41,12 +41,16 @@ import org.opengroup.osdu.core.common.model.tenant.TenantInfo;
 import org.opengroup.osdu.core.common.model.indexer.OperationType;
 import org.opengroup.osdu.core.common.model.storage.*;
 import org.opengroup.osdu.storage.logging.StorageAuditLogger;
+import org.opengroup.osdu.storage.model.RecordContentHash;
 import org.opengroup.osdu.storage.provider.interfaces.ICloudStorage;
+import org.opengroup.osdu.storage.provider.interfaces.IRecordContentHashRepository;
 import org.opengroup.osdu.storage.provider.interfaces.IRecordsMetadataRepository;
 import org.opengroup.osdu.core.common.storage.IPersistenceService;
 import org.opengroup.osdu.core.common.legal.ILegalService;
 import org.opengroup.osdu.core.common.entitlements.IEntitlementsAndCacheService;
+import org.opengroup.osdu.storage.util.RecordContentHasher;
 import org.opengroup.osdu.storage.util.api.RecordUtil;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.*;
 
@@ -432,6 +436,43 @@ public class IngestionServiceImplTest {
         verify(this.persistenceService, times(0)).persistRecordBatch(any());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_disregardUpdateRecord_withoutReadingBlobs_when_skipDupesAndIndexedHashMatches() {
+        IRecordContentHashRepository contentHashRepository = mock(IRecordContentHashRepository.class);
+        ReflectionTestUtils.setField(this.sut, "contentHashRepository", contentHashRepository);
+        when(this.authService.isValidAcl(any(), any())).thenReturn(true);
+        this.records.remove(1);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("country", "USA");
+        data.put("state", "TX");
+
+        this.record1.setData(data);
+        this.acl.setViewers(VALID_ACL);
+        this.acl.setOwners(VALID_ACL);
+
+        RecordMetadata updatedRecordMetadata = new RecordMetadata(record1);
+        updatedRecordMetadata.resetGcsPath(Lists.newArrayList("kind/id/445"));
+
+        Map<String, RecordMetadata> output = new HashMap<>();
+        output.put(RECORD_ID1, updatedRecordMetadata);
+
+        when(this.recordRepository.get(any(List.class))).thenReturn(output);
+        when(this.cloudStorage.hasAccess(updatedRecordMetadata)).thenReturn(true);
+        when(this.dataAuthorizationService.validateOwnerAccess(any(), any())).thenReturn(true);
+
+        Map<String, RecordContentHash> indexedHashes = new HashMap<>();
+        indexedHashes.put(RECORD_ID1, new RecordContentHash(445L, RecordContentHasher.hash(new RecordData(this.record1))));
+        when(contentHashRepository.get(any())).thenReturn(indexedHashes);
+
+        TransferInfo transferInfo = this.sut.createUpdateRecords(true, this.records, USER);
+
+        assertEquals(1, transferInfo.getSkippedRecords().size());
+        verify(this.cloudStorage, never()).getHash(any());
+        verify(this.persistenceService, times(0)).persistRecordBatch(any());
+    }
+
     @Test
     public void should_considerUpdateRecord_when_skipDupesAndDifferentRecordContent() {
         when(this.authService.isValidAcl(any(), any())).thenReturn(true);
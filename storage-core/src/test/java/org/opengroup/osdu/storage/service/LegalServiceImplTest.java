@@ -33,6 +33,8 @@ import org.opengroup.osdu.core.common.model.http.AppException;
 import org.opengroup.osdu.core.common.http.HttpResponse;
 import org.opengroup.osdu.core.common.legal.ILegalFactory;
 import org.opengroup.osdu.core.common.legal.ILegalProvider;
+import org.opengroup.osdu.storage.cache.LegalTagLocalCache;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.HashMap;
 import java.util.List;
@@ -88,15 +90,48 @@ public class LegalServiceImplTest {
         when(this.cache.get("tag2")).thenReturn("cache hit");
         when(this.cache.get("tag3")).thenReturn(null);
 
-        when(this.legalService.validate("tag1", "tag2", "tag3")).thenReturn(invalidTags);
+        when(this.legalService.validate("tag3")).thenReturn(invalidTags);
 
         this.sut.validateLegalTags(legaltags);
 
-        verify(this.cache).put("tag1", "Valid LegalTag");
-        verify(this.cache).put("tag2", "Valid LegalTag");
+        verify(this.legalService, times(1)).validate("tag3");
+        verify(this.cache, never()).put("tag1", "Valid LegalTag");
+        verify(this.cache, never()).put("tag2", "Valid LegalTag");
         verify(this.cache).put("tag3", "Valid LegalTag");
     }
 
+    @Test
+    public void should_rejectWithoutCallingLegalService_when_tagWasRecentlyFoundInvalid() throws Exception {
+        LegalTagLocalCache localCache = new LegalTagLocalCache();
+        ReflectionTestUtils.setField(localCache, "validTtlSeconds", 60);
+        ReflectionTestUtils.setField(localCache, "invalidTtlSeconds", 60);
+        ReflectionTestUtils.setField(localCache, "maxSize", 100);
+        localCache.init();
+        ReflectionTestUtils.setField(this.sut, "localCache", localCache);
+
+        InvalidTagWithReason invalidTag = new InvalidTagWithReason();
+        invalidTag.setName("tag3");
+        invalidTag.setReason("not found");
+
+        InvalidTagsWithReason invalidTags = new InvalidTagsWithReason();
+        invalidTags.setInvalidLegalTags(new InvalidTagWithReason[] { invalidTag });
+
+        when(this.legalService.validate("tag3")).thenReturn(invalidTags);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                this.sut.validateLegalTags(Sets.newHashSet("tag3"));
+                fail("Should not succeed");
+            } catch (AppException e) {
+                assertEquals(HttpStatus.SC_BAD_REQUEST, e.getError().getCode());
+                assertEquals("Invalid legal tags: tag3", e.getError().getMessage());
+            }
+        }
+
+        verify(this.legalService, times(1)).validate("tag3");
+        verify(this.cache, times(1)).get("tag3");
+    }
+
     @Test
     public void should_throwAppExceptionWithBadRequestCode_when_anInvalidLegalTagIsReturnedFromLegalService()
             throws Exception {
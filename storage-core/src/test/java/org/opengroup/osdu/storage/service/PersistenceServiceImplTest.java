@@ -35,6 +35,7 @@ import org.opengroup.osdu.storage.provider.interfaces.IRecordsMetadataRepository
 //import com.google.cloud.datastore.DatastoreException;
 import org.apache.http.HttpStatus;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.*;
 
@@ -139,6 +140,90 @@ public class PersistenceServiceImplTest {
         verify(this.recordRepository, times(1)).createOrUpdate(datastoreCaptor.capture());
         verify(this.pubSubClient, times(0)).publishMessage(any());
     }
+
+    @Test
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public void should_persistRecordsInSubBatches_when_pipelineIsEnabled() {
+        this.enablePipeline(20);
+        TransferBatch batch = this.createBatchTransfer();
+
+        try {
+            this.sut.persistRecordBatch(batch);
+        } finally {
+            this.sut.shutdown();
+        }
+
+        verify(this.cloudStorage, times(3)).write(any(RecordProcessing[].class));
+
+        ArgumentCaptor<List> datastoreCaptor = ArgumentCaptor.forClass(List.class);
+        verify(this.recordRepository, times(3)).createOrUpdate(datastoreCaptor.capture());
+        assertEquals(20, datastoreCaptor.getAllValues().get(0).size());
+        assertEquals(20, datastoreCaptor.getAllValues().get(1).size());
+        assertEquals(8, datastoreCaptor.getAllValues().get(2).size());
+
+        ArgumentCaptor<PubSubInfo[]> pubsubCaptor = ArgumentCaptor.forClass(PubSubInfo[].class);
+        verify(this.pubSubClient, times(1)).publishMessage(eq(this.headers), pubsubCaptor.capture());
+        this.assertPubsubInfo(48, pubsubCaptor.getAllValues());
+    }
+
+    @Test
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public void should_publishOnlyCommittedSubBatches_and_cleanupTheRest_when_pipelinedCommitFails() {
+        this.enablePipeline(20);
+        TransferBatch batch = this.createBatchTransfer();
+
+        when(this.recordRepository.createOrUpdate(any(List.class)))
+                .thenReturn(new ArrayList<>())
+                .thenThrow(new NullPointerException());
+
+        try {
+            this.sut.persistRecordBatch(batch);
+            fail("Expected exception");
+        } catch (AppException e) {
+            assertEquals(500, e.getError().getCode());
+        } finally {
+            this.sut.shutdown();
+        }
+
+        verify(this.recordRepository, times(2)).createOrUpdate(any(List.class));
+        verify(this.cloudStorage, times(28)).deleteVersion(any(RecordMetadata.class), any(Long.class));
+
+        ArgumentCaptor<PubSubInfo[]> pubsubCaptor = ArgumentCaptor.forClass(PubSubInfo[].class);
+        verify(this.pubSubClient, times(1)).publishMessage(eq(this.headers), pubsubCaptor.capture());
+        this.assertPubsubInfo(20, pubsubCaptor.getAllValues());
+    }
+
+    @Test
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public void should_publishCommittedSubBatches_and_cleanupTheRest_when_pipelinedBlobWriteFails() {
+        this.enablePipeline(20);
+        TransferBatch batch = this.createBatchTransfer();
+
+        doNothing().doThrow(new IllegalStateException("unavailable"))
+                .when(this.cloudStorage).write(any(RecordProcessing[].class));
+
+        try {
+            this.sut.persistRecordBatch(batch);
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            assertEquals("unavailable", e.getMessage());
+        } finally {
+            this.sut.shutdown();
+        }
+
+        verify(this.recordRepository, times(1)).createOrUpdate(any(List.class));
+        verify(this.cloudStorage, times(20)).deleteVersion(any(RecordMetadata.class), any(Long.class));
+
+        ArgumentCaptor<PubSubInfo[]> pubsubCaptor = ArgumentCaptor.forClass(PubSubInfo[].class);
+        verify(this.pubSubClient, times(1)).publishMessage(eq(this.headers), pubsubCaptor.capture());
+        this.assertPubsubInfo(20, pubsubCaptor.getAllValues());
+    }
+
+    private void enablePipeline(int subBatchSize) {
+        ReflectionTestUtils.setField(this.sut, "pipelineBatchSize", subBatchSize);
+        ReflectionTestUtils.setField(this.sut, "pipelineThreadCount", 2);
+        this.sut.init();
+    }
     @Ignore
     @Test
     @SuppressWarnings({"unchecked", "rawtypes"})
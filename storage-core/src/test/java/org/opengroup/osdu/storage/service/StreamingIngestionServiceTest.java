@@ -0,0 +1,166 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.service;
+
+import org.apache.http.HttpStatus;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.opengroup.osdu.core.common.logging.JaxRsDpsLog;
+import org.opengroup.osdu.core.common.model.http.AppException;
+import org.opengroup.osdu.core.common.model.storage.Record;
+import org.opengroup.osdu.core.common.model.storage.TransferInfo;
+import org.opengroup.osdu.core.common.storage.IngestionService;
+import org.opengroup.osdu.storage.mapper.CreateUpdateRecordsResponseMapper;
+import org.opengroup.osdu.storage.response.CreateUpdateRecordsResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StreamingIngestionServiceTest {
+
+    private static final String KIND = "tenant1:test:doc:1.0.0";
+
+    @Mock
+    private IngestionService ingestionService;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private JaxRsDpsLog logger;
+
+    @Spy
+    private CreateUpdateRecordsResponseMapper createUpdateRecordsResponseMapper = new CreateUpdateRecordsResponseMapper();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private StreamingIngestionService sut;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        ReflectionTestUtils.setField(this.sut, "chunkSize", 2);
+        ReflectionTestUtils.setField(this.sut, "maxRecords", 500);
+        ReflectionTestUtils.setField(this.sut, "maxBytes", 1024L * 1024L);
+
+        when(this.ingestionService.createUpdateRecords(anyBoolean(), any(List.class), anyString())).thenAnswer(invocation -> {
+            List<Record> records = (List<Record>) invocation.getArguments()[1];
+            return new TransferInfo("user", records.size());
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_ingestInChunks_when_bodyHasMoreRecordsThanChunkSize() {
+        CreateUpdateRecordsResponse response = this.sut.createUpdateRecords(this.body(
+                "tenant1:doc:1", "tenant1:doc:2", "tenant1:doc:3", "tenant1:doc:4", "tenant1:doc:5"), false, "user");
+
+        assertEquals(5, response.getRecordCount().intValue());
+        assertEquals(5, response.getRecordIds().size());
+        assertEquals("tenant1:doc:5", response.getRecordIds().get(4));
+        assertTrue(response.getSkippedRecordIds().isEmpty());
+        verify(this.ingestionService, times(3)).createUpdateRecords(eq(false), any(List.class), eq("user"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_throwBadRequestWithoutStoringRecords_when_sameIdAppearsInDifferentChunks() {
+        try {
+            this.sut.createUpdateRecords(this.body("tenant1:doc:1", "tenant1:doc:2", "tenant1:doc:1"), false, "user");
+            fail("Should not succeed");
+        } catch (AppException e) {
+            assertEquals(HttpStatus.SC_BAD_REQUEST, e.getError().getCode());
+            assertEquals("Cannot update the same record multiple times in the same request. Id: tenant1:doc:1",
+                    e.getError().getMessage());
+        }
+        verify(this.ingestionService, never()).createUpdateRecords(anyBoolean(), any(List.class), anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_throwBadRequestWithoutStoringRecords_when_lastRecordIsInvalid() {
+        String body = "[" + this.record("tenant1:doc:1", KIND) + "," + this.record("tenant1:doc:2", KIND) + ","
+                + this.record("tenant1:doc:3", "bad") + "]";
+        try {
+            this.sut.createUpdateRecords(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), false, "user");
+            fail("Should not succeed");
+        } catch (AppException e) {
+            assertEquals(HttpStatus.SC_BAD_REQUEST, e.getError().getCode());
+            assertEquals("Invalid kind", e.getError().getReason());
+        }
+        verify(this.ingestionService, never()).createUpdateRecords(anyBoolean(), any(List.class), anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_reportProcessedRecords_when_ingestionOfLaterChunkFails() {
+        when(this.ingestionService.createUpdateRecords(anyBoolean(), any(List.class), anyString()))
+                .thenReturn(new TransferInfo("user", 2))
+                .thenThrow(new AppException(HttpStatus.SC_BAD_REQUEST, "Invalid legal tags", "Invalid legal tags: tag1"));
+        try {
+            this.sut.createUpdateRecords(this.body("tenant1:doc:1", "tenant1:doc:2", "tenant1:doc:3"), false, "user");
+            fail("Should not succeed");
+        } catch (AppException e) {
+            assertEquals(HttpStatus.SC_BAD_REQUEST, e.getError().getCode());
+            assertEquals("Invalid legal tags: tag1. The first 2 records of the request were already processed",
+                    e.getError().getMessage());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_throwRequestTooLong_when_bodyExceedsMaxBytes() {
+        ReflectionTestUtils.setField(this.sut, "maxBytes", 64L);
+        try {
+            this.sut.createUpdateRecords(this.body("tenant1:doc:1", "tenant1:doc:2"), false, "user");
+            fail("Should not succeed");
+        } catch (AppException e) {
+            assertEquals(HttpStatus.SC_REQUEST_TOO_LONG, e.getError().getCode());
+        }
+        verify(this.ingestionService, never()).createUpdateRecords(anyBoolean(), any(List.class), anyString());
+    }
+
+    private InputStream body(String... ids) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < ids.length; i++) {
+            json.append(i == 0 ? "" : ",").append(this.record(ids[i], KIND));
+        }
+        return new ByteArrayInputStream(json.append("]").toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String record(String id, String kind) {
+        return String.format("{\"id\":\"%s\",\"kind\":\"%s\",\"data\":{\"count\":1}}", id, kind);
+    }
+}
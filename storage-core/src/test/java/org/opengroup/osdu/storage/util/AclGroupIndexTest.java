@@ -0,0 +1,51 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.opengroup.osdu.storage.util;
+
+import org.junit.Test;
+import org.opengroup.osdu.core.common.model.entitlements.Groups;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class AclGroupIndexTest {
+
+    @Test
+    public void should_askGroupsOncePerAclEntry_when_checkingManyRecords() {
+        Groups groups = mock(Groups.class);
+        when(groups.any("data.viewers")).thenReturn(false);
+        when(groups.any("data.owners")).thenReturn(true);
+
+        AclGroupIndex sut = new AclGroupIndex(groups);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(sut.isMemberOfAny(new String[]{"data.viewers@tenant1.com", "data.owners@tenant1.com"}));
+        }
+
+        verify(groups, times(1)).any("data.viewers");
+        verify(groups, times(1)).any("data.owners");
+    }
+
+    @Test
+    public void should_returnFalse_when_userIsNotInAnyAclGroup() {
+        Groups groups = mock(Groups.class);
+
+        AclGroupIndex sut = new AclGroupIndex(groups);
+
+        assertFalse(sut.isMemberOfAny(new String[]{"data.viewers@tenant1.com"}));
+        assertFalse(sut.isMemberOfAny(new String[0]));
+    }
+}
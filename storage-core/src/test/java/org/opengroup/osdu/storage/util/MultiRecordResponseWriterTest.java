@@ -0,0 +1,68 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.opengroup.osdu.core.common.model.storage.ConversionStatus;
+import org.opengroup.osdu.storage.response.MultiRecordBatchResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class MultiRecordResponseWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void should_writeSameJsonAsMultiRecordResponse_when_recordsAreStreamed() throws Exception {
+        ConversionStatus status = new ConversionStatus();
+        status.setId("id1");
+        status.setStatus("SUCCESS");
+        status.setErrors(Collections.emptyList());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MultiRecordResponseWriter writer = new MultiRecordResponseWriter(this.objectMapper.getFactory().createGenerator(out))) {
+            writer.writeStart();
+            writer.writeRecord("{\"id\":\"id1\",\"data\":{\"a\":1}}");
+            writer.flush();
+            writer.writeRecord("{\"id\":\"id2\",\"data\":{}}");
+            writer.writeEnd(Lists.newArrayList("id3"), Lists.newArrayList("id4"), Lists.newArrayList(status));
+        }
+
+        MultiRecordBatchResponse expected = new MultiRecordBatchResponse();
+        expected.setRecords(Lists.newArrayList("{\"id\":\"id1\",\"data\":{\"a\":1}}", "{\"id\":\"id2\",\"data\":{}}"));
+        expected.setNotFound(Lists.newArrayList("id3"));
+        expected.setRetryRecords(Lists.newArrayList("id4"));
+        expected.setConversionStatuses(Lists.newArrayList(status));
+
+        assertEquals(this.objectMapper.readTree(this.objectMapper.writeValueAsString(expected)),
+                this.objectMapper.readTree(out.toByteArray()));
+    }
+
+    @Test
+    public void should_notCompleteJson_when_writerIsClosedBeforeEnd() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MultiRecordResponseWriter writer = new MultiRecordResponseWriter(this.objectMapper.getFactory().createGenerator(out))) {
+            writer.writeStart();
+            writer.writeRecord("{\"id\":\"id1\"}");
+        }
+
+        assertEquals("{\"records\":[{\"id\":\"id1\"}", out.toString("UTF-8"));
+    }
+}
@@ -0,0 +1,114 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.util;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengroup.osdu.core.common.model.entitlements.Acl;
+import org.opengroup.osdu.core.common.model.legal.Legal;
+import org.opengroup.osdu.core.common.model.legal.LegalCompliance;
+import org.opengroup.osdu.core.common.model.storage.RecordMetadata;
+import org.opengroup.osdu.core.common.storage.PersistenceHelper;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RecordAssemblerTest {
+
+    private static final String BLOB = "{\"data\":{\"name\":\"well 1\",\"depth\":1.50,\"count\":12,\"flag\":true,\"none\":null,"
+            + "\"address\":{\"state\":\"TX\",\"city\":\"Houston\"},\"points\":[[1,2],[3.0,4e2]]},"
+            + "\"meta\":[{\"kind\":\"Unit\",\"propertyNames\":[\"depth\"]}],\"id\":\"stale-id\"}";
+
+    private final JsonParser parser = new JsonParser();
+
+    private RecordMetadata metadata;
+
+    @Before
+    public void setup() {
+        Acl acl = new Acl();
+        acl.setViewers(new String[]{"viewer1@tenant1.com", "viewer2@tenant1.com"});
+        acl.setOwners(new String[]{"owner1@tenant1.com"});
+
+        Legal legal = new Legal();
+        legal.setLegaltags(Sets.newHashSet("legal1"));
+        legal.setOtherRelevantDataCountries(Sets.newHashSet("FRA"));
+        legal.setStatus(LegalCompliance.compliant);
+
+        this.metadata = new RecordMetadata();
+        this.metadata.setId("tenant1:well:123");
+        this.metadata.setKind("tenant1:test:well:1.0.0");
+        this.metadata.setAcl(acl);
+        this.metadata.setLegal(legal);
+        this.metadata.setUser("user@tenant1.com");
+        this.metadata.setCreateTime(1546300800000L);
+    }
+
+    @Test
+    public void should_produceSameRecordAsPersistenceHelper_when_noAttributesAreProvided() {
+        JsonElement expected = PersistenceHelper.combineRecordMetaDataAndRecordDataIntoJsonObject(
+                this.parser.parse(BLOB), this.metadata, 5L);
+
+        JsonElement actual = this.parser.parse(RecordAssembler.assemble(BLOB, this.metadata, 5L, null));
+
+        assertEquals(expected, actual);
+        assertEquals("tenant1:well:123", actual.getAsJsonObject().get("id").getAsString());
+        assertEquals("1.50", actual.getAsJsonObject().getAsJsonObject("data").get("depth").getAsString());
+    }
+
+    @Test
+    public void should_copyStoredMembersVerbatim_when_noAttributesAreProvided() {
+        String blob = " { \"data\" : {\"name\":\"caf\\u00e9 \\\"}\\\"\",\"tags\":[ \"a\", {\"b\":null} ]},\n\"id\":\"stale-id\" } ";
+        JsonElement expected = PersistenceHelper.combineRecordMetaDataAndRecordDataIntoJsonObject(
+                this.parser.parse(blob), this.metadata, 5L);
+
+        String actual = RecordAssembler.assemble(blob, this.metadata, 5L, Lists.newArrayList());
+
+        assertEquals(expected, this.parser.parse(actual));
+        assertTrue(actual.startsWith("{\"data\":{\"name\":\"caf\\u00e9 \\\"}\\\"\",\"tags\":[ \"a\", {\"b\":null} ]},"));
+    }
+
+    @Test
+    public void should_fallBackToTokenizing_when_memberNameIsEscaped() {
+        String blob = "{\"d\\u0061ta\":{\"name\":\"well 1\"}}";
+        JsonElement expected = PersistenceHelper.combineRecordMetaDataAndRecordDataIntoJsonObject(
+                this.parser.parse(blob), this.metadata, 5L);
+
+        assertNull(RecordAssembler.passThrough(blob, new JsonObject()));
+        assertEquals(expected, this.parser.parse(RecordAssembler.assemble(blob, this.metadata, 5L, null)));
+    }
+
+    @Test
+    public void should_produceSameRecordAsPersistenceHelper_when_filteringDataAttributes() {
+        List<String> attributes = PersistenceHelper.getValidRecordAttributes(
+                new String[]{"data.address.state", "data.count", "data.none"});
+
+        JsonElement filtered = PersistenceHelper.filterRecordDataFields(this.parser.parse(BLOB), attributes);
+        JsonElement expected = PersistenceHelper.combineRecordMetaDataAndRecordDataIntoJsonObject(filtered, this.metadata, 5L);
+
+        JsonElement actual = this.parser.parse(RecordAssembler.assemble(BLOB, this.metadata, 5L, attributes));
+
+        assertEquals(expected, actual);
+        assertEquals(Lists.newArrayList("address.state", "count", "none"),
+                Lists.newArrayList(actual.getAsJsonObject().getAsJsonObject("data").keySet()));
+    }
+}
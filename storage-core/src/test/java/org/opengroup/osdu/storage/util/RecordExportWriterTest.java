@@ -0,0 +1,64 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class RecordExportWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final EncodeDecode encodeDecode = new EncodeDecode();
+
+    @Test
+    public void should_writeOneRecordPerLineFollowedByCursor_when_recordsAreExported() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (RecordExportWriter writer = new RecordExportWriter(out, this.objectMapper, this.encodeDecode::serializeCursor)) {
+            writer.writeRecord("{\"id\":\"id1\",\"data\":{\"a\":1}}");
+            writer.flush();
+            writer.writeRecord("{\"id\":\"id2\",\"data\":{\r\n  \"name\":\"line1\\nline2\"\n}}");
+            writer.writeEnd("cursor1", 2, Lists.newArrayList("id3"));
+        }
+
+        String[] lines = out.toString("UTF-8").split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("id1", this.objectMapper.readTree(lines[0]).get("id").asText());
+        assertEquals("line1\nline2", this.objectMapper.readTree(lines[1]).get("data").get("name").asText());
+
+        JsonNode trailer = this.objectMapper.readTree(lines[2]).get(RecordExportWriter.TRAILER_FIELD);
+        assertEquals("cursor1", this.encodeDecode.deserializeCursor(trailer.get("cursor").asText()));
+        assertEquals(2, trailer.get("recordCount").asInt());
+        assertEquals("id3", trailer.get("retryRecords").get(0).asText());
+    }
+
+    @Test
+    public void should_notFlushBufferedRecords_when_writerIsClosedWithoutTrailer() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (RecordExportWriter writer = new RecordExportWriter(out, this.objectMapper, this.encodeDecode::serializeCursor)) {
+            writer.writeRecord("{\"id\":\"id1\"}");
+            writer.flush();
+            writer.writeRecord("{\"id\":\"id2\"}");
+        }
+
+        assertEquals("{\"id\":\"id1\"}\n", out.toString("UTF-8"));
+    }
+}
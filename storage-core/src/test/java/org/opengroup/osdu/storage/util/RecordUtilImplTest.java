@@ -38,8 +38,6 @@ import org.opengroup.osdu.core.common.model.storage.PatchOperation;
 import org.opengroup.osdu.core.common.model.storage.RecordMetadata;
 import org.opengroup.osdu.core.common.model.tenant.TenantInfo;
 
-import com.google.gson.Gson;
-
 @RunWith(MockitoJUnitRunner.class)
 public class RecordUtilImplTest {
 
@@ -82,12 +80,11 @@ public class RecordUtilImplTest {
 
   @Mock
   private TenantInfo tenant;
-  private Gson gson = new Gson();
   private RecordUtilImpl recordUtil;
 
   @Before
   public void before() {
-    recordUtil = new RecordUtilImpl(tenant, gson);
+    recordUtil = new RecordUtilImpl(tenant);
     when(this.tenant.getName()).thenReturn(TENANT_NAME);
   }
 
@@ -365,6 +362,27 @@ public class RecordUtilImplTest {
     assertFalse(recordUtil.hasVersionPath(emptyList(), version));
   }
 
+  @Test
+  public void updateRecordMetaDataForPatchOperations_shouldApplyCompiledPatch_toEveryRecord() {
+    RecordMetadataPatch patch = RecordMetadataPatch.compile(Arrays.asList(
+        buildPatchOperation(PATH_ACL_VIEWERS, PATCH_OPERATION_ADD, ACL_VIEWER_NEW, ACL_VIEWER_EXISTING1),
+        buildPatchOperation(PATH_LEGAL, PATCH_OPERATION_REMOVE, LEGAL_LEGALTAG_EXISTED1),
+        buildPatchOperation(PATH_TAGS, PATCH_OPERATION_ADD, TAG_KEY_NEW + ":" + TAG_VALUE_NEW)));
+
+    for (int i = 0; i < 2; i++) {
+      RecordMetadata updatedMetadata = recordUtil
+          .updateRecordMetaDataForPatchOperations(buildRecordMetadata(), patch, TEST_USER, TIMESTAMP);
+
+      assertArrayEquals(new String[]{ACL_VIEWER_NEW, ACL_VIEWER_EXISTING1, ACL_VIEWER_EXISTING2},
+          updatedMetadata.getAcl().getViewers());
+      assertArrayEquals(new String[]{ACL_OWNER_EXISTING1, ACL_OWNER_EXISTING2}, updatedMetadata.getAcl().getOwners());
+      assertEquals(Collections.singleton(LEGAL_LEGALTAG_EXISTED2), updatedMetadata.getLegal().getLegaltags());
+      assertEquals(TAG_VALUE_NEW, updatedMetadata.getTags().get(TAG_KEY_NEW));
+      assertEquals(TEST_USER, updatedMetadata.getModifyUser());
+      assertEquals(TIMESTAMP, updatedMetadata.getModifyTime());
+    }
+  }
+
   private PatchOperation buildPatchOperation(String path, String operation, String... value) {
     return PatchOperation.builder().path(path).op(operation).value(value).build();
   }
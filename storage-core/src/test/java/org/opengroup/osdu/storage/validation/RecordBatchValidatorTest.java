@@ -0,0 +1,86 @@
+// Copyright 2017-2019, Schlumberger
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.opengroup.osdu.storage.validation;
+
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.opengroup.osdu.core.common.model.http.AppException;
+import org.opengroup.osdu.core.common.model.storage.MultiRecordIds;
+import org.opengroup.osdu.core.common.model.storage.MultiRecordRequest;
+import org.opengroup.osdu.storage.validation.impl.RecordBatchValidator;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Path;
+import javax.validation.Validator;
+import javax.validation.constraints.Size;
+import javax.validation.metadata.ConstraintDescriptor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RecordBatchValidatorTest {
+
+    private final Validator validator = mock(Validator.class);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_acceptRecordsAboveAnnotatedMaximum_when_configuredLimitIsHigher() {
+        Size size = mock(Size.class);
+        when(size.max()).thenReturn(100);
+        ConstraintDescriptor descriptor = mock(ConstraintDescriptor.class);
+        when(descriptor.getAnnotation()).thenReturn(size);
+        Path path = mock(Path.class);
+        when(path.toString()).thenReturn("records");
+        ConstraintViolation<Object> violation = mock(ConstraintViolation.class);
+        when(violation.getConstraintDescriptor()).thenReturn(descriptor);
+        when(violation.getPropertyPath()).thenReturn(path);
+        when(this.validator.validate(any())).thenReturn(Sets.newHashSet(violation));
+
+        MultiRecordIds ids = new MultiRecordIds();
+        ids.setRecords(this.ids(150));
+
+        new RecordBatchValidator(this.validator, 1000, 500).validate(ids);
+    }
+
+    @Test
+    public void should_throwBadRequest_when_recordsExceedConfiguredLimit() {
+        when(this.validator.validate(any())).thenReturn(Collections.emptySet());
+
+        MultiRecordRequest request = new MultiRecordRequest();
+        request.setRecords(this.ids(3));
+
+        try {
+            new RecordBatchValidator(this.validator, 1000, 2).validate(request);
+            fail("Should not succeed");
+        } catch (AppException e) {
+            assertEquals(400, e.getError().getCode());
+            assertEquals("Up to 2 records can be requested at once", e.getError().getMessage());
+        }
+    }
+
+    private List<String> ids(int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add("tenant1:doc:" + i);
+        }
+        return ids;
+    }
+}